@@ -0,0 +1,67 @@
+package de.mk_p.findclass.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.mk_p.findclass.DirectoryHelper;
+
+/**
+ * <p>
+ * Misst {@linkplain de.mk_p.findclass.DirectoryHelper#list(String, String[], long) DirectoryHelper.list} auf einem
+ * synthetischen Baum aus <q>width</q> hoch <q>depth</q> Ordnern mit je 20 Dateien.
+ * </p>
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class DirectoryHelperBenchmark {
+
+    private static final String [] JARFILTER =  {".*\\.jar"};
+
+    @Param ({"3"})
+    public int                  depth;
+
+    @Param ({"4", "10"})
+    public int                  width;
+
+    private File                root;
+
+    @Setup (Level.Trial)
+    public void setup () throws IOException {
+        root = Fixtures.createDirectory ("directories");
+        Fixtures.createTree (root, depth, width, 20);
+    }
+
+    @TearDown (Level.Trial)
+    public void tearDown () throws IOException {
+        Fixtures.delete (root);
+    }
+
+    @Benchmark
+    public String [] listJars () {
+        return (DirectoryHelper.list (root.getPath (), JARFILTER, DirectoryHelper.RECURSE_DIRECTORIES));
+    }
+
+    @Benchmark
+    public String [] listAll () {
+        return (DirectoryHelper.list (root.getPath (), null, DirectoryHelper.RECURSE_DIRECTORIES));
+    }
+}
@@ -0,0 +1,68 @@
+package de.mk_p.findclass.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.mk_p.findclass.DirectoryHelper;
+import de.mk_p.findclass.FileComparator;
+
+/**
+ * <p>
+ * Misst das Sortieren der Dateinamen eines synthetischen Baums mit dem
+ * {@linkplain de.mk_p.findclass.FileComparator FileComparator} nach Name, Pfad und Modifikationszeit.
+ * </p>
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class FileComparatorBenchmark {
+
+    @Param ({"filename", "pathname", "modificationdate"})
+    public String               order;
+
+    private File                root;
+    private String []           names;
+    private FileComparator      comparator;
+
+    @Setup (Level.Trial)
+    public void setup () throws IOException {
+        root =  Fixtures.createDirectory ("sort");
+        Fixtures.createTree (root, 2, 10, 20);
+        names = DirectoryHelper.list (root.getPath (), null, DirectoryHelper.RECURSE_DIRECTORIES);
+        comparator = new FileComparator ("filename".equals (order) ? FileComparator.SORTEDBY_FILENAME
+                                                                   : "pathname".equals (order) ? FileComparator.SORTEDBY_PATHNAME
+                                                                                               : FileComparator.SORTEDBY_MODIFICATIONDATE);
+    }
+
+    @TearDown (Level.Trial)
+    public void tearDown () throws IOException {
+        Fixtures.delete (root);
+    }
+
+    @Benchmark
+    public String [] sort () {
+        String []   retVal =    names.clone ();
+
+        Arrays.sort (retVal, comparator);
+        return (retVal);
+    }
+}
@@ -0,0 +1,84 @@
+package de.mk_p.findclass.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.mk_p.findclass.FindClass;
+
+/**
+ * <p>
+ * Misst Abfragen wie auf der Kommandozeile gegen einen Ordner mit <q>jars</q> Archiven zu je 500 Klassen.
+ * Die Ausgabe wird w&auml;hrend der Messung verworfen.
+ * </p>
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class FindClassBenchmark {
+
+    @Param ({"50"})
+    public int                  jars;
+
+    private File                directory;
+    private PrintStream         out;
+
+    @Setup (Level.Trial)
+    public void setup () throws IOException {
+        int     i;
+
+        directory = Fixtures.createDirectory ("findclass");
+        for (i = 0; i < jars; i++)
+            Fixtures.createJar (new File (directory, "lib" + i + ".jar"), 500);
+        out = System.out;
+        System.setOut (new PrintStream (new OutputStream () {
+            @Override
+            public void write (int b) {
+            }
+
+            @Override
+            public void write (byte [] b, int offset, int length) {
+            }
+        }));
+    }
+
+    @TearDown (Level.Trial)
+    public void tearDown () throws IOException {
+        System.setOut (out);
+        Fixtures.delete (directory);
+    }
+
+    @Benchmark
+    public void classFilter () throws IOException {
+        FindClass.main (new String [] {directory.getPath (), "-classfilter", "Class42\\.class"});
+    }
+
+    @Benchmark
+    public void classVersion () throws IOException {
+        FindClass.main (new String [] {directory.getPath (), "-classversion", "-classfilter", "Class4.*"});
+    }
+
+    @Benchmark
+    public void versionHistogram () throws IOException {
+        FindClass.main (new String [] {directory.getPath (), "-versionhistogram"});
+    }
+}
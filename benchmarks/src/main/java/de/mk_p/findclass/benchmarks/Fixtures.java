@@ -0,0 +1,145 @@
+package de.mk_p.findclass.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * Erzeugt die synthetischen Verzeichnisse, Archive und POM Dateien der Benchmarks in einem tempor&auml;ren Ordner.
+ * Die Inhalte h&auml;ngen nur von den Parametern ab, so dass alle L&auml;ufe dieselben Daten verwenden.
+ * </p>
+ */
+final class Fixtures {
+
+    /**
+     * <p>
+     * Der Anfang einer Klassendatei (Java 8), genug f&uuml;r <q>-classversion</q>.
+     * </p>
+     */
+    private static final byte [] CLASSHEADER = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 52};
+
+    private Fixtures () {
+    }
+
+    static File createDirectory (String prefix) throws IOException {
+        return (Files.createTempDirectory (prefix).toFile ());
+    }
+
+    /**
+     * <p>
+     * Erzeugt einen Baum aus <q>width</q> hoch <q>depth</q> Ordnern mit je <q>files</q> leeren Dateien, von denen
+     * jede vierte auf <q>.jar</q> endet.
+     * </p>
+     *
+     * @return  Die Anzahl der erzeugten Dateien.
+     */
+    static int createTree (File directory, int depth, int width, int files) throws IOException {
+        int     i;
+        int     retVal =    0;
+
+        if (!directory.isDirectory () && !directory.mkdirs ())
+            throw new IOException ("Cannot create " + directory);
+        for (i = 0; i < files; i++, retVal++)
+            new File (directory, "file" + i + (((i & 3) == 0) ? ".jar" : ".txt")).createNewFile ();
+        if (depth > 0)
+            for (i = 0; i < width; i++)
+                retVal += createTree (new File (directory, "dir" + i), depth - 1, width, files);
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Erzeugt ein Archiv mit <q>entries</q> Klassendateien in Paketen zu je 100 Klassen.
+     * </p>
+     */
+    static File createJar (File jar, int entries) throws IOException {
+        int     i;
+
+        try (ZipOutputStream out = new ZipOutputStream (new FileOutputStream (jar))) {
+            for (i = 0; i < entries; i++) {
+                out.putNextEntry (new ZipEntry ("org/example/pkg" + (i / 100) + "/Class" + i + ".class"));
+                out.write (CLASSHEADER);
+                out.closeEntry ();
+            }
+        }
+        return (jar);
+    }
+
+    /**
+     * <p>
+     * Erzeugt ein Modul mit <q>pom.xml</q>, dessen Gruppe und Version aus einem Elternprojekt im
+     * &uuml;bergeordneten Ordner stammen (Version &uuml;ber <q>${revision}</q>).
+     * </p>
+     *
+     * @return  Der Name der <q>pom.xml</q> des Moduls.
+     */
+    static String createModule (File directory) throws IOException {
+        File    module =    new File (directory, "module");
+
+        if (!module.isDirectory () && !module.mkdirs ())
+            throw new IOException ("Cannot create " + module);
+        write (new File (directory, "pom.xml"),
+               "<project>\n" +
+               "  <modelVersion>4.0.0</modelVersion>\n" +
+               "  <groupId>org.example</groupId>\n" +
+               "  <artifactId>parent</artifactId>\n" +
+               "  <version>${revision}</version>\n" +
+               "  <packaging>pom</packaging>\n" +
+               "  <properties>\n" +
+               "    <revision>1.2.3</revision>\n" +
+               "  </properties>\n" +
+               "</project>\n");
+        write (new File (module, "pom.xml"),
+               "<project>\n" +
+               "  <modelVersion>4.0.0</modelVersion>\n" +
+               "  <parent>\n" +
+               "    <groupId>org.example</groupId>\n" +
+               "    <artifactId>parent</artifactId>\n" +
+               "    <version>${revision}</version>\n" +
+               "  </parent>\n" +
+               "  <artifactId>module</artifactId>\n" +
+               "  <dependencies>\n" +
+               "    <dependency>\n" +
+               "      <groupId>junit</groupId>\n" +
+               "      <artifactId>junit</artifactId>\n" +
+               "      <version>4.13.2</version>\n" +
+               "    </dependency>\n" +
+               "  </dependencies>\n" +
+               "</project>\n");
+        return (new File (module, "pom.xml").getPath ());
+    }
+
+    private static void write (File file, String content) throws IOException {
+        try (Writer out = new OutputStreamWriter (new FileOutputStream (file), StandardCharsets.UTF_8)) {
+            out.write (content);
+        }
+    }
+
+    static void delete (File directory) throws IOException {
+        if (directory != null)
+            Files.walkFileTree (directory.toPath (), new SimpleFileVisitor <Path> () {
+                @Override
+                public FileVisitResult visitFile (Path file, BasicFileAttributes attributes) throws IOException {
+                    Files.delete (file);
+                    return (FileVisitResult.CONTINUE);
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory (Path dir, IOException e) throws IOException {
+                    Files.delete (dir);
+                    return (FileVisitResult.CONTINUE);
+                }
+            });
+    }
+}
@@ -0,0 +1,62 @@
+package de.mk_p.findclass.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.mk_p.findclass.PomHelper;
+
+/**
+ * <p>
+ * Misst das Lesen der Koordinaten eines Moduls, dessen Gruppe und Version aus dem Elternprojekt stammen, einmal
+ * mit geleerten Caches (<q>cold</q>) und einmal aus den Caches (<q>cached</q>).
+ * </p>
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class PomHelperBenchmark {
+
+    private File                directory;
+    private String              pomName;
+
+    @Setup (Level.Trial)
+    public void setup () throws IOException {
+        directory = Fixtures.createDirectory ("poms");
+        pomName =   Fixtures.createModule (directory);
+    }
+
+    @TearDown (Level.Trial)
+    public void tearDown () throws IOException {
+        PomHelper.clearCaches ();
+        Fixtures.delete (directory);
+    }
+
+    @Benchmark
+    public PomHelper cold () {
+        PomHelper.clearCaches ();
+        return (PomHelper.getInfo (pomName));
+    }
+
+    @Benchmark
+    public PomHelper cached () {
+        return (PomHelper.getInfo (pomName));
+    }
+}
@@ -0,0 +1,87 @@
+package de.mk_p.findclass.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.mk_p.findclass.ReaderInputStream;
+
+/**
+ * <p>
+ * Vergleicht den {@linkplain de.mk_p.findclass.ReaderInputStream ReaderInputStream} mit dem
+ * {@linkplain LegacyReaderInputStream bisherigen}.  Jede Operation liest einen Text von einem MB, so dass
+ * <q>gc.alloc.rate.norm</q> (mit <q>-prof gc</q>) die erzeugten Bytes pro MB angibt.
+ * </p>
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class ReaderInputStreamBenchmark {
+
+    private static final int    TEXTSIZE =      0x100000;
+
+    @Param ({"UTF-8", "ISO-8859-1"})
+    public String               encoding;
+
+    @Param ({"ascii", "umlauts"})
+    public String               text;
+
+    @Param ({"8192"})
+    public int                  bufferSize;
+
+    private String              content;
+    private byte []             buffer;
+
+    @Setup
+    public void setup () {
+        String          line =  "ascii".equals (text) ? "The quick brown fox jumps over the lazy dog. "
+                                                       : "Grüße aus Köln, à bientôt. ";
+        StringBuilder   sb =    new StringBuilder (TEXTSIZE + line.length ());
+
+        while (sb.length () < TEXTSIZE)
+            sb.append (line);
+        sb.setLength (TEXTSIZE);
+        content =   sb.toString ();
+        buffer =    new byte [bufferSize];
+    }
+
+    private long drain (InputStream in) throws IOException {
+        int     len;
+        long    retVal =    0;
+
+        try {
+            while ((len = in.read (buffer, 0, buffer.length)) > 0)
+                retVal += len;
+        }
+        finally {
+            in.close ();
+        }
+        return (retVal);
+    }
+
+    @Benchmark
+    public long current () throws IOException {
+        return (drain (new ReaderInputStream (new StringReader (content), encoding)));
+    }
+
+    @Benchmark
+    public long legacy () throws IOException {
+        return (drain (new LegacyReaderInputStream (new StringReader (content), encoding)));
+    }
+}
@@ -0,0 +1,65 @@
+package de.mk_p.findclass.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.mk_p.findclass.ZipHelper;
+
+/**
+ * <p>
+ * Misst {@linkplain de.mk_p.findclass.ZipHelper#getNames(String[], long) ZipHelper.getNames} f&uuml;r ein kleines
+ * Archiv und ein <q>fat jar</q>, ohne und mit Filter.
+ * </p>
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class ZipHelperBenchmark {
+
+    private static final String [] CLASSFILTER =    {".*/Class4[0-9]*\\.class"};
+
+    @Param ({"200", "50000"})
+    public int                  entries;
+
+    private File                directory;
+    private ZipHelper           zipper;
+
+    @Setup (Level.Trial)
+    public void setup () throws IOException {
+        directory = Fixtures.createDirectory ("archives");
+        zipper =    new ZipHelper (Fixtures.createJar (new File (directory, "test.jar"), entries).getPath ());
+    }
+
+    @TearDown (Level.Trial)
+    public void tearDown () throws IOException {
+        Fixtures.delete (directory);
+    }
+
+    @Benchmark
+    public String [] getNames () throws IOException {
+        return (zipper.getNames (null, ZipHelper.WITHOUT_DIRECTORIES));
+    }
+
+    @Benchmark
+    public String [] getNamesFiltered () throws IOException {
+        return (zipper.getNames (CLASSFILTER, ZipHelper.WITHOUT_DIRECTORIES));
+    }
+}
@@ -0,0 +1,757 @@
+package de.mk_p.findclass;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * <p>
+ * Eine Klasse zur Arbeit mit Java Klassendateien.
+ * </p>
+ * <p>
+ * Die Methoden lesen nur die Teile einer Klassendatei, die f&uuml;r die jeweilige Auskunft ben&ouml;tigt werden.
+ * Eine Instanz liest eine Klassendatei nach der anderen in einen wiederverwendeten Puffer und merkt sich nur die
+ * Positionen der Eintr&auml;ge im Konstantenpool, ohne f&uuml;r diese Objekte zu erzeugen.
+ * Instanzen sind nicht threadsicher, sie sollten pro {@linkplain java.lang.Thread Thread} verwendet werden.
+ * </p>
+ */
+
+public class ClassFileHelper {
+
+    /**
+     * <p>
+     * Die <q>magische</q> Zahl mit der jede Java Klassendatei beginnt.
+     * </p>
+     */
+    public static final int    MAGIC =              0xCAFEBABE;
+
+    /**
+     * <p>
+     * Die Anzahl Bytes am Anfang einer Klassendatei, die die magische Zahl und die Versionsnummern enthalten.
+     * </p>
+     */
+    public static final int    HEADER_LENGTH =      8;
+
+    public static final int    CONSTANT_UTF8 =                  1;
+    public static final int    CONSTANT_INTEGER =               3;
+    public static final int    CONSTANT_FLOAT =                 4;
+    public static final int    CONSTANT_LONG =                  5;
+    public static final int    CONSTANT_DOUBLE =                6;
+    public static final int    CONSTANT_CLASS =                 7;
+    public static final int    CONSTANT_STRING =                8;
+    public static final int    CONSTANT_FIELDREF =              9;
+    public static final int    CONSTANT_METHODREF =             10;
+    public static final int    CONSTANT_INTERFACEMETHODREF =    11;
+    public static final int    CONSTANT_NAMEANDTYPE =           12;
+    public static final int    CONSTANT_METHODHANDLE =          15;
+    public static final int    CONSTANT_METHODTYPE =            16;
+    public static final int    CONSTANT_DYNAMIC =               17;
+    public static final int    CONSTANT_INVOKEDYNAMIC =         18;
+    public static final int    CONSTANT_MODULE =                19;
+    public static final int    CONSTANT_PACKAGE =               20;
+
+    /**
+     * <p>
+     * Eine vorbereitete Suche nach Verweisen auf einen Typ oder ein Element eines Typs.
+     * </p>
+     * <p>
+     * Die Angabe erfolgt als voll qualifizierter Klassenname (z.B. <q>sun.misc.BASE64Encoder</q>),
+     * optional gefolgt von: <q>#</q> und dem Namen eines Feldes oder einer Methode, dem wiederum der Anfang eines
+     * Deskriptors folgen kann (z.B. <q>sun.misc.BASE64Encoder#encode([B)</q>).
+     * </p>
+     */
+    public static class Reference {
+        private String  text;
+        private byte [] typeName;
+        private byte [] typeDescriptor;
+        private byte [] genericDescriptor;
+        private byte [] simpleDescriptor;
+        private byte [] memberName;
+        private byte [] memberDescriptor;
+
+        public Reference (String text) {
+            int     index =         text.indexOf ('#');
+            int     descriptor;
+            String  type =          ((index < 0) ? text : text.substring (0, index)).replace ('.', '/');
+            String  member =        (index < 0) ? null : text.substring (index + 1);
+
+            this.text = text;
+            if (type.startsWith ("@"))
+                type = type.substring (1);
+            if (type.indexOf ('/') < 0)
+                simpleDescriptor = ("/" + type + ";").getBytes (UTF8);
+            typeName = type.getBytes (UTF8);
+            typeDescriptor = ("L" + type + ";").getBytes (UTF8);
+            genericDescriptor = ("L" + type + "<").getBytes (UTF8);
+            if (member != null) {
+                if ((descriptor = member.indexOf ('(')) >= 0) {
+                    memberDescriptor = member.substring (descriptor).replace ('.', '/').getBytes (UTF8);
+                    member = member.substring (0, descriptor);
+                }
+                memberName = member.getBytes (UTF8);
+            }
+        }
+
+        public String getText () {
+            return (text);
+        }
+
+        public boolean isMemberReference () {
+            return (memberName != null);
+        }
+    }
+
+    private static final int        FIRST_MAJOR =        45;
+    private static final int        JAVA5_MAJOR =        49;
+    private static final int        PREVIEW_MINOR =      0xFFFF;
+    private static final int        DEFAULT_BUFFERSIZE = 0x4000;
+    private static final int        FILL_CHUNKSIZE =     0x1000;
+    private static final Charset    UTF8 =               Charset.forName ("UTF-8");
+    private static final byte []    DESCRIPTOR_PREFIX =  {'L'};
+    private static final byte []    RUNTIMEVISIBLEANNOTATIONS = "RuntimeVisibleAnnotations".getBytes (UTF8);
+
+    private InputStream     in;
+    private byte []         buffer =                new byte [DEFAULT_BUFFERSIZE];
+    private int             length;
+    private int             limit;
+    private int []          offsets =               new int [0x400];
+    private int             constantPoolCount;
+    private int             constantPoolEnd;
+    private int             attributesOffset;
+
+    private static int readUnsignedShort (byte [] buffer, int offset) {
+        return (((buffer [offset] & 0xFF) << 8) | (buffer [offset + 1] & 0xFF));
+    }
+
+    private static int readInt (byte [] buffer, int offset) {
+        return ((readUnsignedShort (buffer, offset) << 16) | readUnsignedShort (buffer, offset + 2));
+    }
+
+    private static long readUnsignedInt (byte [] buffer, int offset) {
+        return (readInt (buffer, offset) & 0xFFFFFFFFl);
+    }
+
+    /**
+     * <p>
+     * &Uuml;berpr&uuml;ft ob ein <q>Byte-Feld</q> mit dem Kopf einer Java Klassendatei beginnt.
+     * </p>
+     *
+     * @param  header   Die ersten Bytes einer Datei.
+     * @param  length   Die Anzahl der g&uuml;ltigen Bytes im Feld.
+     * @return <q>true</q> falls mindestens {@linkplain #HEADER_LENGTH HEADER_LENGTH} Bytes vorliegen und diese mit
+     *         der {@linkplain #MAGIC magischen Zahl} beginnen, sonst <q>false</q>.
+     */
+    public static boolean isClassHeader (byte [] header, int length) {
+        return ((length >= HEADER_LENGTH) && (readInt (header, 0) == MAGIC));
+    }
+
+    public static int getMinorVersion (byte [] header) {
+        return (readUnsignedShort (header, 4));
+    }
+
+    public static int getMajorVersion (byte [] header) {
+        return (readUnsignedShort (header, 6));
+    }
+
+    /**
+     * <p>
+     * Liefert die Java Version die einer Hauptversionsnummer einer Klassendatei entspricht.
+     * </p>
+     *
+     * @param  major    Die Hauptversionsnummer (z.B. <q>52</q>).
+     * @return Die Java Version (z.B. <q>8</q> oder: <q>1.4</q>), oder: <q>?</q> falls die Nummer ung&uuml;ltig ist.
+     */
+    public static String getJavaVersion (int major) {
+        if (major < FIRST_MAJOR)
+            return ("?");
+        else if (major < JAVA5_MAJOR)
+            return ("1." + Math.max (1, major - FIRST_MAJOR + 1));
+        else
+            return (Integer.toString (major - FIRST_MAJOR + 1));
+    }
+
+    /**
+     * <p>
+     * Liefert eine lesbare Beschreibung der Version einer Klassendatei, z.B. <q>Java 8, 52.0</q>.
+     * </p>
+     *
+     * @param  major    Die Hauptversionsnummer.
+     * @param  minor    Die Nebenversionsnummer.
+     * @return Die Beschreibung, ggf. mit dem Zusatz: <q>preview</q>.
+     */
+    public static String formatVersion (int major, int minor) {
+        return ("Java " + getJavaVersion (major) + ((minor == PREVIEW_MINOR) ? " preview" : "") + ", " + major + "." + minor);
+    }
+
+    /**
+     * <p>
+     * Liest die Version einer Klassendatei aus dem Dateisystem.
+     * </p>
+     *
+     * @param  filename     Der Name der Klassendatei.
+     * @param  header       Ein Feld mit mindestens {@linkplain #HEADER_LENGTH HEADER_LENGTH} Bytes das als Puffer dient.
+     * @return Die Hauptversionsnummer in den oberen und die Nebenversionsnummer in den unteren 16 Bit, oder <q>-1</q>
+     *         falls die Datei keine Klassendatei ist.
+     * @throws IOException  Falls die Datei nicht gelesen werden kann.
+     */
+    public static int readVersion (String filename, byte [] header) throws IOException {
+        try (InputStream in = new FileInputStream (filename)) {
+            return (readVersion (in, header));
+        }
+    }
+
+    /**
+     * <p>
+     * Liest die Version einer Klassendatei aus einem {@linkplain java.io.InputStream Datenstrom}.
+     * Es werden nur die ersten {@linkplain #HEADER_LENGTH HEADER_LENGTH} Bytes gelesen; der Datenstrom wird nicht
+     * geschlossen.
+     * </p>
+     *
+     * @param  in           Der Datenstrom der die Klassendatei liefert.
+     * @param  header       Ein Feld mit mindestens {@linkplain #HEADER_LENGTH HEADER_LENGTH} Bytes das als Puffer dient.
+     * @return Die Hauptversionsnummer in den oberen und die Nebenversionsnummer in den unteren 16 Bit, oder <q>-1</q>
+     *         falls der Datenstrom keine Klassendatei liefert.
+     * @throws IOException  Falls der Datenstrom nicht gelesen werden kann.
+     */
+    public static int readVersion (InputStream in, byte [] header) throws IOException {
+        int len;
+        int length = 0;
+
+        while ((length < HEADER_LENGTH) && ((len = in.read (header, length, HEADER_LENGTH - length)) > 0))
+            length += len;
+        return (isClassHeader (header, length) ? (getMajorVersion (header) << 16) | getMinorVersion (header) : -1);
+    }
+
+    /**
+     * <p>
+     * Die Methode beginnt das Lesen einer Klassendatei aus einem {@linkplain java.io.InputStream Datenstrom}
+     * und liest deren Konstantenpool.
+     * </p>
+     * <p>
+     * Aus dem Datenstrom werden nur so viele Bytes gelesen, wie f&uuml;r den Konstantenpool ben&ouml;tigt werden.
+     * Der Rest der Klassendatei (Felder, Methoden, Attribute) wird nicht gelesen; der Datenstrom wird nicht
+     * geschlossen.
+     * </p>
+     *
+     * @param  input        Der Datenstrom der die Klassendatei liefert.
+     * @param  size         Die Gr&ouml;&szlig;e der Klassendatei, oder: <q>-1</q> falls diese nicht bekannt ist.
+     * @return <q>true</q> falls der Datenstrom eine Klassendatei liefert, sonst <q>false</q>.
+     * @throws IOException  Falls beim Lesen ein Problem auftritt oder die Klassendatei unvollst&auml;ndig ist.
+     */
+    public boolean open (InputStream input, long size) throws IOException {
+        int i;
+        int tag;
+        int offset;
+
+        in = input;
+        length = 0;
+        limit = ((size >= 0) && (size <= Integer.MAX_VALUE)) ? (int) size : Integer.MAX_VALUE;
+        constantPoolCount = 0;
+        attributesOffset = -1;
+        if ((size > buffer.length) && (size <= Integer.MAX_VALUE))
+            buffer = new byte [(int) size];
+        if (!fill (HEADER_LENGTH + 2, false) || (readInt (buffer, 0) != MAGIC))
+            return (false);
+        constantPoolCount = readUnsignedShort (buffer, HEADER_LENGTH);
+        if (offsets.length < constantPoolCount)
+            offsets = new int [Math.max (constantPoolCount, offsets.length * 2)];
+        offset = HEADER_LENGTH + 2;
+        for (i = 1; i < constantPoolCount; i++) {
+            fill (offset + 3, true);
+            offsets [i] = offset;
+            switch (tag = buffer [offset] & 0xFF) {
+                case CONSTANT_UTF8:
+                    offset += 3 + readUnsignedShort (buffer, offset + 1);
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHODTYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    offset += 3;
+                    break;
+                case CONSTANT_METHODHANDLE:
+                    offset += 4;
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACEMETHODREF:
+                case CONSTANT_NAMEANDTYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKEDYNAMIC:
+                    offset += 5;
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    offset += 9;
+                    if (++i < constantPoolCount)
+                        offsets [i] = 0;        // the second slot is unusable
+                    break;
+                default:
+                    throw new IOException ("invalid constant pool tag " + tag + " at index " + i);
+            }
+        }
+        fill (offset + 8, true);     // access flags, this and super class, interfaces count
+        constantPoolEnd = offset;
+        return (true);
+    }
+
+    /**
+     * <p>
+     * Stellt sicher, dass mindestens: <q>end</q> Bytes der Klassendatei im Puffer vorliegen.
+     * Je Aufruf werden h&ouml;chstens {@value #FILL_CHUNKSIZE} Bytes mehr als n&ouml;tig gelesen, so dass auch bei
+     * einem Puffer in der Gr&ouml;&szlig;e der Klassendatei nur der ben&ouml;tigte Anfang dekomprimiert wird.
+     * Der Puffer w&auml;chst mit den tats&auml;chlich gelesenen Daten, nicht mit einer (m&ouml;glicherweise
+     * falschen) L&auml;ngenangabe der Klassendatei.
+     * </p>
+     *
+     * @throws IOException  Falls <q>end</q> hinter dem Ende der Klassendatei liegt oder diese unvollst&auml;ndig ist.
+     */
+    private boolean fill (int end, boolean required) throws IOException {
+        int     len;
+        byte [] newBuffer;
+
+        if ((end < 0) || (end > limit))
+            throw new IOException ("corrupt class file");
+        while (length < end) {
+            if (length == buffer.length) {
+                newBuffer = new byte [(int) Math.min (end + (long) FILL_CHUNKSIZE, buffer.length * 2l)];
+                System.arraycopy (buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+            if ((len = in.read (buffer, length, Math.min (buffer.length - length,
+                                                          Math.max (end - length, FILL_CHUNKSIZE)))) < 0) {
+                if (required)
+                    throw new EOFException ("truncated class file");
+                return (false);
+            }
+            length += len;
+        }
+        return (true);
+    }
+
+    public int getMajorVersion () {
+        return (getMajorVersion (buffer));
+    }
+
+    public int getMinorVersion () {
+        return (getMinorVersion (buffer));
+    }
+
+    public int getConstantPoolCount () {
+        return (constantPoolCount);
+    }
+
+    /**
+     * <p>
+     * Liefert die Position des ersten Bytes nach dem Konstantenpool (die Zugriffsrechte der Klasse).
+     * </p>
+     */
+    public int getConstantPoolEnd () {
+        return (constantPoolEnd);
+    }
+
+    private int tag (int index) {
+        return (((index > 0) && (index < constantPoolCount)) ? buffer [offsets [index]] & 0xFF : 0);
+    }
+
+    private int reference (int index, int position) {
+        return (readUnsignedShort (buffer, offsets [index] + 1 + 2 * position));
+    }
+
+    private boolean utf8Equals (int index, byte [] value) {
+        int i;
+        int offset;
+
+        if (tag (index) != CONSTANT_UTF8)
+            return (false);
+        offset = offsets [index];
+        if (readUnsignedShort (buffer, offset + 1) != value.length)
+            return (false);
+        for (offset += 3, i = 0; i < value.length; i++)
+            if (buffer [offset + i] != value [i])
+                return (false);
+        return (true);
+    }
+
+    private boolean utf8StartsWith (int index, byte [] value) {
+        int i;
+        int offset;
+
+        if (tag (index) != CONSTANT_UTF8)
+            return (false);
+        offset = offsets [index];
+        if (readUnsignedShort (buffer, offset + 1) < value.length)
+            return (false);
+        for (offset += 3, i = 0; i < value.length; i++)
+            if (buffer [offset + i] != value [i])
+                return (false);
+        return (true);
+    }
+
+    private boolean utf8EndsWith (int index, byte [] value) {
+        int i;
+        int offset;
+        int len;
+
+        if (tag (index) != CONSTANT_UTF8)
+            return (false);
+        offset = offsets [index];
+        if ((len = readUnsignedShort (buffer, offset + 1)) < value.length)
+            return (false);
+        for (offset += 3 + len - value.length, i = 0; i < value.length; i++)
+            if (buffer [offset + i] != value [i])
+                return (false);
+        return (true);
+    }
+
+    private boolean utf8Contains (int index, byte [] value) {
+        int i;
+        int j;
+        int offset =    offsets [index] + 3;
+        int end =       offset + readUnsignedShort (buffer, offsets [index] + 1) - value.length;
+
+        OUTER: for (i = offset; i <= end; i++) {
+            for (j = 0; j < value.length; j++)
+                if (buffer [i + j] != value [j])
+                    continue OUTER;
+            return (true);
+        }
+        return (false);
+    }
+
+    private boolean isClassOrArray (int index, Reference reference) {
+        int offset;
+        int len;
+
+        if (utf8Equals (index, reference.typeName))
+            return (true);
+        else if ((tag (index) != CONSTANT_UTF8) || !utf8Contains (index, reference.typeDescriptor))
+            return (false);
+        offset = offsets [index] + 3;
+        len = readUnsignedShort (buffer, offsets [index] + 1);
+        for (len -= reference.typeDescriptor.length; (len > 0) && (buffer [offset] == '['); len--)
+            offset++;
+        return (len == 0);    // "[[Lpackage/Type;"
+    }
+
+    /**
+     * <p>
+     * &Uuml;berpr&uuml;ft ob der Konstantenpool der zuletzt {@linkplain #open(InputStream, long) gelesenen}
+     * Klassendatei auf einen Typ oder ein Element verweist.
+     * </p>
+     * <p>
+     * Ein Typ gilt als referenziert, wenn er als Klasseneintrag (auch als Feld), oder in einem Deskriptor
+     * oder einer generischen Signatur vorkommt.
+     * Ein Element gilt als referenziert, wenn ein Feld- oder Methodenverweis auf den Typ und den Namen (und
+     * ggf. den Anfang des Deskriptors) existiert.
+     * Eine Klasse verweist nicht auf sich selbst: weder ihr eigener Klasseneintrag (<q>this_class</q>) noch
+     * ihr Typ in Deskriptoren (z.B. <q>this</q> in der <q>LocalVariableTable</q>) z&auml;hlen als Verweis auf den
+     * Typ.
+     * </p>
+     *
+     * @param  reference    Die {@linkplain Reference vorbereitete} Suche.
+     * @return <q>true</q> falls die Klassendatei auf den Typ oder das Element verweist.
+     */
+    public boolean references (Reference reference) {
+        int i;
+        int tag;
+        int nameAndType;
+        int thisClass = readUnsignedShort (buffer, constantPoolEnd + 2);
+
+        if ((reference.memberName == null) && (tag (thisClass) == CONSTANT_CLASS) &&
+            utf8Equals (reference (thisClass, 0), reference.typeName))
+            return (false);
+        for (i = 1; i < constantPoolCount; i++) {
+            tag = tag (i);
+            if (reference.memberName == null) {
+                if ((tag == CONSTANT_CLASS) && isClassOrArray (reference (i, 0), reference))
+                    return (true);
+                else if ((tag == CONSTANT_UTF8) &&
+                         (utf8Contains (i, reference.typeDescriptor) || utf8Contains (i, reference.genericDescriptor)))
+                    return (true);
+            }
+            else if (((tag == CONSTANT_FIELDREF) || (tag == CONSTANT_METHODREF) || (tag == CONSTANT_INTERFACEMETHODREF)) &&
+                     (tag (reference (i, 0)) == CONSTANT_CLASS) &&
+                     utf8Equals (reference (reference (i, 0), 0), reference.typeName) &&
+                     (tag (nameAndType = reference (i, 1)) == CONSTANT_NAMEANDTYPE) &&
+                     utf8Equals (reference (nameAndType, 0), reference.memberName) &&
+                     ((reference.memberDescriptor == null) ||
+                      utf8StartsWith (reference (nameAndType, 1), reference.memberDescriptor)))
+                return (true);
+        }
+        return (false);
+    }
+
+    /**
+     * <p>
+     * Liefert den Inhalt eines <q>CONSTANT_Utf8</q> Eintrags des Konstantenpools.
+     * </p>
+     *
+     * @param  index    Der Index des Eintrags.
+     * @return Die {@linkplain java.lang.String Zeichenkette}, oder: <q>null</q> falls der Eintrag kein
+     *         <q>CONSTANT_Utf8</q> Eintrag ist.
+     */
+    public String getUtf8 (int index) {
+        int offset;
+
+        if (tag (index) != CONSTANT_UTF8)
+            return (null);
+        offset = offsets [index];
+        return (new String (buffer, offset + 3, readUnsignedShort (buffer, offset + 1), UTF8));
+    }
+
+    private String getClassConstant (int index) {
+        return ((tag (index) == CONSTANT_CLASS) ? getUtf8 (reference (index, 0)) : null);
+    }
+
+    /**
+     * <p>
+     * Liefert den internen Namen (z.B. <q>java/lang/String</q>) der zuletzt
+     * {@linkplain #open(InputStream, long) gelesenen} Klasse.
+     * </p>
+     *
+     * @throws IOException  Falls die Klassendatei unvollst&auml;ndig ist.
+     */
+    public String getClassName () throws IOException {
+        fill (constantPoolEnd + 8, true);
+        return (getClassConstant (readUnsignedShort (buffer, constantPoolEnd + 2)));
+    }
+
+    /**
+     * <p>
+     * Liefert den internen Namen der Oberklasse der zuletzt {@linkplain #open(InputStream, long) gelesenen} Klasse.
+     * </p>
+     *
+     * @return Der Name, oder: <q>null</q> f&uuml;r <q>java/lang/Object</q> und Module.
+     * @throws IOException  Falls die Klassendatei unvollst&auml;ndig ist.
+     */
+    public String getSuperclassName () throws IOException {
+        fill (constantPoolEnd + 8, true);
+        return (getClassConstant (readUnsignedShort (buffer, constantPoolEnd + 4)));
+    }
+
+    /**
+     * <p>
+     * Liefert die internen Namen der direkt implementierten Schnittstellen der zuletzt
+     * {@linkplain #open(InputStream, long) gelesenen} Klasse.
+     * Diese stehen direkt hinter dem Konstantenpool, so dass der Rest der Klassendatei nicht gelesen wird.
+     * </p>
+     *
+     * @throws IOException  Falls die Klassendatei unvollst&auml;ndig ist.
+     */
+    public String [] getInterfaceNames () throws IOException {
+        int         i;
+        int         count;
+        String []   retVal;
+
+        fill (constantPoolEnd + 8, true);
+        count = readUnsignedShort (buffer, constantPoolEnd + 6);
+        fill (constantPoolEnd + 8 + 2 * count, true);
+        retVal = new String [count];
+        for (i = 0; i < count; i++)
+            retVal [i] = getClassConstant (readUnsignedShort (buffer, constantPoolEnd + 8 + 2 * i));
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Liefert Namen und Deskriptoren der Felder der zuletzt {@linkplain #open(InputStream, long) gelesenen} Klasse.
+     * </p>
+     *
+     * @return Ein Feld, das abwechselnd Namen und Deskriptor (z.B. <q>out</q>, <q>Ljava/io/PrintStream;</q>)
+     *         enth&auml;lt.
+     * @throws IOException  Falls die Klassendatei unvollst&auml;ndig ist.
+     */
+    public String [] getFields () throws IOException {
+        return (getMembers (0));
+    }
+
+    /**
+     * <p>
+     * Liefert Namen und Deskriptoren der Methoden der zuletzt {@linkplain #open(InputStream, long) gelesenen} Klasse.
+     * </p>
+     *
+     * @return Ein Feld, das abwechselnd Namen und Deskriptor (z.B. <q>format</q>,
+     *         <q>(Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/String;</q>) enth&auml;lt.
+     * @throws IOException  Falls die Klassendatei unvollst&auml;ndig ist.
+     */
+    public String [] getMethods () throws IOException {
+        return (getMembers (1));
+    }
+
+    private String [] getMembers (int kind) throws IOException {
+        int         i;
+        int         j;
+        int         count =     0;
+        int         offset;
+        String []   retVal =    null;
+
+        offset = constantPoolEnd + 6;
+        fill (offset + 2, true);
+        offset += 2 + 2 * readUnsignedShort (buffer, offset);    // interfaces
+        for (i = 0; i <= kind; i++) {                           // fields, methods
+            fill (offset + 2, true);
+            count = readUnsignedShort (buffer, offset);
+            offset += 2;
+            if (i == kind)
+                retVal = new String [2 * count];
+            for (j = 0; j < count; j++) {
+                fill (offset + 8, true);
+                if (i == kind) {
+                    retVal [2 * j] = getUtf8 (readUnsignedShort (buffer, offset + 2));
+                    retVal [2 * j + 1] = getUtf8 (readUnsignedShort (buffer, offset + 4));
+                }
+                offset = skipAttributes (offset + 8, readUnsignedShort (buffer, offset + 6));
+            }
+        }
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Liefert die Position der Attribute der Klasse (hinter den Feldern und Methoden).
+     * Felder und Methoden werden dabei anhand ihrer L&auml;ngenangaben &uuml;bersprungen, ohne sie zu analysieren.
+     * </p>
+     */
+    private int getAttributesOffset () throws IOException {
+        int i;
+        int j;
+        int count;
+        int attributes;
+        int offset;
+
+        if (attributesOffset >= 0)
+            return (attributesOffset);
+        offset = constantPoolEnd + 6;
+        fill (offset + 2, true);
+        offset += 2 + 2 * readUnsignedShort (buffer, offset);    // interfaces
+        for (i = 0; i < 2; i++) {                               // fields, methods
+            fill (offset + 2, true);
+            count = readUnsignedShort (buffer, offset);
+            offset += 2;
+            for (j = 0; j < count; j++) {
+                fill (offset + 8, true);
+                attributes = readUnsignedShort (buffer, offset + 6);
+                offset = skipAttributes (offset + 8, attributes);
+            }
+        }
+        fill (offset + 2, true);
+        return (attributesOffset = offset);
+    }
+
+    private int skipAttributes (int offset, int count) throws IOException {
+        int i;
+
+        for (i = 0; i < count; i++) {
+            fill (offset + 6, true);
+            offset = skip (offset + 6, readUnsignedInt (buffer, offset + 2));
+        }
+        return (offset);
+    }
+
+    /**
+     * <p>
+     * Liefert die Position hinter einem Attribut der L&auml;nge <q>len</q>, das bei <q>offset</q> beginnt.
+     * </p>
+     *
+     * @throws IOException  Falls das Attribut &uuml;ber das Ende der Klassendatei hinausreicht.
+     */
+    private int skip (int offset, long len) throws IOException {
+        if (offset + len > limit)
+            throw new IOException ("corrupt class file");
+        return ((int) (offset + len));
+    }
+
+    private int skipElementValue (int offset) throws IOException {
+        int i;
+        int count;
+
+        fill (offset + 1, true);
+        switch (buffer [offset]) {
+            case 'e':
+                return (offset + 5);
+            case '@':
+                return (skipAnnotation (offset + 1));
+            case '[':
+                fill (offset + 3, true);
+                count = readUnsignedShort (buffer, offset + 1);
+                for (offset += 3, i = 0; i < count; i++)
+                    offset = skipElementValue (offset);
+                return (offset);
+            default:
+                return (offset + 3);
+        }
+    }
+
+    private int skipAnnotation (int offset) throws IOException {
+        int i;
+        int count;
+
+        fill (offset + 4, true);
+        count = readUnsignedShort (buffer, offset + 2);
+        for (offset += 4, i = 0; i < count; i++)
+            offset = skipElementValue (offset + 2);
+        return (offset);
+    }
+
+    private boolean isAnnotationType (int index, Reference annotation) {
+        return ((annotation.simpleDescriptor != null)
+                ? (utf8StartsWith (index, DESCRIPTOR_PREFIX) && utf8EndsWith (index, annotation.simpleDescriptor))
+                : utf8Equals (index, annotation.typeDescriptor));
+    }
+
+    /**
+     * <p>
+     * &Uuml;berpr&uuml;ft ob die zuletzt {@linkplain #open(InputStream, long) gelesene} Klasse mit einer
+     * zur Laufzeit sichtbaren Annotation versehen ist.
+     * </p>
+     * <p>
+     * Zun&auml;chst wird im Konstantenpool nach dem Deskriptor der Annotation gesucht.
+     * Nur wenn dieser vorkommt, wird der Rest der Klassendatei gelesen und direkt zum Attribut:
+     * <q>RuntimeVisibleAnnotations</q> der Klasse gesprungen.
+     * Annotationen von Feldern und Methoden werden nicht ber&uuml;cksichtigt.
+     * </p>
+     *
+     * @param  annotation   Der Typ der Annotation, entweder voll qualifiziert (z.B. <q>javax.ws.rs.Path</q>)
+     *                      oder als einfacher Name (z.B. <q>Path</q>).
+     * @return <q>true</q> falls die Klasse mit der Annotation versehen ist.
+     * @throws IOException  Falls die Klassendatei unvollst&auml;ndig ist.
+     */
+    public boolean isAnnotated (Reference annotation) throws IOException {
+        int     i;
+        int     j;
+        int     count;
+        int     annotations;
+        int     offset;
+        int     end;
+        boolean used = false;
+
+        for (i = 1; !used && (i < constantPoolCount); i++)
+            used = isAnnotationType (i, annotation);
+        if (!used)
+            return (false);
+        offset = getAttributesOffset ();
+        count = readUnsignedShort (buffer, offset);
+        for (offset += 2, i = 0; i < count; i++) {
+            fill (offset + 6, true);
+            end = skip (offset + 6, readUnsignedInt (buffer, offset + 2));
+            if (utf8Equals (readUnsignedShort (buffer, offset), RUNTIMEVISIBLEANNOTATIONS)) {
+                fill (end, true);
+                annotations = readUnsignedShort (buffer, offset + 6);
+                for (offset += 8, j = 0; j < annotations; j++) {
+                    if (isAnnotationType (readUnsignedShort (buffer, offset), annotation))
+                        return (true);
+                    offset = skipAnnotation (offset);
+                }
+                return (false);
+            }
+            offset = end;
+        }
+        return (false);
+    }
+}
@@ -0,0 +1,674 @@
+package de.mk_p.findclass;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * Ein Index der Klassen in Java Archiven, der f&uuml;r jede Klasse die Oberklasse und die direkt implementierten
+ * Schnittstellen festh&auml;lt.
+ * </p>
+ * <p>
+ * Der Index wird pro Archiv gepflegt und kann daher bei jeder Suche schrittweise erg&auml;nzt werden:
+ * Nur Archive, die neu sind oder sich seit der letzten Aufnahme ver&auml;ndert haben, m&uuml;ssen gelesen werden.
+ * Alle Namen werden &uuml;ber ein gemeinsames W&ouml;rterbuch auf ganze Zahlen abgebildet, so dass Abfragen
+ * &uuml;ber die Vererbungshierarchie mit Feldern von ganzen Zahlen anstatt mit Namen arbeiten.
+ * </p>
+ * <p>
+ * Optional k&ouml;nnen auch Namen und Deskriptoren aller Methoden und Felder aufgenommen werden, um Abfragen
+ * wie <q>welche Archive definieren <code>String.format(String, Object...)</code></q> ohne erneutes Lesen der
+ * Archive zu beantworten.
+ * Namen und Deskriptoren verwenden dasselbe W&ouml;rterbuch wie die Klassennamen.
+ * </p>
+ * <p>
+ * Zus&auml;tzlich werden die in <q>META-INF/services</q> eingetragenen Anbieter von Diensten festgehalten.
+ * </p>
+ * <p>
+ * Der Index wird als {@linkplain ZipHelper#appendObject(String, Serializable) serialisiertes Objekt} in einem
+ * Zip-Archiv gespeichert.
+ * </p>
+ */
+
+public class ClassIndex implements Serializable {
+
+    private static final long   serialVersionUID =  1l;
+
+    /**
+     * <p>
+     * Der Name des Eintrags unter dem der Index im Zip-Archiv gespeichert wird.
+     * </p>
+     */
+    public static final String  ENTRYNAME =         "classindex";
+
+    /**
+     * <p>
+     * Die Klassen eines Archivs, wie sie w&auml;hrend einer Suche gesammelt werden.
+     * Instanzen werden von einem {@linkplain java.lang.Thread Thread} gef&uuml;llt und anschlie&szlig;end mit
+     * {@linkplain ClassIndex#update(Archive) update} in den Index &uuml;bernommen.
+     * </p>
+     */
+    public static class Archive {
+        private String          path;
+        private long            modified;
+        private long            length;
+        private List <String>   classes =       new ArrayList <> ();
+        private List <String>   supers =        new ArrayList <> ();
+        private List <String []> interfaces =   new ArrayList <> ();
+        private List <String []> methods;
+        private List <String []> fields;
+        private List <String>   services =      new ArrayList <> ();
+        private List <String []> providers =    new ArrayList <> ();
+
+        public Archive (String path) {
+            this (path, false);
+        }
+
+        /**
+         * @param  path     Der Name des Archivs.
+         * @param  members  <q>true</q> falls auch die Methoden und Felder der Klassen aufgenommen werden sollen.
+         */
+        public Archive (String path, boolean members) {
+            File file = new File (path);
+
+            if (members) {
+                methods = new ArrayList <> ();
+                fields = new ArrayList <> ();
+            }
+            this.path = path;
+            this.modified = file.lastModified ();
+            this.length = file.length ();
+        }
+
+        public String getPath () {
+            return (path);
+        }
+
+        /**
+         * <p>
+         * &Uuml;bernimmt die Klasse, deren Konstantenpool zuletzt gelesen wurde.
+         * </p>
+         *
+         * @param  classFile    Der {@linkplain ClassFileHelper Leser} der Klassendatei.
+         * @throws IOException  Falls der Kopf der Klassendatei nicht gelesen werden kann.
+         */
+        public void add (ClassFileHelper classFile) throws IOException {
+            String name = classFile.getClassName ();
+
+            if (name != null) {
+                classes.add (name);
+                supers.add (classFile.getSuperclassName ());
+                interfaces.add (classFile.getInterfaceNames ());
+                if (methods != null) {
+                    methods.add (classFile.getMethods ());
+                    fields.add (classFile.getFields ());
+                }
+            }
+        }
+
+        /**
+         * <p>
+         * &Uuml;bernimmt die Anbieter eines Dienstes aus <q>META-INF/services</q>.
+         * </p>
+         *
+         * @param  service      Der Name des Dienstes (z.B. <q>java.sql.Driver</q>).
+         * @param  providers    Die Namen der Klassen, die den Dienst anbieten.
+         */
+        public void addService (String service, List <String> providers) {
+            services.add (service);
+            this.providers.add (providers.toArray (new String [providers.size ()]));
+        }
+    }
+
+    /**
+     * <p>
+     * Die Dienste eines Archivs: Die Anbieter des Dienstes <q>services [i]</q> stehen in <q>providers</q> von
+     * <q>providerStart [i]</q> bis ausschlie&szlig;lich <q>providerStart [i + 1]</q>.
+     * </p>
+     */
+    private static class Services implements Serializable {
+        private static final long serialVersionUID = 1l;
+
+        private int []  services;
+        private int []  providerStart;
+        private int []  providers;
+    }
+
+    /**
+     * <p>
+     * Die Methoden oder Felder aller Klassen eines Archivs: Die Eintr&auml;ge der Klasse <q>i</q> stehen in
+     * <q>names</q> und <q>descriptors</q> von <q>start [i]</q> bis ausschlie&szlig;lich <q>start [i + 1]</q>.
+     * </p>
+     */
+    private static class Members implements Serializable {
+        private static final long serialVersionUID = 1l;
+
+        private int []  start;
+        private int []  names;
+        private int []  descriptors;
+    }
+
+    private static class Record implements Serializable {
+        private static final long serialVersionUID = 1l;
+
+        private String  path;
+        private long    modified;
+        private long    length;
+        private int []  classes;
+        private int []  supers;
+        private int []  interfaceStart;
+        private int []  interfaces;
+        private Members methods;
+        private Members fields;
+        private Services services;
+    }
+
+    private String []                       symbols =       new String [0x400];
+    private int                             symbolCount;
+    private Map <String, Record>            records =       new LinkedHashMap <> ();
+    private transient Map <String, Integer> symbolIds;
+    private transient boolean               modified;
+    private transient Record []             recordArray;
+    private transient int []                subtypeStart;
+    private transient int []                subtypes;
+    private transient int []                occurrenceStart;
+    private transient int []                occurrences;
+
+    /**
+     * <p>
+     * L&auml;dt einen Index aus einem Zip-Archiv.
+     * </p>
+     *
+     * @param  indexName    Der Name des Zip-Archivs.
+     * @return Der gespeicherte Index, oder ein leerer Index falls das Archiv nicht existiert.
+     * @throws IOException  Falls das Archiv existiert aber keinen lesbaren Index enth&auml;lt.
+     */
+    public static ClassIndex load (String indexName) throws IOException {
+        ClassIndex  retVal = null;
+
+        if (!new File (indexName).exists ())
+            return (new ClassIndex ());
+        try {
+            return (new ZipHelper (indexName).getObject (ENTRYNAME, retVal));
+        }
+        catch (FileNotFoundException fnfe) {
+            return (new ClassIndex ());
+        }
+        catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException ("incompatible index: " + indexName, e);
+        }
+    }
+
+    /**
+     * <p>
+     * Speichert den Index in einem Zip-Archiv.
+     * Andere Eintr&auml;ge des Archivs bleiben erhalten.
+     * </p>
+     *
+     * @param  indexName    Der Name des Zip-Archivs.
+     * @throws IOException  Falls das Archiv nicht geschrieben werden kann.
+     */
+    public void save (String indexName) throws IOException {
+        new ZipHelper (indexName).appendObject (ENTRYNAME, this);
+        modified = false;
+    }
+
+    public boolean isModified () {
+        return (modified);
+    }
+
+    private Map <String, Integer> getSymbolIds () {
+        int i;
+
+        if (symbolIds == null) {
+            symbolIds = new HashMap <> (symbolCount * 2 + 16);
+            for (i = 0; i < symbolCount; i++)
+                symbolIds.put (symbols [i], i);
+        }
+        return (symbolIds);
+    }
+
+    private int intern (String symbol) {
+        Integer id;
+
+        if ((id = getSymbolIds ().get (symbol)) != null)
+            return (id);
+        if (symbolCount >= symbols.length)
+            symbols = Arrays.copyOf (symbols, symbols.length * 2);
+        symbols [symbolCount] = symbol;
+        symbolIds.put (symbol, symbolCount);
+        return (symbolCount++);
+    }
+
+    private int lookup (String symbol) {
+        Integer id;
+
+        return (((id = getSymbolIds ().get (symbol)) != null) ? id : -1);
+    }
+
+    /**
+     * <p>
+     * &Uuml;berpr&uuml;ft ob ein Archiv seit seiner letzten Aufnahme in den Index unver&auml;ndert ist.
+     * </p>
+     *
+     * @param  path     Der Name des Archivs.
+     * @return <q>true</q> falls das Archiv im Index enthalten ist und Gr&ouml;&szlig;e und &Auml;nderungszeitpunkt
+     *         noch &uuml;bereinstimmen.
+     */
+    public boolean isUpToDate (String path) {
+        return (isUpToDate (path, false));
+    }
+
+    /**
+     * <p>
+     * &Uuml;berpr&uuml;ft ob ein Archiv seit seiner letzten Aufnahme in den Index unver&auml;ndert ist.
+     * </p>
+     *
+     * @param  path     Der Name des Archivs.
+     * @param  members  <q>true</q> falls das Archiv auch mit seinen Methoden und Feldern aufgenommen sein muss.
+     * @return <q>true</q> falls das Archiv im Index enthalten ist und Gr&ouml;&szlig;e und &Auml;nderungszeitpunkt
+     *         noch &uuml;bereinstimmen.
+     */
+    public boolean isUpToDate (String path, boolean members) {
+        Record  record =    records.get (path);
+        File    file;
+        boolean retVal;
+
+        if ((record == null) || (record.services == null) || (members && (record.methods == null)))
+            retVal = false;
+        else {
+            file = new File (path);
+            retVal = (file.lastModified () == record.modified) && (file.length () == record.length);
+        }
+        ScanMetrics.cache (ScanMetrics.Cache.INDEX, retVal);
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * &Uuml;bernimmt die Klassen eines Archivs in den Index.
+     * Zuvor aufgenommene Klassen desselben Archivs werden ersetzt.
+     * </p>
+     *
+     * @param  archive  Die w&auml;hrend der Suche gesammelten Klassen des Archivs.
+     */
+    public void update (Archive archive) {
+        int     i;
+        int     count =     archive.classes.size ();
+        int     total =     0;
+        Record  record =    new Record ();
+
+        record.path = archive.path;
+        record.modified = archive.modified;
+        record.length = archive.length;
+        record.classes = new int [count];
+        record.supers = new int [count];
+        record.interfaceStart = new int [count + 1];
+        for (i = 0; i < count; i++)
+            total += archive.interfaces.get (i).length;
+        record.interfaces = new int [total];
+        for (i = 0, total = 0; i < count; i++) {
+            record.classes [i] = intern (archive.classes.get (i));
+            record.supers [i] = (archive.supers.get (i) != null) ? intern (archive.supers.get (i)) : -1;
+            record.interfaceStart [i] = total;
+            for (String name: archive.interfaces.get (i))
+                if (name != null)
+                    record.interfaces [total++] = intern (name);
+        }
+        record.interfaceStart [count] = total;
+        if (total < record.interfaces.length)
+            record.interfaces = Arrays.copyOf (record.interfaces, total);
+        if (archive.methods != null) {
+            record.methods = members (archive.methods);
+            record.fields = members (archive.fields);
+        }
+        record.services = services (archive.services, archive.providers);
+        records.remove (archive.path);
+        records.put (archive.path, record);
+        invalidate ();
+    }
+
+    private Services services (List <String> archiveServices, List <String []> archiveProviders) {
+        int         i;
+        int         total =     0;
+        int         count =     archiveServices.size ();
+        Services    retVal =    new Services ();
+
+        for (i = 0; i < count; i++)
+            total += archiveProviders.get (i).length;
+        retVal.services = new int [count];
+        retVal.providerStart = new int [count + 1];
+        retVal.providers = new int [total];
+        for (i = 0, total = 0; i < count; i++) {
+            retVal.services [i] = intern (archiveServices.get (i).replace ('.', '/'));
+            retVal.providerStart [i] = total;
+            for (String provider: archiveProviders.get (i))
+                retVal.providers [total++] = intern (provider.replace ('.', '/'));
+        }
+        retVal.providerStart [count] = total;
+        return (retVal);
+    }
+
+    private Members members (List <String []> archiveMembers) {
+        int         i;
+        int         j;
+        int         total =     0;
+        int         count =     archiveMembers.size ();
+        String []   classMembers;
+        Members     retVal =    new Members ();
+
+        for (i = 0; i < count; i++)
+            total += archiveMembers.get (i).length / 2;
+        retVal.start = new int [count + 1];
+        retVal.names = new int [total];
+        retVal.descriptors = new int [total];
+        for (i = 0, total = 0; i < count; i++) {
+            classMembers = archiveMembers.get (i);
+            retVal.start [i] = total;
+            for (j = 0; j < classMembers.length; j += 2, total++) {
+                retVal.names [total] = intern (classMembers [j]);
+                retVal.descriptors [total] = intern (classMembers [j + 1]);
+            }
+        }
+        retVal.start [count] = total;
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Entfernt alle Archive aus dem Index, die im Dateisystem nicht mehr existieren.
+     * </p>
+     *
+     * @return Die Anzahl der entfernten Archive.
+     */
+    public int removeMissing () {
+        int                 retVal =    0;
+        Iterator <String>   paths =     records.keySet ().iterator ();
+
+        while (paths.hasNext ())
+            if (!new File (paths.next ()).isFile ()) {
+                paths.remove ();
+                retVal++;
+            }
+        if (retVal > 0)
+            invalidate ();
+        return (retVal);
+    }
+
+    private void invalidate () {
+        modified = true;
+        recordArray = null;
+        subtypeStart = subtypes = occurrenceStart = occurrences = null;
+    }
+
+    public int getArchiveCount () {
+        return (records.size ());
+    }
+
+    public int getClassCount () {
+        int retVal = 0;
+
+        for (Record record: records.values ())
+            retVal += record.classes.length;
+        return (retVal);
+    }
+
+    public long getMethodCount () {
+        long retVal = 0;
+
+        for (Record record: records.values ())
+            if (record.methods != null)
+                retVal += record.methods.names.length;
+        return (retVal);
+    }
+
+    public long getFieldCount () {
+        long retVal = 0;
+
+        for (Record record: records.values ())
+            if (record.fields != null)
+                retVal += record.fields.names.length;
+        return (retVal);
+    }
+
+    public int getSymbolCount () {
+        return (symbolCount);
+    }
+
+    /**
+     * <p>
+     * Baut die Adjazenzfelder der Vererbungshierarchie auf: f&uuml;r jeden Namen die direkten Untertypen
+     * und f&uuml;r jeden Klassennamen die Archive, die die Klasse enthalten.
+     * </p>
+     */
+    private void buildGraph () {
+        int     i;
+        int     j;
+        int     r;
+        int []  subtypeFill;
+        int []  occurrenceFill;
+        Record  record;
+
+        recordArray = records.values ().toArray (new Record [records.size ()]);
+        subtypeStart = new int [symbolCount + 1];
+        occurrenceStart = new int [symbolCount + 1];
+        for (r = 0; r < recordArray.length; r++) {
+            record = recordArray [r];
+            for (i = 0; i < record.classes.length; i++) {
+                occurrenceStart [record.classes [i] + 1]++;
+                if (record.supers [i] >= 0)
+                    subtypeStart [record.supers [i] + 1]++;
+                for (j = record.interfaceStart [i]; j < record.interfaceStart [i + 1]; j++)
+                    subtypeStart [record.interfaces [j] + 1]++;
+            }
+        }
+        for (i = 0; i < symbolCount; i++) {
+            subtypeStart [i + 1] += subtypeStart [i];
+            occurrenceStart [i + 1] += occurrenceStart [i];
+        }
+        subtypes = new int [subtypeStart [symbolCount]];
+        occurrences = new int [occurrenceStart [symbolCount]];
+        subtypeFill = Arrays.copyOf (subtypeStart, symbolCount);
+        occurrenceFill = Arrays.copyOf (occurrenceStart, symbolCount);
+        for (r = 0; r < recordArray.length; r++) {
+            record = recordArray [r];
+            for (i = 0; i < record.classes.length; i++) {
+                occurrences [occurrenceFill [record.classes [i]]++] = r;
+                if (record.supers [i] >= 0)
+                    subtypes [subtypeFill [record.supers [i]]++] = record.classes [i];
+                for (j = record.interfaceStart [i]; j < record.interfaceStart [i + 1]; j++)
+                    subtypes [subtypeFill [record.interfaces [j]]++] = record.classes [i];
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Liefert alle direkten und indirekten Untertypen (Unterklassen und Implementierungen) eines Typs.
+     * </p>
+     *
+     * @param  type     Der voll qualifizierte Name des Typs (z.B. <q>javax.sql.DataSource</q>).
+     * @return Eine nach Klassennamen sortierte {@linkplain java.util.Map Tabelle}, die jedem Untertyp die Namen
+     *         der Archive zuordnet, in denen er gefunden wurde.
+     */
+    public Map <String, List <String>> getSubtypes (String type) {
+        return (lookupFinished (FlightEvents.indexLookup ("subtypes " + type), System.nanoTime (), findSubtypes (type)));
+    }
+
+    private Map <String, List <String>> findSubtypes (String type) {
+        int                             i;
+        int                             id;
+        int                             head =      0;
+        int                             tail =      0;
+        int []                          queue;
+        boolean []                      visited;
+        List <String>                   archives;
+        Map <String, List <String>>     retVal =    new TreeMap <> ();
+
+        if ((id = lookup (type.replace ('.', '/'))) < 0)
+            return (retVal);
+        if (subtypes == null)
+            buildGraph ();
+        queue = new int [symbolCount];
+        visited = new boolean [symbolCount];
+        visited [id] = true;
+        queue [tail++] = id;
+        while (head < tail) {
+            id = queue [head++];
+            for (i = subtypeStart [id]; i < subtypeStart [id + 1]; i++)
+                if (!visited [subtypes [i]]) {
+                    visited [subtypes [i]] = true;
+                    queue [tail++] = subtypes [i];
+                }
+        }
+        for (head = 1; head < tail; head++) {
+            id = queue [head];
+            archives = new ArrayList <> ();
+            for (i = occurrenceStart [id]; i < occurrenceStart [id + 1]; i++)
+                archives.add (recordArray [occurrences [i]].path);
+            retVal.put (symbols [id].replace ('/', '.'), archives);
+        }
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Liefert alle Methoden mit einem bestimmten Namen, deren Deskriptor mit einem vorgegebenen Anfang beginnt.
+     * </p>
+     *
+     * @param  method   Die Methode in der Form: <q>[type#]name[(descriptor]</q>,
+     *                  z.B. <q>format(Ljava/lang/String;</q> oder <q>java.lang.String#format</q>.
+     * @return Eine sortierte {@linkplain java.util.Map Tabelle}, die jeder gefundenen Methode
+     *         (<q>type#name descriptor</q>) die Namen der Archive zuordnet, in denen sie definiert ist.
+     */
+    public Map <String, List <String>> getMethods (String method) {
+        return (lookupFinished (FlightEvents.indexLookup ("method " + method), System.nanoTime (), findMembers (method, '(', true)));
+    }
+
+    /**
+     * <p>
+     * Liefert alle Felder mit einem bestimmten Namen, deren Deskriptor mit einem vorgegebenen Anfang beginnt.
+     * </p>
+     *
+     * @param  field    Das Feld in der Form: <q>[type#]name[:descriptor]</q>,
+     *                  z.B. <q>out</q> oder <q>java.lang.System#out:Ljava/io/PrintStream;</q>.
+     * @return Eine sortierte {@linkplain java.util.Map Tabelle}, die jedem gefundenen Feld
+     *         (<q>type#name descriptor</q>) die Namen der Archive zuordnet, in denen es definiert ist.
+     */
+    public Map <String, List <String>> getFields (String field) {
+        return (lookupFinished (FlightEvents.indexLookup ("field " + field), System.nanoTime (), findMembers (field, ':', false)));
+    }
+
+    /**
+     * <p>
+     * Schlie&szlig;t das Ereignis einer Abfrage mit der Anzahl der Ergebnisse ab und z&auml;hlt ihre Dauer seit
+     * <q>started</q> f&uuml;r die {@linkplain ScanMetrics Messwerte}.
+     * </p>
+     */
+    private static Map <String, List <String>> lookupFinished (FlightEvents.Span event, long started,
+                                                               Map <String, List <String>> result) {
+        ScanMetrics.lookup (started);
+        event.finish (result.size (), 0l, (result.isEmpty ()) ? "not found" : "found");
+        return (result);
+    }
+
+    private Map <String, List <String>> findMembers (String member, char separator, boolean methods) {
+        int                             i;
+        int                             j;
+        int                             name;
+        int                             type =          -1;
+        int                             position;
+        String                          descriptor =    "";
+        String                          key;
+        List <String>                   archives;
+        Members                         members;
+        Map <String, List <String>>     retVal =        new TreeMap <> ();
+
+        if ((position = member.indexOf ('#')) >= 0) {
+            if ((type = lookup (member.substring (0, position).replace ('.', '/'))) < 0)
+                return (retVal);
+            member = member.substring (position + 1);
+        }
+        if ((position = member.indexOf (separator)) >= 0) {
+            descriptor = member.substring ((separator == '(') ? position : position + 1);
+            member = member.substring (0, position);
+        }
+        if ((name = lookup (member)) < 0)
+            return (retVal);
+        for (Record record: records.values ())
+            if ((members = (methods) ? record.methods : record.fields) != null)
+                for (i = 0; i < record.classes.length; i++)
+                    if ((type < 0) || (record.classes [i] == type))
+                        for (j = members.start [i]; j < members.start [i + 1]; j++)
+                            if ((members.names [j] == name) && symbols [members.descriptors [j]].startsWith (descriptor)) {
+                                key = symbols [record.classes [i]].replace ('/', '.') + "#" + member + " " +
+                                      symbols [members.descriptors [j]];
+                                if ((archives = retVal.get (key)) == null)
+                                    retVal.put (key, archives = new ArrayList <> ());
+                                archives.add (record.path);
+                            }
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Liefert die Namen aller Dienste, f&uuml;r die in einem der Archive Anbieter eingetragen sind.
+     * </p>
+     */
+    public SortedSet <String> getServices () {
+        SortedSet <String>  retVal = new TreeSet <> ();
+
+        for (Record record: records.values ())
+            if (record.services != null)
+                for (int service: record.services.services)
+                    retVal.add (symbols [service].replace ('/', '.'));
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Liefert alle Anbieter eines Dienstes.
+     * </p>
+     *
+     * @param  service  Der Name des Dienstes (z.B. <q>javax.annotation.processing.Processor</q>).
+     * @return Eine nach Anbietern sortierte {@linkplain java.util.Map Tabelle}, die jedem Anbieter die Namen der
+     *         Archive zuordnet, in deren <q>META-INF/services</q> er eingetragen ist.
+     */
+    public Map <String, List <String>> getProviders (String service) {
+        return (lookupFinished (FlightEvents.indexLookup ("providers " + service), System.nanoTime (), findProviders (service)));
+    }
+
+    private Map <String, List <String>> findProviders (String service) {
+        int                             i;
+        int                             j;
+        int                             id;
+        String                          provider;
+        List <String>                   archives;
+        Map <String, List <String>>     retVal =    new TreeMap <> ();
+
+        if ((id = lookup (service.replace ('.', '/'))) < 0)
+            return (retVal);
+        for (Record record: records.values ())
+            if (record.services != null)
+                for (i = 0; i < record.services.services.length; i++)
+                    if (record.services.services [i] == id)
+                        for (j = record.services.providerStart [i]; j < record.services.providerStart [i + 1]; j++) {
+                            provider = symbols [record.services.providers [j]].replace ('/', '.');
+                            if ((archives = retVal.get (provider)) == null)
+                                retVal.put (provider, archives = new ArrayList <> ());
+                            archives.add (record.path);
+                        }
+        return (retVal);
+    }
+}
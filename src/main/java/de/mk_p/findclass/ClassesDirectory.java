@@ -0,0 +1,272 @@
+package de.mk_p.findclass;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Ein Verzeichnis mit &uuml;bersetzten Klassen (z.B. <q>target/classes</q> oder <q>build/classes/java/main</q>), das
+ * wie ein Archiv durchsucht wird: Die Eintr&auml;ge sind relativ zum Verzeichnis benannt
+ * (z.B. <q>de/mk_p/findclass/FindClass.class</q>), so dass das Paket erhalten bleibt.
+ * </p>
+ * <p>
+ * Die Dateien jedes Unterverzeichnisses werden anhand des &Auml;nderungszeitpunkts des Unterverzeichnisses
+ * zwischengespeichert.
+ * Bei wiederholten Suchen wird daher nur der &Auml;nderungszeitpunkt der Verzeichnisse gelesen, nicht der
+ * einzelnen Dateien.
+ * Der Zwischenspeicher kann mit {@linkplain #saveCache(String) saveCache} in einem Zip-Archiv abgelegt werden.
+ * </p>
+ */
+
+public class ClassesDirectory {
+
+    /**
+     * <p>
+     * Der Name des Eintrags unter dem der Zwischenspeicher im Zip-Archiv abgelegt wird.
+     * </p>
+     */
+    public static final String  CACHEENTRYNAME =    "classescache";
+
+    private static final String CLASSSUFFIX =       ".class";
+
+    /**
+     * <p>
+     * Die Dateien und Unterverzeichnisse eines Verzeichnisses zum Zeitpunkt seiner letzten &Auml;nderung.
+     * </p>
+     */
+    private static class Listing implements Serializable {
+        private static final long serialVersionUID = 1l;
+
+        private long        modified;
+        private String []   files;
+        private String []   directories;
+    }
+
+    private static Map <String, Listing>    listings =      new ConcurrentHashMap <> ();
+    private static volatile boolean         cacheModified;
+
+    private String  root;
+
+    /**
+     * @param  root     Der Name des Verzeichnisses, das die Pakete der Klassen enth&auml;lt.
+     */
+    public ClassesDirectory (String root) {
+        this.root = root;
+    }
+
+    public String getName () {
+        return (root);
+    }
+
+    /**
+     * <p>
+     * &Uuml;berpr&uuml;ft ob ein Verzeichnis die &uuml;bersetzten Klassen eines Projekts enth&auml;lt.
+     * Erkannt werden die Verzeichnisse von Maven (<q>target/classes</q>, <q>target/test-classes</q>),
+     * Gradle (<q>build/classes/&lt;Sprache&gt;/&lt;Quellenmenge&gt;</q>) und IntelliJ
+     * (<q>out/production/&lt;Modul&gt;</q>, <q>out/test/&lt;Modul&gt;</q>).
+     * </p>
+     */
+    public static boolean isClassesDirectory (File directory) {
+        File    parent =        directory.getParentFile ();
+        File    grandParent =   (parent != null) ? parent.getParentFile () : null;
+        File    greatGrandParent = (grandParent != null) ? grandParent.getParentFile () : null;
+
+        if (parent == null)
+            return (false);
+        if (("classes".equals (directory.getName ()) || "test-classes".equals (directory.getName ())) &&
+            "target".equals (parent.getName ()))
+            return (true);
+        if ((grandParent != null) && ("production".equals (parent.getName ()) || "test".equals (parent.getName ())) &&
+            "out".equals (grandParent.getName ()))
+            return (true);
+        return ((greatGrandParent != null) && "classes".equals (grandParent.getName ()) &&
+                "build".equals (greatGrandParent.getName ()));
+    }
+
+    /**
+     * <p>
+     * Durchsucht Verzeichnisse nach Verzeichnissen mit &uuml;bersetzten Klassen und nach einzelnen Klassendateien.
+     * In gefundene Klassenverzeichnisse wird nicht weiter abgestiegen.
+     * </p>
+     *
+     * @param  directories  Die Namen der zu durchsuchenden Verzeichnisse.
+     * @param  roots        Die Liste, die um die {@linkplain File#getCanonicalPath() kanonischen} Namen der gefundenen
+     *                      Klassenverzeichnisse erg&auml;nzt wird.
+     * @param  classFiles   Die Liste, die um die kanonischen Namen der Klassendateien au&szlig;erhalb von
+     *                      Klassenverzeichnissen erg&auml;nzt wird.
+     */
+    public static void findRoots (String [] directories, List <String> roots, List <String> classFiles) {
+        for (String directory: directories)
+            findRoots (new File (directory), roots, classFiles);
+    }
+
+    private static void findRoots (File directory, List <String> roots, List <String> classFiles) {
+        String []   names;
+        File        file;
+
+        if (isClassesDirectory (directory)) {
+            roots.add (getPath (directory));
+            return;
+        }
+        if ((names = directory.list ()) == null)
+            return;
+        Arrays.sort (names);
+        for (String name: names) {
+            file = new File (directory, name);
+            if (name.endsWith (CLASSSUFFIX)) {
+                if (file.isFile ())
+                    classFiles.add (getPath (file));
+            }
+            else if (file.isDirectory ())
+                findRoots (file, roots, classFiles);
+        }
+    }
+
+    private static String getPath (File file) {
+        try {
+            return (file.getCanonicalPath ());
+        }
+        catch (IOException ioe) {
+            return (file.getAbsolutePath ());
+        }
+    }
+
+    /**
+     * <p>
+     * Liefert die Namen der Klassendateien des Verzeichnisses relativ zu diesem.
+     * </p>
+     * <p>
+     * Sind Paketfilter angegeben, werden diese auf den Paketnamen (z.B. <q>de.mk_p.findclass</q>) angewendet und
+     * m&uuml;ssen an dessen Anfang passen.
+     * Unterverzeichnisse, deren Paketname keinem der Paketfilter mehr entsprechen kann, werden nicht gelesen.
+     * Andernfalls werden die Namen wie bei {@linkplain ZipHelper#getNames(String[], long) ZipHelper} mit den Filtern
+     * verglichen.
+     * </p>
+     *
+     * @param  filters          Die Filter wie bei {@linkplain ZipHelper#getNames(String[], long) ZipHelper}, oder:
+     *                          <q>null</q> falls nur Paketfilter angegeben sind.
+     * @param  packageFilters   Die Paketfilter, oder: <q>null</q>.
+     */
+    public String [] getNames (String [] filters, Pattern [] packageFilters) {
+        List <String>   retVal =    new ArrayList <> ();
+
+        list (new File (root), "", "", ZipHelper.compileFilters (filters, ZipHelper.DEFAULT_FILTER_OPTIONS),
+              (filters == null) ? packageFilters : null, retVal);
+        return (retVal.toArray (new String [retVal.size ()]));
+    }
+
+    private static void list (File directory, String prefix, String packageName, Pattern [] filters,
+                              Pattern [] packageFilters, List <String> names) {
+        boolean     matched =   (packageFilters == null);
+        boolean     possible =  matched;
+        Listing     listing =   getListing (directory);
+        Matcher     matcher;
+
+        if (!matched)
+            for (Pattern packageFilter: packageFilters) {
+                matcher = packageFilter.matcher (packageName);
+                if (matcher.lookingAt ()) {
+                    matched = possible = true;
+                    break;
+                }
+                possible |= matcher.hitEnd ();
+            }
+        if (!possible)
+            return;             // no package below this directory can match
+        if (matched)
+            for (String file: listing.files)
+                if ((prefix + file).endsWith (CLASSSUFFIX) && ZipHelper.matches (filters, prefix + file))
+                    names.add (prefix + file);
+        for (String subdirectory: listing.directories)
+            list (new File (directory, subdirectory), prefix + subdirectory + "/",
+                  (packageName.length () > 0) ? packageName + "." + subdirectory : subdirectory,
+                  filters, (matched) ? null : packageFilters, names);
+    }
+
+    /**
+     * <p>
+     * Liefert die Dateien und Unterverzeichnisse eines Verzeichnisses, aus dem Zwischenspeicher falls sich das
+     * Verzeichnis seitdem nicht ge&auml;ndert hat.
+     * Dateien werden an der Endung <q>.class</q> erkannt, nur f&uuml;r andere Namen wird das Dateisystem befragt.
+     * </p>
+     */
+    private static Listing getListing (File directory) {
+        long            modified =      directory.lastModified ();
+        String          path =          directory.getPath ();
+        String []       names;
+        List <String>   files =         new ArrayList <> ();
+        List <String>   directories =   new ArrayList <> ();
+        Listing         listing =       listings.get (path);
+
+        ScanMetrics.cache (ScanMetrics.Cache.CLASSES_DIRECTORY, (listing != null) && (listing.modified == modified));
+        if ((listing != null) && (listing.modified == modified))
+            return (listing);
+        names = directory.list ();
+        if (names != null) {
+            Arrays.sort (names);
+            for (String name: names)
+                if (name.endsWith (CLASSSUFFIX) || !new File (directory, name).isDirectory ())
+                    files.add (name);
+                else
+                    directories.add (name);
+        }
+        listing = new Listing ();
+        listing.modified = modified;
+        listing.files = files.toArray (new String [files.size ()]);
+        listing.directories = directories.toArray (new String [directories.size ()]);
+        listings.put (path, listing);
+        cacheModified = true;
+        return (listing);
+    }
+
+    /**
+     * <p>
+     * L&auml;dt den Zwischenspeicher aus einem Zip-Archiv.
+     * Ein fehlendes Archiv oder ein unlesbarer Eintrag werden ignoriert.
+     * </p>
+     *
+     * @param  zipName  Der Name des Zip-Archivs.
+     */
+    public static void loadCache (String zipName) {
+        HashMap <String, Listing>   cached =    null;
+
+        if (!new File (zipName).isFile ())
+            return;
+        try {
+            cached = new ZipHelper (zipName).getObject (CACHEENTRYNAME, cached);
+            if (cached != null)
+                listings.putAll (cached);
+        }
+        catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // the cache is rebuilt
+        }
+    }
+
+    /**
+     * <p>
+     * Speichert den Zwischenspeicher in einem Zip-Archiv, falls er sich ge&auml;ndert hat.
+     * Verzeichnisse, die nicht mehr existieren, werden dabei entfernt.
+     * </p>
+     *
+     * @param  zipName  Der Name des Zip-Archivs.
+     * @throws IOException  Falls das Archiv nicht geschrieben werden kann.
+     */
+    public static void saveCache (String zipName) throws IOException {
+        if (cacheModified) {
+            for (String path: new ArrayList <> (listings.keySet ()))
+                if (!new File (path).isDirectory ())
+                    listings.remove (path);
+            new ZipHelper (zipName).appendObject (CACHEENTRYNAME, new HashMap <> (listings));
+            cacheModified = false;
+        }
+    }
+}
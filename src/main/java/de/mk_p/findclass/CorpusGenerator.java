@@ -0,0 +1,551 @@
+package de.mk_p.findclass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>
+ * Erzeugt einen reproduzierbaren Bestand an Java-Archiven, um die Suche in gro&szlig;en Verzeichnisb&auml;umen messen
+ * zu k&ouml;nnen, ohne Produktionsdaten zu kopieren.
+ * Derselbe {@linkplain #setSeed(long) Startwert} und dieselben Einstellungen erzeugen Byte f&uuml;r Byte dieselben
+ * Dateien mit denselben Modifikationszeiten.
+ * </p>
+ * <p>
+ * Der Bestand enth&auml;lt:
+ * </p>
+ * <ul>
+ * <li>Archive in der Struktur eines lokalen Maven Repositories (<q>repository/&lt;group&gt;/&lt;artifact&gt;/&lt;version&gt;</q>)
+ *     mit der <q>.pom</q> Datei daneben,</li>
+ * <li>Archive in einem flachen Ordner <q>lib</q>, deren Koordinaten nur in <q>pom.properties</q> stehen,</li>
+ * <li>Archive mit den Klassen eines anderen Archivs (<q>shaded</q>) und zweite Versionen desselben Artefakts,</li>
+ * <li><q>fat jars</q> mit sehr vielen Eintr&auml;gen (ZIP64 ab 65535 Eintr&auml;gen),</li>
+ * <li>WAR und Spring Boot Archive mit eingebetteten Archiven unter <q>WEB-INF/lib</q> bzw. <q>BOOT-INF/lib</q>,</li>
+ * <li>abgeschnittene Archive, Textdateien mit der Endung <q>.jar</q> und Archive unter falschem Namen.</li>
+ * </ul>
+ * <p>
+ * Die Klassendateien sind g&uuml;ltig, haben aber weder Felder noch Methoden.  Sie erben von
+ * <q>java.lang.Object</q>, <q>java.lang.Exception</q> oder anderen Klassen desselben Archivs und implementieren
+ * zum Teil Schnittstellen des JDK, so dass auch <q>-subtypes</q> und <q>-references</q> Treffer liefern.
+ * </p>
+ */
+
+public class CorpusGenerator {
+
+    private static final long       TIMESTAMP =     1577836800000l;     // 2020-01-01T00:00:00Z
+    private static final int        PACKAGESIZE =   40;
+
+    private static final String []  GROUPS =    {"org.apache.commons", "org.apache.logging", "com.google.common",
+                                                 "io.netty", "org.springframework", "com.fasterxml.jackson",
+                                                 "org.eclipse.jetty", "org.hibernate", "com.example", "de.mk_p"};
+    private static final String []  MODULES =   {"core", "api", "util", "io", "codec", "http", "json", "xml",
+                                                 "runtime", "client", "server", "common"};
+    private static final String []  PACKAGES =  {"impl", "internal", "util", "spi", "config", "io", "support",
+                                                 "handler", "model", "annotation"};
+    private static final String []  PREFIXES =  {"", "", "", "Abstract", "Default", "Simple", "Base", "Cached",
+                                                 "Composite", "Delegating"};
+    private static final String []  NOUNS =     {"Request", "Response", "Handler", "Factory", "Manager", "Service",
+                                                 "Utils", "Config", "Parser", "Reader", "Writer", "Builder", "Context",
+                                                 "Provider", "Listener", "Registry", "Resolver", "Codec", "Exception"};
+    private static final String []  INTERFACES = {"java/io/Serializable", "java/lang/Runnable", "java/lang/AutoCloseable",
+                                                  "java/lang/Comparable", "java/util/function/Supplier"};
+    private static final String []  SERVICES =  {"java.sql.Driver", "javax.annotation.processing.Processor",
+                                                 "java.nio.file.spi.FileSystemProvider"};
+
+    /**
+     * <p>
+     * Die Anzahl der von {@linkplain #generate(File) generate} erzeugten Dateien je Art.
+     * </p>
+     */
+    public static class Statistics {
+        private int     archives;
+        private int     entries;
+        private int     poms;
+        private int     nested;
+        private int     broken;
+
+        public int getArchives () {
+            return (archives);
+        }
+
+        public int getEntries () {
+            return (entries);
+        }
+
+        public int getPoms () {
+            return (poms);
+        }
+
+        public int getNested () {
+            return (nested);
+        }
+
+        public int getBroken () {
+            return (broken);
+        }
+
+        @Override
+        public String toString () {
+            return (archives + " archives (" + nested + " with nested archives), " + entries + " entries, " +
+                    poms + " pom files, " + broken + " broken files");
+        }
+    }
+
+    /**
+     * <p>
+     * Ein erzeugtes Artefakt mit seinen Klassen, damit sp&auml;tere Archive Klassen daraus kopieren k&ouml;nnen.
+     * </p>
+     */
+    private static class Artifact {
+        private String          groupId;
+        private String          artifactId;
+        private String          version;
+        private List <String>   classes =   new ArrayList <> ();
+    }
+
+    private long            seed =          42l;
+    private int             jars =          100;
+    private int             classes =       200;
+    private int             fatJars =       1;
+    private int             fatEntries =    200000;
+    private int             nestedArchives = 2;
+    private int             brokenArchives = 3;
+    private int             duplicates =    5;
+
+    private Random          random;
+    private Statistics      statistics;
+    private List <Artifact> artifacts;
+    private Set <String>    coordinates;
+
+    /**
+     * @param  seed     Der Startwert des Zufallsgenerators (Voreinstellung: <q>42</q>).
+     */
+    public void setSeed (long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param  jars     Die Anzahl der gew&ouml;hnlichen Archive (Voreinstellung: <q>100</q>).
+     */
+    public void setJars (int jars) {
+        this.jars = jars;
+    }
+
+    /**
+     * @param  classes  Die mittlere Anzahl der Klassen je Archiv (Voreinstellung: <q>200</q>).  Die tats&auml;chliche
+     *                  Anzahl ist logarithmisch normalverteilt, so dass es viele kleine und wenige gro&szlig;e
+     *                  Archive gibt.
+     */
+    public void setClasses (int classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * @param  fatJars      Die Anzahl der <q>fat jars</q> (Voreinstellung: <q>1</q>).
+     * @param  fatEntries   Die Anzahl der Eintr&auml;ge je <q>fat jar</q> (Voreinstellung: <q>200000</q>).
+     */
+    public void setFatJars (int fatJars, int fatEntries) {
+        this.fatJars =      fatJars;
+        this.fatEntries =   fatEntries;
+    }
+
+    /**
+     * @param  nestedArchives   Die Anzahl der WAR und der Spring Boot Archive (Voreinstellung: je <q>2</q>).
+     */
+    public void setNestedArchives (int nestedArchives) {
+        this.nestedArchives = nestedArchives;
+    }
+
+    /**
+     * @param  brokenArchives   Die Anzahl der abgeschnittenen Archive, der Textdateien mit der Endung <q>.jar</q>
+     *                          und der Archive unter falschem Namen (Voreinstellung: je <q>3</q>).
+     */
+    public void setBrokenArchives (int brokenArchives) {
+        this.brokenArchives = brokenArchives;
+    }
+
+    /**
+     * @param  duplicates   Der Anteil der Archive in Prozent, die Klassen eines anderen Archivs enthalten bzw. eine
+     *                      zweite Version eines Artefakts sind (Voreinstellung: <q>5</q>).
+     */
+    public void setDuplicates (int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    /**
+     * <p>
+     * Erzeugt den Bestand im Ordner <q>root</q>.  Vorhandene Dateien gleichen Namens werden &uuml;berschrieben.
+     * </p>
+     *
+     * @param  root         Der Ordner, unter dem der Bestand angelegt wird.
+     * @return Die Anzahl der erzeugten Dateien je Art.
+     * @throws IOException  Falls eine Datei nicht geschrieben werden kann.
+     */
+    public Statistics generate (File root) throws IOException {
+        int         i;
+        Artifact    artifact;
+
+        random =        new Random (seed);
+        statistics =    new Statistics ();
+        artifacts =     new ArrayList <> ();
+        coordinates =   new HashSet <> ();
+        for (i = 0; i < jars; i++) {
+            artifact = newArtifact ();
+            if (random.nextInt (2) == 0) {
+                writeArchive (repositoryFile (root, artifact, ".jar"), artifact, true);
+                writePom (repositoryFile (root, artifact, ".pom"), artifact);
+            }
+            else
+                writeArchive (new File (root, "lib/" + artifact.artifactId + "-" + artifact.version + ".jar"), artifact, true);
+            artifacts.add (artifact);
+        }
+        for (i = 0; i < fatJars; i++) {
+            artifact = newArtifact ();
+            artifact.artifactId += "-all";
+            writeFatJar (new File (root, "lib/" + artifact.artifactId + "-" + artifact.version + ".jar"), artifact);
+        }
+        for (i = 0; i < nestedArchives; i++) {
+            writeNested (new File (root, "apps/webapp" + i + ".war"), "WEB-INF/lib/", "WEB-INF/classes/", false);
+            writeNested (new File (root, "apps/service" + i + "-boot.jar"), "BOOT-INF/lib/", "BOOT-INF/classes/", true);
+        }
+        for (i = 0; i < brokenArchives; i++)
+            writeBroken (new File (root, "broken"), i);
+        return (statistics);
+    }
+
+    private Artifact newArtifact () {
+        Artifact    retVal =    new Artifact ();
+        Artifact    original;
+        String      group;
+        int         i;
+        int         count;
+
+        if ((artifacts.size () > 0) && (random.nextInt (100) < duplicates)) {
+            original = artifacts.get (random.nextInt (artifacts.size ()));
+            if (random.nextBoolean ()) {                // another version of the same artifact
+                retVal.groupId =    original.groupId;
+                retVal.artifactId = original.artifactId;
+                retVal.version =    nextVersion (original.version);
+                retVal.classes.addAll (original.classes);
+                coordinates.add (retVal.groupId + ":" + retVal.artifactId + ":" + retVal.version);
+                return (retVal);
+            }
+            retVal.classes.addAll (original.classes);   // shaded copy, the classes are added to its own
+        }
+        group = GROUPS [random.nextInt (GROUPS.length)];
+        do {
+            retVal.groupId =    group;
+            retVal.artifactId = group.substring (group.lastIndexOf ('.') + 1) + "-" + MODULES [random.nextInt (MODULES.length)];
+            if (random.nextInt (4) == 0)
+                retVal.artifactId += "-" + random.nextInt (100);
+            retVal.version =    (1 + random.nextInt (5)) + "." + random.nextInt (20) + "." + random.nextInt (10);
+        } while (!coordinates.add (retVal.groupId + ":" + retVal.artifactId + ":" + retVal.version));
+        count = classCount ();
+        for (i = 0; i < count; i++)
+            retVal.classes.add (className (retVal, i, count));
+        return (retVal);
+    }
+
+    private String nextVersion (String version) {
+        String []   parts = version.split ("\\.");
+
+        return (parts [0] + "." + (Integer.parseInt (parts [1]) + 1) + ".0");
+    }
+
+    private int classCount () {
+        double  factor =    Math.exp (random.nextGaussian () - 0.5);     // log-normal, mean 1
+
+        return (Math.max (1, (int) Math.round (classes * factor)));
+    }
+
+    private String className (Artifact artifact, int index, int count) {
+        String  packageName = artifact.groupId.replace ('.', '/') + "/" +
+                              artifact.artifactId.replaceAll ("[^a-z]", "");
+
+        if (count > PACKAGESIZE)
+            packageName += "/" + PACKAGES [(index / PACKAGESIZE) % PACKAGES.length] + ((index / PACKAGESIZE) / PACKAGES.length);
+        return (packageName + "/" + PREFIXES [random.nextInt (PREFIXES.length)] + NOUNS [random.nextInt (NOUNS.length)] + index);
+    }
+
+    private File repositoryFile (File root, Artifact artifact, String extension) {
+        return (new File (root, "repository/" + artifact.groupId.replace ('.', '/') + "/" + artifact.artifactId + "/" +
+                                artifact.version + "/" + artifact.artifactId + "-" + artifact.version + extension));
+    }
+
+    private static OutputStream create (File file) throws IOException {
+        File    parent =    file.getParentFile ();
+
+        if ((parent != null) && !parent.isDirectory () && !parent.mkdirs ())
+            throw new IOException ("Cannot create " + parent);
+        return (new FileOutputStream (file));
+    }
+
+    private static ZipEntry newEntry (String name) {
+        ZipEntry    retVal =    new ZipEntry (name);
+
+        // Zip entries store local time, 2020-01-01T00:00:00 is written in every time zone
+        retVal.setTime (TIMESTAMP - TimeZone.getDefault ().getOffset (TIMESTAMP));
+        return (retVal);
+    }
+
+    private void putEntry (ZipOutputStream out, String name, byte [] content) throws IOException {
+        out.putNextEntry (newEntry (name));
+        out.write (content);
+        out.closeEntry ();
+        statistics.entries++;
+    }
+
+    /**
+     * <p>
+     * Legt ein eingebettetes Archiv unkomprimiert ab, wie es Spring Boot verlangt.
+     * </p>
+     */
+    private void putStored (ZipOutputStream out, String name, byte [] content) throws IOException {
+        ZipEntry    entry = newEntry (name);
+        CRC32       crc =   new CRC32 ();
+
+        crc.update (content);
+        entry.setMethod (ZipEntry.STORED);
+        entry.setSize (content.length);
+        entry.setCompressedSize (content.length);
+        entry.setCrc (crc.getValue ());
+        out.putNextEntry (entry);
+        out.write (content);
+        out.closeEntry ();
+        statistics.entries++;
+    }
+
+    private void writeArchive (File file, Artifact artifact, boolean withPomProperties) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream (create (file))) {
+            writeContent (out, artifact, "", withPomProperties);
+        }
+        finish (file);
+        statistics.archives++;
+    }
+
+    private void writeContent (ZipOutputStream out, Artifact artifact, String prefix,
+                               boolean withPomProperties) throws IOException {
+        int             i;
+        String          superName;
+        Set <String>    directories =   new HashSet <> ();
+        Set <String>    names =         new HashSet <> ();
+        int             major =         50 + random.nextInt (12);
+
+        putEntry (out, prefix + "META-INF/MANIFEST.MF", ("Manifest-Version: 1.0\r\nCreated-By: CorpusGenerator\r\n" +
+                                                         "Implementation-Version: " + artifact.version + "\r\n\r\n").getBytes (ZipDirectory.UTF8));
+        if (withPomProperties)
+            putEntry (out, prefix + "META-INF/maven/" + artifact.groupId + "/" + artifact.artifactId + "/pom.properties",
+                      ("groupId=" + artifact.groupId + "\nartifactId=" + artifact.artifactId + "\nversion=" +
+                       artifact.version + "\n").getBytes (ZipDirectory.UTF8));
+        if (random.nextInt (10) == 0)
+            putEntry (out, prefix + "META-INF/services/" + SERVICES [random.nextInt (SERVICES.length)],
+                      (artifact.classes.get (0).replace ('/', '.') + "\n").getBytes (ZipDirectory.UTF8));
+        for (i = 0; i < artifact.classes.size (); i++) {
+            String  name =      artifact.classes.get (i);
+            String  directory = name.substring (0, name.lastIndexOf ('/') + 1);
+
+            if (!names.add (name))
+                continue;           // a shaded copy may bring a class of the same name
+            if (directories.add (directory))
+                putEntry (out, prefix + directory, new byte [0]);
+            if (name.matches (".*Exception[0-9]+"))
+                superName = "java/lang/Exception";
+            else if ((i > 0) && (random.nextInt (4) == 0))
+                superName = artifact.classes.get (random.nextInt (i));
+            else
+                superName = "java/lang/Object";
+            putEntry (out, prefix + name + ".class",
+                      classFile (name, superName, (random.nextInt (3) == 0) ? INTERFACES [random.nextInt (INTERFACES.length)] : null,
+                                 major));
+            if (random.nextInt (8) == 0)
+                putEntry (out, prefix + name + "$Builder.class", classFile (name + "$Builder", "java/lang/Object", null, major));
+        }
+    }
+
+    private void writePom (File file, Artifact artifact) throws IOException {
+        try (OutputStream out = create (file)) {
+            out.write (("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+                        "  <modelVersion>4.0.0</modelVersion>\n" +
+                        "  <groupId>" + artifact.groupId + "</groupId>\n" +
+                        "  <artifactId>" + artifact.artifactId + "</artifactId>\n" +
+                        "  <version>" + artifact.version + "</version>\n" +
+                        "  <dependencies>\n" +
+                        "    <dependency>\n" +
+                        "      <groupId>org.slf4j</groupId>\n" +
+                        "      <artifactId>slf4j-api</artifactId>\n" +
+                        "      <version>1.7.36</version>\n" +
+                        "    </dependency>\n" +
+                        "  </dependencies>\n" +
+                        "</project>\n").getBytes (ZipDirectory.UTF8));
+        }
+        finish (file);
+        statistics.poms++;
+    }
+
+    private void writeFatJar (File file, Artifact artifact) throws IOException {
+        int     i;
+        int     count = Math.max (1, fatEntries * 8 / 9);   // every eighth class has a nested class
+
+        for (i = artifact.classes.size (); i < count; i++)
+            artifact.classes.add (className (artifact, i, count));
+        try (ZipOutputStream out = new ZipOutputStream (create (file))) {
+            writeContent (out, artifact, "", true);
+        }
+        finish (file);
+        statistics.archives++;
+    }
+
+    private void writeNested (File file, String libraries, String classesPrefix, boolean boot) throws IOException {
+        int             i;
+        int             count =         2 + random.nextInt (6);
+        Artifact        application =   newArtifact ();
+        Artifact        library;
+        String          name;
+        Set <String>    names =         new HashSet <> ();
+
+        try (ZipOutputStream out = new ZipOutputStream (create (file))) {
+            if (boot)
+                putEntry (out, "org/springframework/boot/loader/JarLauncher.class",
+                          classFile ("org/springframework/boot/loader/JarLauncher", "java/lang/Object", null, 52));
+            writeContent (out, application, classesPrefix, false);
+            for (i = 0; i < count; i++) {
+                library = (artifacts.size () > 0) ? artifacts.get (random.nextInt (artifacts.size ())) : newArtifact ();
+                name =    libraries + library.artifactId + "-" + library.version + ".jar";
+                if (names.add (name))
+                    putStored (out, name, nestedArchive (library));
+            }
+        }
+        finish (file);
+        statistics.archives++;
+        statistics.nested++;
+    }
+
+    private byte [] nestedArchive (Artifact artifact) throws IOException {
+        ByteArrayOutputStream   retVal =    new ByteArrayOutputStream ();
+
+        try (ZipOutputStream out = new ZipOutputStream (retVal)) {
+            writeContent (out, artifact, "", true);
+        }
+        return (retVal.toByteArray ());
+    }
+
+    private void writeBroken (File directory, int index) throws IOException {
+        File        truncated = new File (directory, "truncated" + index + ".jar");
+        File        text =      new File (directory, "readme" + index + ".jar");
+        Artifact    artifact =  newArtifact ();
+
+        try (ZipOutputStream out = new ZipOutputStream (create (truncated))) {
+            writeContent (out, artifact, "", true);
+        }
+        try (RandomAccessFile file = new RandomAccessFile (truncated, "rw")) {
+            file.setLength (file.length () / 2);            // the central directory is lost
+        }
+        finish (truncated);
+        try (OutputStream out = create (text)) {
+            out.write ("This is not a Java archive.\n".getBytes (ZipDirectory.UTF8));
+        }
+        finish (text);
+        statistics.broken += 2;
+        artifact =  newArtifact ();                         // the name does not match pom.properties
+        writeArchive (new File (directory, "misnamed" + index + ".jar"), artifact, true);
+    }
+
+    private static void finish (File file) {
+        file.setLastModified (TIMESTAMP);
+    }
+
+    /**
+     * <p>
+     * Erzeugt eine Klassendatei ohne Felder, Methoden und Attribute.
+     * </p>
+     */
+    static byte [] classFile (String name, String superName, String interfaceName, int major) throws IOException {
+        ByteArrayOutputStream   retVal =    new ByteArrayOutputStream (64 + 2 * name.length ());
+        DataOutputStream        out =       new DataOutputStream (retVal);
+        Map <String, Integer>   pool =      new LinkedHashMap <> ();
+
+        pool.put (name, 1);
+        pool.put (superName, 3);
+        if (interfaceName != null)
+            pool.put (interfaceName, 5);
+        out.writeInt (0xCAFEBABE);
+        out.writeShort (0);
+        out.writeShort (major);
+        out.writeShort (2 * pool.size () + 1);
+        for (String className: pool.keySet ()) {
+            out.writeByte (1);              // CONSTANT_Utf8
+            out.writeUTF (className);
+            out.writeByte (7);              // CONSTANT_Class
+            out.writeShort (pool.get (className));
+        }
+        out.writeShort (0x21);              // ACC_PUBLIC | ACC_SUPER
+        out.writeShort (2);
+        out.writeShort (4);
+        if (interfaceName != null) {
+            out.writeShort (1);
+            out.writeShort (6);
+        }
+        else
+            out.writeShort (0);
+        out.writeShort (0);                 // fields
+        out.writeShort (0);                 // methods
+        out.writeShort (0);                 // attributes
+        out.flush ();
+        return (retVal.toByteArray ());
+    }
+
+    public static void main (String [] args) throws IOException {
+        int                 i;
+        String              root =      null;
+        CorpusGenerator     generator = new CorpusGenerator ();
+        int                 fatEntries = 200000;
+        int                 fatJars =   1;
+
+        for (i = 0; i < args.length; i++)
+            if ("-seed".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                generator.setSeed (Long.parseLong (args [++i]));
+            else if ("-jars".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                generator.setJars (Integer.parseInt (args [++i]));
+            else if ("-classes".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                generator.setClasses (Integer.parseInt (args [++i]));
+            else if ("-fatjars".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                fatJars = Integer.parseInt (args [++i]);
+            else if ("-fatentries".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                fatEntries = Integer.parseInt (args [++i]);
+            else if ("-nested".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                generator.setNestedArchives (Integer.parseInt (args [++i]));
+            else if ("-broken".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                generator.setBrokenArchives (Integer.parseInt (args [++i]));
+            else if ("-duplicates".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                generator.setDuplicates (Integer.parseInt (args [++i]));
+            else if (args [i].startsWith ("-") || (root != null)) {
+                root = null;
+                break;
+            }
+            else
+                root = args [i];
+        if (root == null) {
+            System.err.println ("usage: java CorpusGenerator [-seed n] [-jars n] [-classes n] [-fatjars n] " +
+                                "[-fatentries n] [-nested n] [-broken n] [-duplicates percent] directory");
+            return;
+        }
+        generator.setFatJars (fatJars, fatEntries);
+        System.out.println (generator.generate (new File (root)));
+    }
+}
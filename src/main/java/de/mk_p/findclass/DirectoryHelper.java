@@ -177,6 +177,7 @@ public class DirectoryHelper {
         File            dir;
         String          path;
         String []       filenames;
+        FlightEvents.Span listing;
         Matcher         matcher;
         List <Pattern>  filterPatternsList;
         Pattern []      filterPatterns;
@@ -199,6 +200,7 @@ public class DirectoryHelper {
         for (String directory: directories) {
             dir = new File (((directory != null) && (directory.length () > 0)) ? directory : System.getProperty ("user.dir"));
             if (dir.isDirectory ()) { // check to make sure it is a directory
+                ScanStatistics.count (ScanStatistics.Counter.DIRECTORIES, 1l);
                 filterPatternsList = new ArrayList <Pattern> ();
                 if (filters != null)
                     for (i = 0; i < filters.length; i++) {
@@ -219,8 +221,11 @@ public class DirectoryHelper {
                         pse.printStackTrace ();
                     }
                 filterPatterns = filterPatternsList.toArray (new Pattern [] {});
+                listing = FlightEvents.directoryList (dir.getPath ());
                 filenames = dir.list ();
+                listing.finish ((filenames != null) ? filenames.length : 0, 0l, (filenames != null) ? "listed" : "unreadable");
                 if (filenames != null) {
+                    ScanStatistics.count (ScanStatistics.Counter.FILES, filenames.length);
                     OUTER: for (i = 0; i < filenames.length; i++) {
                         path = directory + File.separator + filenames [i];
                         if (recurseDirectories && (new File (path)).isDirectory ())
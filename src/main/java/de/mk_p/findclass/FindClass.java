@@ -1,11 +1,35 @@
 package de.mk_p.findclass;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
 /**
  * <p>
@@ -17,11 +41,615 @@ import java.util.zip.ZipException;
 
 public class FindClass {
     public static final String  DEFAULTJARFILTER =  "^.*\\.[JjWwEe][AaJj][RrBb]$";
+    public static final String  DEFAULTCLASSFILTER = "^.*\\.[Cc][Ll][Aa][Ss][Ss]$";
+    private static final String SERVICES =          "META-INF/services/";
+    private static final long   MAXSERVICESIZE =    0x10000l;
+
+    private static final ThreadLocal <ClassFileHelper> CLASSFILES = new ThreadLocal <ClassFileHelper> () {
+        @Override
+        protected ClassFileHelper initialValue () {
+            return (new ClassFileHelper ());
+        }
+    };
+
+    /**
+     * <p>
+     * Das Ergebnis der Suche in einem Java Archiv.
+     * </p>
+     */
+    private static class Match {
+        private String      archive;
+        private String []   entries =   new String [] {};
+        private String []   details;
+        private int []      versions;
+        private PomHelper   pom;
+        private String      message;
+        private String      module;
+        private ClassIndex.Archive classes;
+
+        private Match (String archive) {
+            this.archive = archive;
+        }
+
+        private String getDetails (int index) {
+            StringBuilder retVal = new StringBuilder ();
+
+            if (versions != null)
+                retVal.append ("\t(").append (formatVersion (versions [index])).append (")");
+            if ((details != null) && (details [index] != null))
+                retVal.append ("\t(").append (details [index]).append (")");
+            return (retVal.toString ());
+        }
+    }
+
+    private String []                       classFilterArray;
+    private String []                       rootFilterArray;
+    private Pattern []                      packageFilterArray;
+    private Pattern []                      resourcePatterns;
+    private boolean                         classVersion;
+    private boolean                         versionHistogram;
+    private ClassFileHelper.Reference []    references;
+    private ClassFileHelper.Reference []    annotations;
+    private ClassIndex                      index;
+    private boolean                         indexMembers;
+    private JrtHelper                       jrt;
+    private GavResolver                     gavResolver =   new GavResolver ();
 
     public static boolean isClassFilename (String filename) {
         return (filename.toLowerCase ().endsWith (".class"));
     }
 
+    /**
+     * <p>
+     * Die Methode liest die Versionen der angegebenen Klassendateien eines Java Archivs &uuml;ber das bereits
+     * ge&ouml;ffnete Archiv.
+     * Dabei werden nur die ersten Bytes jedes Eintrags gelesen und dekomprimiert.
+     * </p>
+     *
+     * @param  zipFile      Das ge&ouml;ffnete Java Archiv.
+     * @param  entries      Die Namen der Eintr&auml;ge deren Versionen gelesen werden sollen.
+     * @return Ein Feld mit der Version jedes Eintrags, siehe
+     *         {@linkplain ClassFileHelper#readVersion(InputStream, byte[]) readVersion}.
+     */
+    private static int [] readVersions (ZipFile zipFile, String [] entries) {
+        int         i;
+        int []      versions =  new int [entries.length];
+        byte []     header =    new byte [ClassFileHelper.HEADER_LENGTH];
+        ZipEntry    entry;
+
+        for (i = 0; i < entries.length; i++)
+            if ((entry = zipFile.getEntry (entries [i])) == null)
+                versions [i] = -1;
+            else
+                try (InputStream in = zipFile.getInputStream (entry)) {
+                    versions [i] = ClassFileHelper.readVersion (in, header);
+                }
+                catch (IOException ioe) {
+                    versions [i] = -1;
+                }
+        return (versions);
+    }
+
+    /**
+     * <p>
+     * Die Methode liefert eine {@linkplain java.util.concurrent.Callable Aufgabe} die ein Java Archiv durchsucht.
+     * Die Aufgaben verschiedener Archive k&ouml;nnen parallel ausgef&uuml;hrt werden.
+     * </p>
+     *
+     * @param  archive      Der Name des Java Archivs.
+     * @param  indexArchive <q>true</q> falls die Klassen des Archivs f&uuml;r den {@linkplain ClassIndex Index}
+     *                      gesammelt werden sollen.
+     * @return Die Aufgabe, die das {@linkplain Match Ergebnis} der Suche liefert.
+     */
+    private Callable <Match> scanTask (final String archive, final boolean indexArchive) {
+        return (new Callable <Match> () {
+            @Override
+            public Match call () throws IOException {
+                return (scan (archive, indexArchive));
+            }
+        });
+    }
+
+    private Match scan (String archive, boolean indexArchive) throws IOException {
+        Match                   match =     new Match (archive);
+        ZipFile                 zipFile;
+        ScanStatistics.Timer    timer;
+
+        if ((classFilterArray == null) && !indexArchive) {
+            ScanStatistics.count (ScanStatistics.Counter.ARCHIVES_SKIPPED, 1l);
+            return (match);     // the index is up to date and there is nothing to search for
+        }
+        try (ZipHelper.Session session = new ZipHelper (archive).openSession ()) {
+            timer = ScanStatistics.start (ScanStatistics.Phase.OPEN);
+            try {
+                zipFile = session.getZipFile ();
+                ScanStatistics.count (ScanStatistics.Counter.ARCHIVES_OPENED, 1l);
+                if (ScanStatistics.active () != null)
+                    ScanStatistics.count (ScanStatistics.Counter.ARCHIVE_BYTES, new File (archive).length ());
+            }
+            finally {
+                timer.stop ();
+            }
+            timer = ScanStatistics.start (ScanStatistics.Phase.MATCH);
+            try {
+                if (classFilterArray != null) {
+                    match.entries = session.getNames (classFilterArray, ZipHelper.WITHOUT_DIRECTORIES);
+                    ScanStatistics.count (ScanStatistics.Counter.ENTRIES_TESTED, zipFile.size ());
+                }
+                if (indexArchive)
+                    match.classes = collectClasses (archive, zipFile);
+                if ((resourcePatterns != null) && (match.entries.length > 0))
+                    readResources (match, zipFile);
+                if (((references != null) || (annotations != null)) && (match.entries.length > 0))
+                    filterClasses (match, zipFile);
+                if ((classVersion || versionHistogram) && (match.entries.length > 0))
+                    match.versions = readVersions (zipFile, match.entries);
+                else if (versionHistogram)
+                    match.versions = new int [] {};
+            }
+            finally {
+                timer.stop ();
+            }
+            if (!versionHistogram && (match.entries.length > 0)) {
+                timer = ScanStatistics.start (ScanStatistics.Phase.POM);
+                try {
+                    match.pom = gavResolver.resolve (session, archive);
+                }
+                finally {
+                    timer.stop ();
+                }
+            }
+        }
+        catch (FileNotFoundException fnfe) {
+            ScanStatistics.count (ScanStatistics.Counter.ARCHIVES_FAILED, 1l);
+            match.message = "File: \"" + archive + "\" does not exist, ignored";
+        }
+        catch (ZipException ze) {
+            ScanStatistics.count (ScanStatistics.Counter.ARCHIVES_FAILED, 1l);
+            // O.K. "archive" calls itself a JAR, but isn't.  Naughty little bugger, but we don't have to care at this point.
+            match.entries = new String [] {};
+            match.versions = new int [] {};
+            if (indexArchive)
+                match.classes = new ClassIndex.Archive (archive, indexMembers);   // remember it, so that it is not reread until it changes
+        }
+        return (match);
+    }
+
+    /**
+     * <p>
+     * Die Methode liefert eine {@linkplain java.util.concurrent.Callable Aufgabe} die ein Modul des JDK durchsucht.
+     * </p>
+     *
+     * @param  module   Der Name des Moduls (z.B. <q>java.base</q>).
+     * @return Die Aufgabe, die das {@linkplain Match Ergebnis} der Suche liefert.
+     */
+    private Callable <Match> moduleTask (final String module) {
+        return (new Callable <Match> () {
+            @Override
+            public Match call () throws IOException {
+                Match                   match = new Match (jrt.getArchiveName (module));
+                ScanStatistics.Timer    timer = ScanStatistics.start (ScanStatistics.Phase.OPEN);
+
+                match.module = module;
+                try {
+                    match.entries = jrt.getNames (module, classFilterArray, ZipHelper.WITHOUT_DIRECTORIES);
+                    ScanStatistics.count (ScanStatistics.Counter.ARCHIVES_OPENED, 1l);
+                }
+                finally {
+                    timer.stop ();
+                }
+                return (inspectEntries (match, new EntrySource () {
+                    @Override
+                    public InputStream open (String name) throws IOException {
+                        return (jrt.getInputStream (module, name));
+                    }
+                }));
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Die Methode liefert eine {@linkplain java.util.concurrent.Callable Aufgabe} die ein
+     * {@linkplain ClassesDirectory Verzeichnis mit &uuml;bersetzten Klassen} wie ein Archiv durchsucht.
+     * </p>
+     *
+     * @param  root     Der Name des Verzeichnisses (z.B. <q>target/classes</q>).
+     * @return Die Aufgabe, die das {@linkplain Match Ergebnis} der Suche liefert.
+     */
+    private Callable <Match> rootTask (final String root) {
+        return (new Callable <Match> () {
+            @Override
+            public Match call () throws IOException {
+                Match                   match = new Match (root);
+                ScanStatistics.Timer    timer = ScanStatistics.start (ScanStatistics.Phase.OPEN);
+
+                try {
+                    match.entries = new ClassesDirectory (root).getNames (rootFilterArray, packageFilterArray);
+                    ScanStatistics.count (ScanStatistics.Counter.ARCHIVES_OPENED, 1l);
+                }
+                finally {
+                    timer.stop ();
+                }
+                return (inspectEntries (match, new EntrySource () {
+                    @Override
+                    public InputStream open (String name) throws IOException {
+                        return (new FileInputStream (new File (root, name)));
+                    }
+                }));
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Liefert den Inhalt der Eintr&auml;ge von Modulen und Verzeichnissen.
+     * </p>
+     */
+    private interface EntrySource {
+        InputStream open (String name) throws IOException;
+    }
+
+    /**
+     * <p>
+     * Die Methode beschr&auml;nkt die Eintr&auml;ge eines Ergebnisses auf Klassen, die auf die gesuchten Typen
+     * verweisen bzw. mit den gesuchten Annotationen versehen sind, und liest bei Bedarf deren Versionen.
+     * </p>
+     */
+    private Match inspectEntries (Match match, EntrySource source) {
+        int                     i;
+        byte []                 header =    new byte [ClassFileHelper.HEADER_LENGTH];
+        List <String>           entries =   new ArrayList <> ();
+        List <String>           details =   new ArrayList <> ();
+        String                  detail;
+        ScanStatistics.Timer    timer =     ScanStatistics.start (ScanStatistics.Phase.MATCH);
+
+        if ((references != null) || (annotations != null)) {
+            for (String name: match.entries)
+                try (InputStream in = source.open (name)) {
+                    if ((detail = inspect (in, -1)) != null) {
+                        entries.add (name);
+                        details.add (detail);
+                    }
+                }
+                catch (IOException ioe) {
+                    // an unreadable entry cannot match anything
+                }
+            match.entries = entries.toArray (new String [entries.size ()]);
+            match.details = details.toArray (new String [details.size ()]);
+        }
+        if (classVersion || versionHistogram) {
+            match.versions = new int [match.entries.length];
+            for (i = 0; i < match.entries.length; i++)
+                try (InputStream in = source.open (match.entries [i])) {
+                    match.versions [i] = ClassFileHelper.readVersion (in, header);
+                }
+                catch (IOException ioe) {
+                    match.versions [i] = -1;
+                }
+        }
+        timer.stop ();
+        return (match);
+    }
+
+    /**
+     * <p>
+     * Die Methode sammelt die Kopfdaten aller Klassen eines Archivs f&uuml;r den {@linkplain ClassIndex Index}.
+     * Von jeder Klassendatei werden nur der Konstantenpool und die direkt folgenden Namen der Klasse, der
+     * Oberklasse und der Schnittstellen gelesen; Methoden und Felder nur, falls diese ebenfalls in den Index
+     * aufgenommen werden.
+     * Die Anbieter der Dienste (<q>META-INF/services/&lt;Dienst&gt;</q>) werden im selben Durchlauf &uuml;ber das
+     * bereits ge&ouml;ffnete Archiv gelesen.
+     * </p>
+     */
+    private ClassIndex.Archive collectClasses (String archive, ZipFile zipFile) {
+        ZipEntry                            entry;
+        ClassIndex.Archive                  retVal =    new ClassIndex.Archive (archive, indexMembers);
+        ClassFileHelper                     classFile = CLASSFILES.get ();
+        Enumeration <? extends ZipEntry>    entries =   zipFile.entries ();
+        FlightEvents.Span                   event =     FlightEvents.centralDirectoryScan (archive);
+        long                                tested =    0l;
+        long                                bytes =     0l;
+
+        while (entries.hasMoreElements ()) {
+            entry = entries.nextElement ();
+            tested++;
+            if (entry.isDirectory ())
+                continue;
+            if (entry.getName ().startsWith (SERVICES)) {
+                if ((entry.getName ().length () > SERVICES.length ()) && (entry.getSize () <= MAXSERVICESIZE))
+                    try (InputStream in = zipFile.getInputStream (entry)) {
+                        retVal.addService (entry.getName ().substring (SERVICES.length ()), readLines (in, true));
+                    }
+                    catch (IOException ioe) {
+                        // an unreadable service file is simply not indexed
+                    }
+                continue;
+            }
+            if (!isClassFilename (entry.getName ()) || entry.getName ().startsWith ("META-INF/"))
+                continue;
+            ScanStatistics.count (ScanStatistics.Counter.ENTRY_BYTES, entry.getCompressedSize ());
+            bytes += entry.getCompressedSize ();
+            try (InputStream in = zipFile.getInputStream (entry)) {
+                if (classFile.open (in, entry.getSize ()))
+                    retVal.add (classFile);
+            }
+            catch (IOException ioe) {
+                // a broken class file is simply not indexed
+            }
+        }
+        event.finish (tested, bytes, "indexed");
+        return (retVal);
+    }
+
+    /**
+     * <p>
+     * Liest die Zeilen einer Ressource, z.B. die Namen der Anbieter aus einer Datei
+     * <q>META-INF/services/&lt;Dienst&gt;</q>.
+     * Leere Zeilen werden ignoriert, Kommentare (ab <q>#</q>) falls <q>comments</q> gesetzt ist.
+     * </p>
+     */
+    private static List <String> readLines (InputStream in, boolean comments) throws IOException {
+        int             position;
+        String          line;
+        List <String>   retVal =    new ArrayList <> ();
+        BufferedReader  reader =    new BufferedReader (new InputStreamReader (in, "UTF-8"));
+
+        while ((line = reader.readLine ()) != null) {
+            if (comments && ((position = line.indexOf ('#')) >= 0))
+                line = line.substring (0, position);
+            if ((line = line.trim ()).length () > 0)
+                retVal.add (line);
+        }
+        return (retVal);
+    }
+
+    private boolean isResource (String name) {
+        return ((resourcePatterns != null) && ZipHelper.matches (resourcePatterns, name));
+    }
+
+    /**
+     * <p>
+     * Die Methode liest den Inhalt der gefundenen Ressourcen (<q>-resources</q>) &uuml;ber das bereits
+     * ge&ouml;ffnete Archiv.
+     * Die nicht leeren Zeilen einer Ressource werden durch Kommata getrennt als Zusatzinformation des Eintrags
+     * ausgegeben; Ressourcen &uuml;ber {@value #MAXSERVICESIZE} Bytes werden ohne ihren Inhalt aufgef&uuml;hrt.
+     * </p>
+     */
+    private void readResources (Match match, ZipFile zipFile) {
+        int             i;
+        ZipEntry        entry;
+        StringBuilder   content;
+
+        match.details = new String [match.entries.length];
+        for (i = 0; i < match.entries.length; i++)
+            if (isResource (match.entries [i]) && ((entry = zipFile.getEntry (match.entries [i])) != null) &&
+                (entry.getSize () <= MAXSERVICESIZE)) {
+                ScanStatistics.count (ScanStatistics.Counter.ENTRY_BYTES, entry.getCompressedSize ());
+                try (InputStream in = zipFile.getInputStream (entry)) {
+                    content = new StringBuilder ();
+                    for (String line: readLines (in, false))
+                        content.append ((content.length () > 0) ? ", " : "").append (line);
+                    match.details [i] = content.toString ();
+                }
+                catch (IOException ioe) {
+                    // an unreadable resource is listed without its content
+                }
+            }
+    }
+
+    /**
+     * <p>
+     * Die Methode beschr&auml;nkt die gefundenen Eintr&auml;ge auf Klassen, deren Konstantenpool auf einen der
+     * gesuchten Typen verweist, bzw. die mit einer der gesuchten Annotationen versehen sind.
+     * Gefundene Ressourcen (<q>-resources</q>) bleiben mit ihrem Inhalt erhalten.
+     * </p>
+     */
+    private void filterClasses (Match match, ZipFile zipFile) throws IOException {
+        int         i;
+        ZipEntry    entry;
+        List <String> entries = new ArrayList <> ();
+        List <String> details = new ArrayList <> ();
+        String      detail;
+        String      name;
+
+        for (i = 0; i < match.entries.length; i++)
+            if (isResource (name = match.entries [i])) {
+                entries.add (name);
+                details.add (match.details [i]);
+            }
+            else if ((entry = zipFile.getEntry (name)) != null) {
+                ScanStatistics.count (ScanStatistics.Counter.ENTRY_BYTES, entry.getCompressedSize ());
+                try (InputStream in = zipFile.getInputStream (entry)) {
+                    if ((detail = inspect (in, entry.getSize ())) != null) {
+                        entries.add (name);
+                        details.add (detail);
+                    }
+                }
+            }
+        match.entries = entries.toArray (new String [entries.size ()]);
+        match.details = details.toArray (new String [details.size ()]);
+    }
+
+    private void filterClasses (Match match, InputStream in) throws IOException {
+        String detail = inspect (in, -1);
+
+        match.entries = (detail != null) ? match.entries : new String [] {};
+        match.details = new String [] {detail};
+    }
+
+    /**
+     * <p>
+     * Die Methode liest eine Klassendatei und liefert eine Beschreibung der gefundenen Verweise und Annotationen.
+     * </p>
+     *
+     * @return Die Beschreibung, oder: <q>null</q> falls die Klasse nicht allen Suchkriterien entspricht.
+     */
+    private String inspect (InputStream in, long size) throws IOException {
+        StringBuilder   found =     null;
+        StringBuilder   annotated = null;
+        ClassFileHelper classFile = CLASSFILES.get ();
+
+        try {
+            if (!classFile.open (in, size))
+                return (null);
+            if (references != null) {
+                for (ClassFileHelper.Reference reference: references)
+                    if (classFile.references (reference))
+                        found = ((found == null) ? new StringBuilder ("references ") : found.append (", ")).append (reference.getText ());
+                if (found == null)
+                    return (null);
+            }
+            if (annotations != null) {
+                for (ClassFileHelper.Reference annotation: annotations)
+                    if (classFile.isAnnotated (annotation))
+                        annotated = ((annotated == null) ? new StringBuilder ("annotated ") : annotated.append (", "))
+                                        .append ('@').append (annotation.getText ().replaceFirst ("^@", ""));
+                if (annotated == null)
+                    return (null);
+            }
+        }
+        catch (IOException ioe) {
+            return (null);  // broken class files cannot match anything
+        }
+        if ((found != null) && (annotated != null))
+            return (found.append ("; ").append (annotated).toString ());
+        else
+            return ((found != null) ? found.toString () : annotated.toString ());
+    }
+
+    private static Match getMatch (Future <Match> future) throws IOException {
+        try {
+            return (future.get ());
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread ().interrupt ();
+            throw new IOException (ie);
+        }
+        catch (ExecutionException ee) {
+            if (ee.getCause () instanceof IOException)
+                throw (IOException) ee.getCause ();
+            else if (ee.getCause () instanceof RuntimeException)
+                throw (RuntimeException) ee.getCause ();
+            throw new IOException (ee.getCause ());
+        }
+    }
+
+    private static Future <Match> takeMatch (CompletionService <Match> completion) throws IOException {
+        try {
+            return (completion.take ());
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread ().interrupt ();
+            throw new IOException (ie);
+        }
+    }
+
+    /**
+     * <p>
+     * Beschr&auml;nkt die Eintr&auml;ge eines Ergebnisses auf die ersten <q>count</q>.
+     * </p>
+     */
+    private static void truncate (Match match, int count) {
+        match.entries = Arrays.copyOf (match.entries, count);
+        if (match.versions != null)
+            match.versions = Arrays.copyOf (match.versions, count);
+        if (match.details != null)
+            match.details = Arrays.copyOf (match.details, count);
+    }
+
+    /**
+     * <p>
+     * Liefert die Archive in den Verzeichnissen in der Reihenfolge, in der sie f&uuml;r <q>-first</q> bzw.
+     * <q>-limit</q> durchsucht werden: zuerst nach der Reihenfolge der Verzeichnisse auf der Kommandozeile, dann
+     * die Archive mit {@linkplain RecentMatches k&uuml;rzlich gefundenen} Treffern, dann die kleineren Archive.
+     * </p>
+     */
+    private static String [] prioritize (List <String> directories, String [] jarFilters) {
+        int                         i;
+        String []                   retVal;
+        final Map <String, long []> keys =  new HashMap <> ();
+
+        for (i = 0; i < directories.size (); i++)
+            for (String archive: DirectoryHelper.list (new String [] {directories.get (i)}, jarFilters, DirectoryHelper.RECURSE_DIRECTORIES))
+                if (!keys.containsKey (archive))
+                    keys.put (archive, new long [] {i, RecentMatches.getRank (archive), new File (archive).length ()});
+        retVal = keys.keySet ().toArray (new String [keys.size ()]);
+        Arrays.sort (retVal, new Comparator <String> () {
+            @Override
+            public int compare (String archive1, String archive2) {
+                int     i;
+                long [] key1 =  keys.get (archive1);
+                long [] key2 =  keys.get (archive2);
+
+                for (i = 0; i < key1.length; i++)
+                    if (key1 [i] != key2 [i])
+                        return ((key1 [i] < key2 [i]) ? -1 : 1);
+                return (archive1.compareTo (archive2));
+            }
+        });
+        return (retVal);
+    }
+
+    static String formatVersion (int version) {
+        return ((version < 0) ? "no class file" : ClassFileHelper.formatVersion (version >>> 16, version & 0xFFFF));
+    }
+
+    /**
+     * <p>
+     * Gibt das Ergebnis einer Abfrage des {@linkplain ClassIndex Index} aus, jedoch h&ouml;chstens <q>limit</q>
+     * Treffer (<q>-first</q> bzw. <q>-limit</q>).
+     * </p>
+     *
+     * @return Die Anzahl der ausgegebenen Treffer.
+     */
+    private static long writeQuery (HitWriter out, String kind, String argument, Map <String, List <String>> results,
+                                    long limit) {
+        long                            hits =      0l;
+        List <String>                   archives;
+        Map <String, List <String>>     limited =   new LinkedHashMap <> ();
+
+        for (Map.Entry <String, List <String>> result: results.entrySet ()) {
+            if (hits >= limit)
+                break;
+            archives = result.getValue ();
+            if (archives.size () > limit - hits)
+                archives = archives.subList (0, (int) (limit - hits));
+            limited.put (result.getKey (), archives);
+            hits += archives.size ();
+        }
+        ScanStatistics.count (ScanStatistics.Counter.HITS, hits);
+        out.query (kind, argument, limited);
+        return (hits);
+    }
+
+    /**
+     * @return Die positive Zahl in <q>args [index]</q>, oder: <q>-1</q> falls sie fehlt oder ung&uuml;ltig ist.
+     */
+    private static int parseCount (String [] args, int index) {
+        try {
+            return ((index < args.length) ? Math.max (-1, Integer.parseInt (args [index])) : -1);
+        }
+        catch (NumberFormatException nfe) {
+            return (-1);
+        }
+    }
+
+    private static void countVersion (Map <Integer, Long> histogram, int version) {
+        Long count = histogram.get (version);
+
+        histogram.put (version, (count == null) ? 1l : count + 1l);
+    }
+
+    private static ClassFileHelper.Reference [] toReferences (List <String> texts) {
+        int                             i;
+        ClassFileHelper.Reference []    retVal = new ClassFileHelper.Reference [texts.size ()];
+
+        for (i = 0; i < retVal.length; i++)
+            retVal [i] = new ClassFileHelper.Reference (texts.get (i));
+        return (retVal);
+    }
+
     /**
      * <p>
      * Die Methode sucht nach Klassen in Java Archiven.
@@ -57,7 +685,10 @@ public class FindClass {
      * <strong>Beachte</strong>: F&uuml;r das Schreiben der
      * {@linkplain java.util.regex.Pattern regul&auml;re Ausdr&uuml;cke}
      * gelten die gleichen Bedingungen die f&uuml;r die mit: <q>-jarfilter</q>
-     * spezifizierten Suchfilter.
+     * spezifizierten Suchfilter.<br />
+     * In Verzeichnissen mit &uuml;bersetzten Klassen (z.B. <q>target/classes</q>) werden die Paketfilter auf den
+     * Anfang des Paketnamens (z.B. <q>de.mk_p</q>) angewendet, sofern keine Klassenfilter angegeben sind.
+     * Unterverzeichnisse, deren Paket keinem der Filter entsprechen kann, werden dann nicht gelesen.
      * </dd>
      * <dt>-classfilter</dt>
      * <dd>
@@ -71,6 +702,109 @@ public class FindClass {
      * gelten die gleichen Bedingungen die f&uuml;r die mit: <q>-jarfilter</q>
      * spezifizierten Suchfilter.
      * </dd>
+     * <dt>-classversion</dt>
+     * <dd>
+     * Zu jeder gefundenen Klasse wird die Version der Klassendatei (z.B. <q>Java 8, 52.0</q>) ausgegeben.
+     * Dazu werden nur die ersten acht Bytes jedes gefundenen Eintrags gelesen.
+     * </dd>
+     * <dt>-versionhistogram</dt>
+     * <dd>
+     * Anstatt der gefundenen Klassen wird nur eine &Uuml;bersicht ausgegeben, wie viele der gefundenen Klassen
+     * mit welcher Version &uuml;bersetzt wurden.
+     * Sofern kein Klassenfilter angegeben wurde, werden alle Klassen gez&auml;hlt.
+     * </dd>
+     * <dt>-references</dt>
+     * <dd>
+     * Alle nachfolgenden Argumente, die keine Schalter sind, werden als Typen (z.B. <q>sun.misc.BASE64Encoder</q>)
+     * oder Elemente von Typen (z.B. <q>sun.misc.BASE64Encoder#encode</q>) betrachtet.
+     * Es werden nur Klassen ausgegeben, deren Konstantenpool auf einen dieser Typen oder eines dieser Elemente verweist.
+     * Von den Klassendateien wird dazu nur der Konstantenpool gelesen.
+     * Sofern kein Klassenfilter angegeben wurde, werden alle Klassen durchsucht.
+     * </dd>
+     * <dt>-annotations</dt>
+     * <dd>
+     * Alle nachfolgenden Argumente, die keine Schalter sind, werden als Typen von Annotationen betrachtet, entweder
+     * voll qualifiziert (z.B. <q>javax.ws.rs.Path</q>) oder als einfacher Name (z.B. <q>@Entity</q>).
+     * Es werden nur Klassen ausgegeben, die mit einer dieser Annotationen versehen sind.
+     * Ber&uuml;cksichtigt werden nur zur Laufzeit sichtbare Annotationen der Klassen selbst.
+     * Sofern kein Klassenfilter angegeben wurde, werden alle Klassen durchsucht.
+     * </dd>
+     * <dt>-subtypes</dt>
+     * <dd>
+     * Alle nachfolgenden Argumente, die keine Schalter sind, werden als voll qualifizierte Typen betrachtet
+     * (z.B. <q>javax.sql.DataSource</q>), deren direkte und indirekte Unterklassen und Implementierungen mit den
+     * Archiven in denen sie gefunden wurden ausgegeben werden.
+     * Die Antwort wird aus einem {@linkplain ClassIndex Index} gegeben, der bei der Suche f&uuml;r alle Klassen
+     * der durchsuchten Archive aufgebaut wird.
+     * Ein Klassenfilter ist in diesem Fall nicht erforderlich.
+     * </dd>
+     * <dt>-index</dt>
+     * <dd>
+     * Das nachfolgende Argument ist der Name eines Zip-Archivs, in dem der {@linkplain ClassIndex Index} gespeichert
+     * wird.
+     * Ein vorhandener Index wird geladen; nur neue oder ver&auml;nderte Archive werden bei der Suche gelesen und
+     * erg&auml;nzt.
+     * Wird weder ein Verzeichnis noch ein Klassenfilter angegeben, werden Abfragen ausschlie&szlig;lich aus dem Index
+     * beantwortet.
+     * </dd>
+     * <dt>-members</dt>
+     * <dd>
+     * Neben den Klassen werden auch Namen und Deskriptoren aller Methoden und Felder in den
+     * {@linkplain ClassIndex Index} aufgenommen.
+     * Archive, die bisher ohne ihre Methoden und Felder im Index stehen, werden dazu erneut gelesen.
+     * </dd>
+     * <dt>-method</dt>
+     * <dd>
+     * Alle nachfolgenden Argumente, die keine Schalter sind, werden als Methoden in der Form
+     * <q>[type#]name[(descriptor]</q> betrachtet (z.B. <q>format(Ljava/lang/String;</q>).
+     * Es werden alle Klassen mit den Archiven ausgegeben, die eine Methode dieses Namens definieren, deren
+     * Deskriptor mit dem angegebenen Anfang beginnt.
+     * Die Antwort wird aus dem {@linkplain ClassIndex Index} gegeben; impliziert <q>-members</q>.
+     * </dd>
+     * <dt>-field</dt>
+     * <dd>
+     * Wie <q>-method</q>, jedoch f&uuml;r Felder in der Form <q>[type#]name[:descriptor]</q>.
+     * </dd>
+     * <dt>-services</dt>
+     * <dd>
+     * Alle nachfolgenden Argumente, die keine Schalter sind, werden als Namen von Diensten
+     * (z.B. <q>javax.annotation.processing.Processor</q>) betrachtet.
+     * F&uuml;r jeden Dienst werden alle Anbieter aus den Dateien <q>META-INF/services/&lt;Dienst&gt;</q> mit den
+     * Archiven ausgegeben, in denen sie eingetragen sind.
+     * Ohne Argumente werden alle gefundenen Dienste ausgegeben.
+     * Die Dateien werden beim Aufbau des {@linkplain ClassIndex Index} gelesen, so dass ein gespeicherter Index die
+     * Abfrage ohne Lesen der Archive beantwortet.
+     * </dd>
+     * <dt>-resources</dt>
+     * <dd>
+     * Alle nachfolgenden Argumente, die keine Schalter sind, werden als regul&auml;re Ausdr&uuml;cke f&uuml;r Namen
+     * von Ressourcen unterhalb von <q>META-INF/</q> betrachtet (z.B. <q>spring\.factories</q> oder
+     * <q>services/.*</q>).
+     * Die gefundenen Ressourcen werden wie Klassen ausgegeben, zusammen mit ihrem Inhalt, der im selben Durchlauf
+     * &uuml;ber das bereits ge&ouml;ffnete Archiv gelesen wird.
+     * </dd>
+     * <dt>-jdk</dt>
+     * <dd>
+     * Zus&auml;tzlich zu den Archiven werden die Module des laufenden JDK durchsucht, entweder &uuml;ber das
+     * Dateisystem <q>jrt:/</q> oder &uuml;ber die <q>.jmod</q> Dateien.
+     * Gefundene Klassen werden wie bei Archiven ausgegeben, zusammen mit dem Namen des Moduls.
+     * Die Pakete und Klassen der Module werden mit <q>-index</q> in dessen Archiv zwischengespeichert.
+     * </dd>
+     * <dt>-javahome</dt>
+     * <dd>
+     * Wie <q>-jdk</q>, jedoch f&uuml;r das JDK dessen Installationsverzeichnis das nachfolgende Argument angibt.
+     * </dd>
+     * <dt>-threads</dt>
+     * <dd>
+     * Das nachfolgende Argument gibt die Anzahl der Java Archive an, die gleichzeitig durchsucht werden.
+     * Die Voreinstellung ist die Anzahl der verf&uuml;gbaren Prozessoren.
+     * </dd>
+     * <dt>-first, -limit</dt>
+     * <dd>
+     * Die Suche endet nach dem ersten bzw. nach so vielen Treffern, wie das nachfolgende Argument angibt.
+     * Die Grenze gilt f&uuml;r alle Treffer zusammen, auch f&uuml;r die anschlie&szlig;end ausgegebenen Antworten
+     * des {@linkplain ClassIndex Index} (<q>-subtypes</q>, <q>-services</q>, <q>-method</q> und <q>-field</q>).
+     * </dd>
      * <dt>-verbose</dt>
      * <dd>
      * Es werden w&auml;hrend der Suche Zusatzinformationen ausgegeben.
@@ -136,52 +870,214 @@ public class FindClass {
     public static void main (String [] args) throws IOException {
         int             i;
         int             j;
+        int             threads =           Runtime.getRuntime ().availableProcessors ();
         boolean         jarFilter =         false;
         boolean         classFilter =       false;
         boolean         packageFilter =     false;
+        boolean         serviceQuery =      false;
+        boolean         jdk =               false;
         boolean         verbose =           false;
+        boolean         scanning;
+        String          indexName =         null;
+        String          javaHome =          null;
+        String          statsFormat =       null;
+        boolean         metricsEnabled =    false;
+        String          metricsFile =       null;
+        HitWriter.Format format =           HitWriter.Format.TEXT;
+        String          error =             null;
+        HitWriter       out;
+        int             limit =             0;
+        long            remaining;
+        CompletionService <Match> completion = null;
+        String []       modules =           new String [] {};
+        byte []         header =            new byte [ClassFileHelper.HEADER_LENGTH];
+        Map <Integer, Long> histogram =     new TreeMap <> ();
         List <String>   directories =       new ArrayList <> ();
         String []       classes;
-        String []       entries;
         String []       archives;
-        String []       classFilterArray;
         List <String>   jarFilters =        new ArrayList <> ();
         List <String>   classFiles =        new ArrayList <> ();
         List <String>   classFilters =      new ArrayList <> ();
         List <String>   packageFilters =    new ArrayList <> ();
-        ZipHelper       zipHelper;
+        List <Pattern>  packagePatterns =   new ArrayList <> ();
+        List <String>   roots =             new ArrayList <> ();
+        List <String>   looseClasses =      new ArrayList <> ();
+        Pattern []      classFilePatterns;
+        List <String>   query =             null;
+        List <String>   references =        new ArrayList <> ();
+        List <String>   annotations =       new ArrayList <> ();
+        List <String>   subtypes =          new ArrayList <> ();
+        List <String>   methods =           new ArrayList <> ();
+        List <String>   fields =            new ArrayList <> ();
+        List <String>   services =          new ArrayList <> ();
+        List <String>   resources =         new ArrayList <> ();
+        List <Pattern>  resourcePatterns =  new ArrayList <> ();
+        List <Future <Match>> matches =     new ArrayList <> ();
+        ExecutorService executor;
         FindClass       finder =            new FindClass ();
-        PomHelper       pom;
+        Match           match;
+        String          detail;
+        ScanStatistics  statistics =        null;
+        ScanMetrics     metrics =           null;
+        ScanStatistics.Timer timer;
+        ScanStatistics.Timer output;
 
         for (i = 0; i < args.length; i++) {
-            if ("-jarfilter".startsWith (args [i].toLowerCase ()))
+            if ("-jarfilter".startsWith (args [i].toLowerCase ())) {
                 packageFilter = classFilter = !(jarFilter = true);
-            else if ("-packagefilter".startsWith (args [i].toLowerCase ()))
+                query = null;
+            }
+            else if ("-packagefilter".startsWith (args [i].toLowerCase ())) {
                 jarFilter = classFilter = !(packageFilter = true);
-            else if ("-classfilter".startsWith (args [i].toLowerCase ()))
+                query = null;
+            }
+            else if ("-classfilter".startsWith (args [i].toLowerCase ())) {
                 packageFilter = jarFilter = !(classFilter = true);
+                query = null;
+            }
+            else if ("-references".startsWith (args [i].toLowerCase ())) {
+                packageFilter = jarFilter = classFilter = false;
+                query = references;
+            }
+            else if ("-annotations".startsWith (args [i].toLowerCase ())) {
+                packageFilter = jarFilter = classFilter = false;
+                query = annotations;
+            }
+            else if ("-subtypes".startsWith (args [i].toLowerCase ())) {
+                packageFilter = jarFilter = classFilter = false;
+                query = subtypes;
+            }
+            else if ("-method".startsWith (args [i].toLowerCase ())) {
+                packageFilter = jarFilter = classFilter = false;
+                query = methods;
+            }
+            else if ("-field".startsWith (args [i].toLowerCase ())) {
+                packageFilter = jarFilter = classFilter = false;
+                query = fields;
+            }
+            else if ("-services".startsWith (args [i].toLowerCase ())) {
+                packageFilter = jarFilter = classFilter = false;
+                query = services;
+                serviceQuery = true;
+            }
+            else if ("-resources".startsWith (args [i].toLowerCase ())) {
+                packageFilter = jarFilter = classFilter = false;
+                query = resources;
+            }
+            else if ("-stats".startsWith (args [i].toLowerCase ())) {
+                statsFormat = "text";
+                if ((i < (args.length - 1)) && ("json".equalsIgnoreCase (args [i + 1]) || "text".equalsIgnoreCase (args [i + 1])))
+                    statsFormat = args [++i].toLowerCase ();
+            }
+            else if ("-format".startsWith (args [i].toLowerCase ())) {
+                if ((i < (args.length - 1)) && (HitWriter.Format.parse (args [i + 1]) != null))
+                    format = HitWriter.Format.parse (args [++i]);
+                else
+                    error = "-format: expected text, ndjson or csv";
+            }
+            else if ("-first".startsWith (args [i].toLowerCase ()))
+                limit = 1;
+            else if ("-limit".startsWith (args [i].toLowerCase ())) {
+                if ((limit = parseCount (args, ++i)) <= 0)
+                    error = "-limit: expected a positive number";
+            }
+            else if ("-metrics".startsWith (args [i].toLowerCase ())) {
+                metricsEnabled = true;
+                if ((i < (args.length - 1)) && args [i + 1].endsWith (".prom"))
+                    metricsFile = args [++i];
+            }
+            else if ("-members".startsWith (args [i].toLowerCase ()))
+                finder.indexMembers = true;
+            else if ("-index".startsWith (args [i].toLowerCase ()) && (i < (args.length - 1)))
+                indexName = args [++i];
+            else if ("-jdk".startsWith (args [i].toLowerCase ()))
+                jdk = true;
+            else if ("-javahome".startsWith (args [i].toLowerCase ()) && (i < (args.length - 1))) {
+                javaHome = args [++i];
+                jdk = true;
+            }
             else if ("-verbose".startsWith (args [i].toLowerCase ()))
                 verbose = true;
+            else if ("-classversion".startsWith (args [i].toLowerCase ()))
+                finder.classVersion = true;
+            else if ("-versionhistogram".startsWith (args [i].toLowerCase ()))
+                finder.versionHistogram = true;
+            else if ("-threads".startsWith (args [i].toLowerCase ())) {
+                if ((threads = parseCount (args, ++i)) <= 0)
+                    error = "-threads: expected a positive number";
+            }
+            else if (query != null)
+                query.add (args [i]);
             else if (!jarFilter && !classFilter && (i < (args.length - 1)) /*&& (directory == null)*/)
                 directories.add (args [i]);
-            else if (packageFilter)
+            else if (packageFilter) {
                 packageFilters.add ("^.*" + args [i] + ".*\\.[Cc][Ll][Aa][Ss][Ss]$");
+                try {
+                    packagePatterns.add (Pattern.compile (args [i]));
+                }
+                catch (PatternSyntaxException pse) {
+                    // silently ignore this pattern...
+                }
+            }
             else if (classFilter || (i >= (args.length - 1)))
                 classFilters.add ("^.*" + (isClassFilename(args [i])
                         ? args [i] : args [i] + "\\.[Cc][Ll][Aa][Ss][Ss]") + "$");
             else
                 jarFilters.add (args [i]);
         }
+        // with package filters only, classes directories skip all subtrees no package filter can match
+        if ((classFilters.size () <= 0) && (packagePatterns.size () > 0))
+            finder.packageFilterArray = packagePatterns.toArray (new Pattern [packagePatterns.size ()]);
         classFilters.addAll (packageFilters);
+        if ((finder.versionHistogram || (references.size () > 0) || (annotations.size () > 0)) && (classFilters.size () <= 0))
+            classFilters.add (DEFAULTCLASSFILTER);
         classFiles.addAll (classFilters);
-        if (classFilters.size () <= 0)
+        // resources are found in the same pass over the central directory as the classes
+        for (String resource: resources)
+            try {
+                resourcePatterns.add (Pattern.compile ("^META-INF/(" + resource + ")$"));
+                classFilters.add ("^META-INF/(" + resource + ")$");
+            }
+            catch (PatternSyntaxException pse) {
+                // silently ignore this pattern...
+            }
+        if (resourcePatterns.size () > 0)
+            finder.resourcePatterns = resourcePatterns.toArray (new Pattern [resourcePatterns.size ()]);
+        if ((methods.size () > 0) || (fields.size () > 0))
+            finder.indexMembers = true;
+        if (error != null)
+            System.err.println (error);
+        if ((error != null) || ((classFilters.size () <= 0) && (subtypes.size () <= 0) && (methods.size () <= 0) && (fields.size () <= 0) && !serviceQuery))
             System.out.println ("usage: java " + finder.getClass ().getName () +
-                    "[directory] [[-jarfilter ]jar-filter...] [[-classfilter ]classFilter...] classfilter");
+                    "[directory] [-classversion|-versionhistogram] [-threads count] [-index file [-members]] [-jdk] [-javahome directory] " +
+                    "[-first|-limit count] [-format text|ndjson|csv] [-stats [text|json]] [-metrics [file.prom]] " +
+                    "[[-jarfilter ]jar-filter...] " +
+                    "[-references type[#member]...] [-annotations type...] [-subtypes type...] [-method [type#]name[(descriptor]...] " +
+                    "[-field [type#]name[:descriptor]...] [-services [interface...]] [-resources resource...] " +
+                    "[[-classfilter ]classFilter...] classfilter");
         else {
+            if (statsFormat != null)
+                statistics = ScanStatistics.enable ();
+            if (metricsEnabled)
+                metrics = ScanMetrics.enable (metricsFile);
+            // An index without any directories or class filters answers the queries on its own.
+            scanning = (classFilters.size () > 0) || (indexName == null) || (directories.size () > 0);
             if (directories.size () <= 0)
                 directories.add (".");
             if (jarFilters.size () <= 0)
                 jarFilters.add  (FindClass.DEFAULTJARFILTER);
+            if (references.size () > 0)
+                finder.references = toReferences (references);
+            if (annotations.size () > 0)
+                finder.annotations = toReferences (annotations);
+            if (indexName != null) {
+                timer = ScanStatistics.start (ScanStatistics.Phase.INDEX);
+                finder.index = ClassIndex.load (indexName);
+                ScanMetrics.indexSize (finder.index.getArchiveCount (), finder.index.getSymbolCount (), new File (indexName).length ());
+                timer.stop ();
+            }
+            else if ((subtypes.size () > 0) || finder.indexMembers || serviceQuery)
+                finder.index = new ClassIndex ();
             if (verbose) {
                 System.out.println ("looking for class:");
                 for (i = 0; i < classFilters.size (); i++)
@@ -192,41 +1088,225 @@ public class FindClass {
                 for (String directory: directories)
                     System.out.print ("\t directory: " + directory);
             }
-            archives = DirectoryHelper.list (directories.toArray (new String [directories.size ()]), jarFilters.toArray (new String [] {}), DirectoryHelper.RECURSE_DIRECTORIES);
-            classFilterArray = classFilters.toArray (new String [] {});
-            for (i = 0; i < archives.length; i++) {
-                if (verbose)
-                    System.out.println (i + "\t\"" + archives [i] + "\"");
-                zipHelper = new ZipHelper (archives [i]);
-                try {
-                    entries = zipHelper.getNames (classFilterArray, ZipHelper.WITHOUT_DIRECTORIES);
-                    if (entries.length > 0) {
-                        System.out.print (archives [i]);
-                        pom = new PomHelper (zipHelper,archives[i]);
-                        if (pom != null)
-                            System.out.print ("; Group: " +
-                                    ((pom.getGroupId () != null) ? pom.getGroupId () : "[inherited]" ) +
-                                    ", Artifact: " + pom.getArtifactId () +
-                                    ", Version: " + pom.getVersion () + ".");
-                        System.out.println ();
-                        for (j = 0; j < entries.length; j++)
-                            System.out.println ("\t[" + j + "]:\t\"" + entries[j] + "\"");
+            if (finder.versionHistogram)
+                limit = 0;          // the histogram counts all classes
+            if ((limit > 0) && (indexName != null)) {
+                timer = ScanStatistics.start (ScanStatistics.Phase.INDEX);
+                RecentMatches.loadCache (indexName);
+                timer.stop ();
+            }
+            timer = ScanStatistics.start (ScanStatistics.Phase.TRAVERSAL);
+            if (!scanning)
+                archives = new String [] {};
+            else if (limit > 0)
+                archives = prioritize (directories, jarFilters.toArray (new String [] {}));
+            else
+                archives = DirectoryHelper.list (directories.toArray (new String [directories.size ()]), jarFilters.toArray (new String [] {}), DirectoryHelper.RECURSE_DIRECTORIES);
+            timer.stop ();
+            finder.classFilterArray = (classFilters.size () > 0) ? classFilters.toArray (new String [] {}) : null;
+            finder.rootFilterArray = (finder.packageFilterArray == null) ? finder.classFilterArray : null;
+            if (scanning && (classFiles.size () > 0)) {
+                if (indexName != null) {
+                    timer = ScanStatistics.start (ScanStatistics.Phase.INDEX);
+                    ClassesDirectory.loadCache (indexName);
+                    timer.stop ();
+                }
+                timer = ScanStatistics.start (ScanStatistics.Phase.TRAVERSAL);
+                ClassesDirectory.findRoots (directories.toArray (new String [directories.size ()]), roots, looseClasses);
+                timer.stop ();
+            }
+            if (jdk && (finder.classFilterArray != null)) {
+                if (indexName != null) {
+                    timer = ScanStatistics.start (ScanStatistics.Phase.INDEX);
+                    JrtHelper.loadCache (indexName);
+                    timer.stop ();
+                }
+                timer = ScanStatistics.start (ScanStatistics.Phase.TRAVERSAL);
+                finder.jrt = new JrtHelper (javaHome);
+                modules = finder.jrt.getModules ();
+                timer.stop ();
+            }
+            System.out.flush ();
+            out = new HitWriter (format);
+            timer = ScanStatistics.start (ScanStatistics.Phase.SCAN);
+            // daemon threads, so that searches cancelled by -first or -limit do not delay the end
+            executor = Executors.newFixedThreadPool (Math.min (threads, Math.max (1, archives.length + modules.length + roots.size ())),
+                                                     new ThreadFactory () {
+                @Override
+                public Thread newThread (Runnable runnable) {
+                    Thread thread = Executors.defaultThreadFactory ().newThread (runnable);
+
+                    thread.setDaemon (true);
+                    return (thread);
+                }
+            });
+            remaining = (limit > 0) ? limit : Long.MAX_VALUE;
+            try {
+                if (limit > 0) {
+                    // the hits are taken as they are found; classes directories and modules first
+                    completion = new ExecutorCompletionService <> (executor);
+                    for (String root: roots)
+                        matches.add (completion.submit (ScanMetrics.measure (finder.rootTask (root))));
+                    for (String module: modules)
+                        matches.add (completion.submit (ScanMetrics.measure (finder.moduleTask (module))));
+                    for (i = 0; i < archives.length; i++)
+                        matches.add (completion.submit (ScanMetrics.measure (finder.scanTask (archives [i],
+                                                                         (finder.index != null) && !finder.index.isUpToDate (archives [i], finder.indexMembers)))));
+                }
+                else {
+                    for (i = 0; i < archives.length; i++)
+                        matches.add (executor.submit (ScanMetrics.measure (finder.scanTask (archives [i],
+                                                                       (finder.index != null) && !finder.index.isUpToDate (archives [i], finder.indexMembers)))));
+                    for (String module: modules)
+                        matches.add (executor.submit (ScanMetrics.measure (finder.moduleTask (module))));
+                    for (String root: roots)
+                        matches.add (executor.submit (ScanMetrics.measure (finder.rootTask (root))));
+                }
+                // a closed output (e.g. "| head") ends the search like -first or -limit
+                for (i = 0; (i < matches.size ()) && (remaining > 0l) && !out.isBroken (); i++) {
+                    match = getMatch ((completion != null) ? takeMatch (completion) : matches.get (i));
+                    if ((match.message == null) && (match.entries.length > 0)) {
+                        if (match.entries.length > remaining)
+                            truncate (match, (int) remaining);
+                        if (limit > 0)
+                            remaining -= match.entries.length;
+                        if (limit > 0)
+                            RecentMatches.add (match.archive);
+                    }
+                    if (verbose)
+                        out.line (i + "\t\"" + match.archive + "\"");
+                    if (match.classes != null) {
+                        finder.index.update (match.classes);
+                        ScanMetrics.indexSize (finder.index.getArchiveCount (), finder.index.getSymbolCount (), -1l);
+                    }
+                    if ((statistics != null) && (match.message == null) && (match.entries.length > 0)) {
+                        ScanStatistics.count (ScanStatistics.Counter.ARCHIVES_MATCHED, 1l);
+                        ScanStatistics.count (ScanStatistics.Counter.HITS, match.entries.length);
+                    }
+                    output = ScanStatistics.start (ScanStatistics.Phase.OUTPUT);
+                    if (match.message != null)
+                        out.line (match.message);
+                    else if (finder.versionHistogram) {
+                        for (int version: match.versions)
+                            countVersion (histogram, version);
                     }
+                    else if (match.entries.length > 0)
+                        out.archive (match.archive, match.pom, match.module, match.entries, match.versions, match.details);
+                    output.stop ();
                 }
-                catch (FileNotFoundException fnfe) {
-                    System.out.println ("File: \"" + archives [i] + "\" does not exist, ignored");
+            }
+            finally {
+                executor.shutdownNow ();    // cancels the searches not needed for -first or -limit
+                if (finder.jrt != null)
+                    finder.jrt.close ();
+            }
+            timer.stop ();
+            timer = ScanStatistics.start (ScanStatistics.Phase.INDEX);
+            if ((indexName != null) && (roots.size () > 0))
+                ClassesDirectory.saveCache (indexName);
+            if ((indexName != null) && (limit > 0))
+                RecentMatches.saveCache (indexName);
+            timer.stop ();
+            if (verbose) {
+                out.line ("coordinates resolved by:");
+                for (Map.Entry <String, Long> count: finder.gavResolver.getCounts ().entrySet ())
+                    out.line ("\t" + count.getKey () + ":\t" + count.getValue ());
+            }
+            // class files outside of classes directories are matched by their file names only
+            classFilePatterns = ZipHelper.compileFilters (classFiles.toArray (new String [] {}), ZipHelper.DEFAULT_FILTER_OPTIONS);
+            for (i = looseClasses.size () - 1; i >= 0; i--)
+                if (!ZipHelper.matches (classFilePatterns, new File (looseClasses.get (i)).getName ()))
+                    looseClasses.remove (i);
+            classes = looseClasses.toArray (new String [looseClasses.size ()]);
+            timer = ScanStatistics.start (ScanStatistics.Phase.OUTPUT);
+            for (i = 0; (i < classes.length) && (remaining > 0l) && !out.isBroken (); i++) {
+                if (verbose)
+                    out.line (i + "\t\"" + classes [i] + "\"");
+                detail = null;
+                if ((finder.references != null) || (finder.annotations != null)) {
+                    try (InputStream in = new FileInputStream (classes [i])) {
+                        match = new Match (classes [i]);
+                        match.entries = new String [] {classes [i]};
+                        finder.filterClasses (match, in);
+                    }
+                    catch (IOException ioe) {
+                        continue;   // an unreadable (e.g. meanwhile deleted) class file cannot match anything
+                    }
+                    if (match.entries.length <= 0)
+                        continue;
+                    detail = match.details [0];
                 }
-                catch (ZipException ze) {
-                    // O.K. "archives [i]" calls itself a JAR, but isn't.  Naughty little bugger, but we don't have to care at this point.
+                if (finder.versionHistogram || finder.classVersion) {
+                    try {
+                        j = ClassFileHelper.readVersion (classes [i], header);
+                    }
+                    catch (IOException ioe) {
+                        j = -1;
+                    }
+                    if (finder.versionHistogram)
+                        countVersion (histogram, j);
+                    else
+                        out.file (classes [i], formatVersion (j), detail);
                 }
+                else
+                    out.file (classes [i], null, detail);
+                ScanStatistics.count (ScanStatistics.Counter.HITS, 1l);
+                if (limit > 0)
+                    remaining--;
+            }
+            if (finder.versionHistogram) {
+                out.line ("class file versions:");
+                for (Map.Entry <Integer, Long> count: histogram.entrySet ())
+                    out.line ("\t" + formatVersion (count.getKey ()) + ":\t" + count.getValue ());
             }
-            classes = DirectoryHelper.list (directories.toArray (new String [directories.size ()]),
-                                            classFiles.toArray (new String [] {}), DirectoryHelper.RECURSE_DIRECTORIES);
-            for (i = 0; i < classes.length; i++) {
+            timer.stop ();
+            timer = ScanStatistics.start (ScanStatistics.Phase.INDEX);
+            if ((finder.jrt != null) && (indexName != null))
+                JrtHelper.saveCache (indexName);
+            if (finder.index != null) {
+                if (scanning)
+                    finder.index.removeMissing ();
                 if (verbose)
-                    System.out.println (i + "\t\"" + classes [i] + "\"");
-                System.out.println (classes [i]);
+                    out.line ("index: " + finder.index.getArchiveCount () + " archives, " +
+                                        finder.index.getClassCount () + " classes, " +
+                                        finder.index.getMethodCount () + " methods, " +
+                                        finder.index.getFieldCount () + " fields, " +
+                                        finder.index.getSymbolCount () + " symbols");
+                if ((indexName != null) && finder.index.isModified ()) {
+                    finder.index.save (indexName);
+                    ScanMetrics.indexSize (finder.index.getArchiveCount (), finder.index.getSymbolCount (), new File (indexName).length ());
+                }
+                timer.stop ();
+                timer = ScanStatistics.start (ScanStatistics.Phase.OUTPUT);
+                if (verbose && (indexName != null) && (finder.index.getMethodCount () > 0))
+                    out.line ("index size: " + new File (indexName).length () + " bytes, " +
+                                        (new File (indexName).length () * 1000000L / finder.index.getMethodCount ()) +
+                                        " bytes per million methods");
+                for (String type: subtypes)
+                    if (remaining > 0l)
+                        remaining -= writeQuery (out, "subtypes of", type, finder.index.getSubtypes (type), remaining);
+                if (serviceQuery && (services.size () <= 0))
+                    services.addAll (finder.index.getServices ());
+                for (String service: services)
+                    if (remaining > 0l)
+                        remaining -= writeQuery (out, "service", service, finder.index.getProviders (service), remaining);
+                for (String method: methods)
+                    if (remaining > 0l)
+                        remaining -= writeQuery (out, "method", method, finder.index.getMethods (method), remaining);
+                for (String field: fields)
+                    if (remaining > 0l)
+                        remaining -= writeQuery (out, "field", field, finder.index.getFields (field), remaining);
+            }
+            out.close ();
+            timer.stop ();
+            if (statistics != null) {
+                if ("json".equals (statsFormat))
+                    statistics.printJson (System.err);
+                else
+                    statistics.print (System.err);
             }
+            if (metrics != null)
+                metrics.stop ();
         }
     }
 
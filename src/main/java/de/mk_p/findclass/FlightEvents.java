@@ -0,0 +1,91 @@
+package de.mk_p.findclass;
+
+/**
+ * <p>
+ * Meldet die Arbeit der Suche als eigene Ereignisse an den Java Flight Recorder, so dass Verzeichnisse, Archive,
+ * POM Dateien und Index-Abfragen in einer Aufzeichnung neben GC und I/O erscheinen.
+ * </p>
+ * <p>
+ * Die Ereignistypen (siehe {@linkplain JfrEvents}) werden nur geladen, falls die Laufzeitumgebung
+ * <q>jdk.jfr</q> enth&auml;lt.  Ohne Aufzeichnung, die sie einschaltet, liefern alle Methoden eine Messung, die
+ * nichts tut.
+ * </p>
+ */
+
+public final class FlightEvents {
+
+    /**
+     * <p>
+     * Ein begonnenes Ereignis.
+     * </p>
+     */
+    public interface Span {
+
+        /**
+         * <p>
+         * Beendet das Ereignis und schreibt es in die Aufzeichnung.
+         * </p>
+         *
+         * @param  entries  Die Anzahl der Eintr&auml;ge (Dateien, Eintr&auml;ge eines Archivs, Treffer).
+         * @param  bytes    Die Anzahl der Bytes, oder: <q>0</q>.
+         * @param  outcome  Das Ergebnis, z.B. <q>opened</q> oder <q>not found</q>.
+         */
+        void finish (long entries, long bytes, String outcome);
+    }
+
+    static final Span               NONE =      new Span () {
+        @Override
+        public void finish (long entries, long bytes, String outcome) {
+        }
+    };
+
+    private static final boolean    AVAILABLE = isAvailable ();
+
+    private FlightEvents () {
+    }
+
+    private static boolean isAvailable () {
+        try {
+            Class.forName ("jdk.jfr.Event", false, FlightEvents.class.getClassLoader ());
+            return (true);
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return (false);
+        }
+    }
+
+    /**
+     * @param  directory    Der Ordner, dessen Dateien gelesen werden.
+     */
+    public static Span directoryList (String directory) {
+        return ((AVAILABLE) ? JfrEvents.directoryList (directory) : NONE);
+    }
+
+    /**
+     * @param  archive      Das Archiv, das ge&ouml;ffnet wird.
+     */
+    public static Span archiveOpen (String archive) {
+        return ((AVAILABLE) ? JfrEvents.archiveOpen (archive) : NONE);
+    }
+
+    /**
+     * @param  archive      Das Archiv, dessen zentrales Verzeichnis durchlaufen wird.
+     */
+    public static Span centralDirectoryScan (String archive) {
+        return ((AVAILABLE) ? JfrEvents.centralDirectoryScan (archive) : NONE);
+    }
+
+    /**
+     * @param  archive      Das Archiv, dessen Maven Koordinaten ermittelt werden.
+     */
+    public static Span pomResolution (String archive) {
+        return ((AVAILABLE) ? JfrEvents.pomResolution (archive) : NONE);
+    }
+
+    /**
+     * @param  query        Die Abfrage, z.B. <q>subtypes javax.sql.DataSource</q>.
+     */
+    public static Span indexLookup (String query) {
+        return ((AVAILABLE) ? JfrEvents.indexLookup (query) : NONE);
+    }
+}
@@ -0,0 +1,224 @@
+package de.mk_p.findclass;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Ermittelt die Maven Koordinaten (<q>groupId</q>, <q>artifactId</q>, <q>version</q>) eines Archivs &uuml;ber eine
+ * Kette von Verfahren, die nacheinander versucht werden:
+ * </p>
+ * <ol>
+ * <li>Aus dem Pfad eines lokalen Maven Repositorys
+ *     (<q>.../repository/&lt;group&gt;/&lt;artifact&gt;/&lt;version&gt;/&lt;artifact&gt;-&lt;version&gt;.jar</q>).
+ *     Liegt das Archiv im konfigurierten lokalen Repository (<q>maven.repo.local</q> bzw. <q>~/.m2/repository</q>),
+ *     beginnt die <q>groupId</q> unterhalb davon, sonst unterhalb des &auml;u&szlig;ersten Verzeichnisses
+ *     <q>repository</q>.</li>
+ * <li>Aus dem Pfad des Gradle Zwischenspeichers
+ *     (<q>.../modules-2/files-2.1/&lt;group&gt;/&lt;artifact&gt;/&lt;version&gt;/&lt;hash&gt;/&lt;file&gt;</q>).</li>
+ * <li>Aus der Datei <q>pom.properties</q> im Archiv.</li>
+ * <li>Aus der <q>.pom</q> Datei neben dem Archiv.</li>
+ * </ol>
+ * <p>
+ * Die ersten beiden Verfahren werten nur den Namen des Archivs aus und ben&ouml;tigen keinen Dateizugriff; das Archiv
+ * wird nur f&uuml;r Archive au&szlig;erhalb dieser Verzeichnisstrukturen ge&ouml;ffnet.
+ * F&uuml;r jedes Verfahren wird gez&auml;hlt, wie viele Archive damit aufgel&ouml;st wurden.
+ * Instanzen k&ouml;nnen von mehreren {@linkplain java.lang.Thread Threads} gleichzeitig verwendet werden.
+ * </p>
+ */
+
+public class GavResolver {
+
+    /**
+     * <p>
+     * Ein Verfahren zur Ermittlung der Koordinaten.
+     * </p>
+     */
+    public interface Strategy {
+        String getName ();
+
+        /**
+         * @return Die Koordinaten, oder: <q>null</q> falls das Verfahren das Archiv nicht aufl&ouml;sen kann.
+         */
+        PomHelper resolve (ZipHelper.Session session, String archiveName);
+    }
+
+    public static final String              UNRESOLVED =        "unresolved";
+
+    private static final String             MAVENREPOSITORY =   "repository";
+    private static final String             GRADLECACHE =       "files-2.1";
+    private static final String []          LOCALREPOSITORY =   split (normalize (System.getProperty ("maven.repo.local",
+                                                                      System.getProperty ("user.home") + "/.m2/repository")));
+
+    /**
+     * <p>
+     * Die Koordinaten aus dem Pfad eines lokalen Maven Repositorys.
+     * </p>
+     */
+    public static final Strategy            MAVEN_LAYOUT =      new Strategy () {
+        @Override
+        public String getName () {
+            return ("maven repository");
+        }
+
+        @Override
+        public PomHelper resolve (ZipHelper.Session session, String archiveName) {
+            int             i;
+            int             root;
+            String []       segments =  split (normalize (archiveName));
+            String          artifactId;
+            String          version;
+            StringBuilder   groupId;
+
+            if (segments.length < 5)
+                return (null);
+            artifactId = segments [segments.length - 3];
+            version = segments [segments.length - 2];
+            if (!segments [segments.length - 1].startsWith (artifactId + "-" + version))
+                return (null);
+            if ((root = getRepositoryRoot (segments)) < 0)
+                for (root = 0; (root < segments.length - 4) && !MAVENREPOSITORY.equals (segments [root]); root++)
+                    ;
+            if (root >= segments.length - 4)
+                return (null);
+            groupId = new StringBuilder (segments [root + 1]);
+            for (i = root + 2; i < segments.length - 3; i++)
+                groupId.append ('.').append (segments [i]);
+            return (new PomHelper ("", groupId.toString (), artifactId, version));
+        }
+    };
+
+    /**
+     * <p>
+     * Die Koordinaten aus dem Pfad des Gradle Zwischenspeichers.
+     * </p>
+     */
+    public static final Strategy            GRADLE_LAYOUT =     new Strategy () {
+        @Override
+        public String getName () {
+            return ("gradle cache");
+        }
+
+        @Override
+        public PomHelper resolve (ZipHelper.Session session, String archiveName) {
+            String []       segments =  split (archiveName);
+            int             root =      segments.length - 6;
+
+            if ((root < 0) || !GRADLECACHE.equals (segments [root]))
+                return (null);
+            return (new PomHelper ("", segments [root + 1], segments [root + 2], segments [root + 3]));
+        }
+    };
+
+    /**
+     * <p>
+     * Die Koordinaten aus der Datei <q>pom.properties</q> im Archiv.
+     * </p>
+     */
+    public static final Strategy            POM_PROPERTIES =    new Strategy () {
+        @Override
+        public String getName () {
+            return ("pom.properties");
+        }
+
+        @Override
+        public PomHelper resolve (ZipHelper.Session session, String archiveName) {
+            return (PomHelper.fromProperties (session));
+        }
+    };
+
+    /**
+     * <p>
+     * Die Koordinaten aus der <q>.pom</q> Datei neben dem Archiv.
+     * </p>
+     */
+    public static final Strategy            POM_FILE =          new Strategy () {
+        @Override
+        public String getName () {
+            return ("pom file");
+        }
+
+        @Override
+        public PomHelper resolve (ZipHelper.Session session, String archiveName) {
+            return (PomHelper.fromPomFile (archiveName));
+        }
+    };
+
+    private Strategy []                     strategies;
+    private Map <String, AtomicLong>        counts =            new LinkedHashMap <> ();
+
+    public GavResolver () {
+        this (MAVEN_LAYOUT, GRADLE_LAYOUT, POM_PROPERTIES, POM_FILE);
+    }
+
+    public GavResolver (Strategy ... strategies) {
+        this.strategies = strategies;
+        for (Strategy strategy: strategies)
+            counts.put (strategy.getName (), new AtomicLong ());
+        counts.put (UNRESOLVED, new AtomicLong ());
+    }
+
+    private static String [] split (String archiveName) {
+        return (archiveName.replace (File.separatorChar, '/').split ("/"));
+    }
+
+    private static String normalize (String filename) {
+        return (new File (filename).getAbsoluteFile ().toPath ().normalize ().toString ());
+    }
+
+    /**
+     * @return Der Index des letzten Segments des konfigurierten lokalen Maven Repositorys (<q>maven.repo.local</q>
+     *         bzw. <q>~/.m2/repository</q>), oder: <q>-1</q> falls der Pfad nicht darin liegt.
+     */
+    private static int getRepositoryRoot (String [] segments) {
+        int i;
+
+        if (segments.length <= LOCALREPOSITORY.length)
+            return (-1);
+        for (i = 0; i < LOCALREPOSITORY.length; i++)
+            if (!LOCALREPOSITORY [i].equals (segments [i]))
+                return (-1);
+        return (LOCALREPOSITORY.length - 1);
+    }
+
+    /**
+     * <p>
+     * Ermittelt die Koordinaten eines Archivs mit dem ersten Verfahren, das sie liefern kann.
+     * </p>
+     *
+     * @param  session      Die Sitzung des Archivs; es wird nur ge&ouml;ffnet, falls ein Verfahren den Inhalt
+     *                      ben&ouml;tigt.
+     * @param  archiveName  Der Name des Archivs.
+     * @return Die Koordinaten, oder: <q>null</q> falls keines der Verfahren das Archiv aufl&ouml;sen kann.
+     */
+    public PomHelper resolve (ZipHelper.Session session, String archiveName) {
+        PomHelper           retVal;
+        FlightEvents.Span   event =     FlightEvents.pomResolution (archiveName);
+
+        for (Strategy strategy: strategies)
+            if ((retVal = strategy.resolve (session, archiveName)) != null) {
+                counts.get (strategy.getName ()).incrementAndGet ();
+                event.finish (1l, 0l, strategy.getName ());
+                return (retVal);
+            }
+        counts.get (UNRESOLVED).incrementAndGet ();
+        event.finish (0l, 0l, UNRESOLVED);
+        return (null);
+    }
+
+    /**
+     * <p>
+     * Liefert f&uuml;r jedes Verfahren (in der Reihenfolge der Kette) und f&uuml;r <q>unresolved</q> die Anzahl
+     * der damit aufgel&ouml;sten Archive.
+     * </p>
+     */
+    public Map <String, Long> getCounts () {
+        Map <String, Long>  retVal = new LinkedHashMap <> ();
+
+        for (Map.Entry <String, AtomicLong> count: counts.entrySet ())
+            retVal.put (count.getKey (), count.getValue ().get ());
+        return (retVal);
+    }
+}
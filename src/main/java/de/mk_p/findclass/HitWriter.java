@@ -0,0 +1,435 @@
+package de.mk_p.findclass;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>
+ * Gibt die Treffer einer Suche aus (Schalter <q>-format</q>): als Text wie bisher, als <q>NDJSON</q> (ein JSON Objekt
+ * je Zeile) oder als <q>CSV</q> mit einer Kopfzeile.  In den beiden maschinenlesbaren Formaten ist jeder Treffer
+ * ein Datensatz mit den Feldern <q>archive</q>, <q>entry</q>, <q>class</q> (voll qualifizierter Klassenname),
+ * <q>gav</q> (<q>groupId:artifactId:version</q>), <q>version</q>, <q>detail</q> und <q>query</q>; Meldungen werden
+ * dann auf die Standardfehlerausgabe geschrieben.
+ * </p>
+ * <p>
+ * Die Aufrufer &uuml;bergeben ganze Bl&ouml;cke (die Treffer eines Archivs, das Ergebnis einer Abfrage) an eine
+ * Warteschlange.  Ein eigener Thread formatiert sie und schreibt sie &uuml;ber einen gro&szlig;en Puffer, so dass
+ * die Suche nicht auf die Ausgabe wartet.  Erst {@linkplain #close() close} wartet, bis alles geschrieben ist.
+ * </p>
+ * <p>
+ * Kann die Ausgabe nicht mehr geschrieben werden, z.B. weil der Leser einer Pipe (<q>| head</q>) beendet wurde, ist
+ * sie damit zu Ende: alle weiteren Bl&ouml;cke werden verworfen und {@linkplain #isBroken() isBroken} meldet dem
+ * Aufrufer, dass er die Suche beenden kann.
+ * </p>
+ */
+
+public class HitWriter implements Closeable {
+    public static final int     BUFFERSIZE =    0x40000;
+    public static final int     QUEUESIZE =     0x400;
+
+    private static final String []  PREFIXES =  {"BOOT-INF/classes/", "WEB-INF/classes/", "classes/"};
+    private static final String     VERSIONS =  "META-INF/versions/";
+    private static final String     CSVHEADER = "archive,entry,class,gav,version,detail,query";
+
+    /**
+     * <p>
+     * Die Formate der Ausgabe.
+     * </p>
+     */
+    public enum Format {
+        TEXT, NDJSON, CSV;
+
+        /**
+         * @return Das Format mit dem Namen <q>name</q> (ohne Beachtung der Gro&szlig;-/Kleinschreibung), oder:
+         *         <q>null</q>.
+         */
+        public static Format parse (String name) {
+            for (Format format: values ())
+                if (format.name ().equalsIgnoreCase (name))
+                    return (format);
+            return (null);
+        }
+    }
+
+    /**
+     * <p>
+     * Ein Teil der Ausgabe, der im Thread der Ausgabe formatiert und geschrieben wird.
+     * </p>
+     */
+    private abstract static class Block {
+        abstract void write (HitWriter writer) throws IOException;
+    }
+
+    private static final Block      END =       new Block () {
+        @Override
+        void write (HitWriter writer) {
+        }
+    };
+
+    private final Format                    format;
+    private final Writer                    out;
+    private final BlockingQueue <Block>     queue =     new ArrayBlockingQueue <> (QUEUESIZE);
+    private final Thread                    thread;
+    private final StringBuilder             record =    new StringBuilder ();
+    private volatile IOException            failure;
+    private boolean                         closed;
+
+    /**
+     * <p>
+     * Schreibt auf die Standardausgabe.
+     * </p>
+     */
+    public HitWriter (Format format) {
+        this (format, new FileOutputStream (FileDescriptor.out));
+    }
+
+    public HitWriter (Format format, OutputStream out) {
+        Charset charset = (format == Format.TEXT) ? Charset.defaultCharset () : StandardCharsets.UTF_8;
+
+        this.format =   format;
+        this.out =      new BufferedWriter (new OutputStreamWriter (out, charset), BUFFERSIZE);
+        this.thread =   new Thread (new Runnable () {
+            @Override
+            public void run () {
+                drain ();
+            }
+        }, "hit writer");
+        thread.setDaemon (true);
+        if (format == Format.CSV)
+            submit (new Block () {
+                @Override
+                void write (HitWriter writer) throws IOException {
+                    writer.out.write (CSVHEADER);
+                    writer.out.write ('\n');
+                }
+            });
+        thread.start ();
+    }
+
+    public Format getFormat () {
+        return (format);
+    }
+
+    /**
+     * @return <q>true</q> falls die Ausgabe nicht mehr geschrieben werden kann; alle weiteren Treffer werden
+     *         verworfen.
+     */
+    public boolean isBroken () {
+        return (failure != null);
+    }
+
+    private void drain () {
+        Block block;
+
+        try {
+            while ((block = queue.take ()) != END)
+                if (failure == null)
+                    try {
+                        block.write (this);
+                    }
+                    catch (IOException ioe) {
+                        failure = ioe;     // keep taking blocks, so that the search is not blocked
+                    }
+            if (failure == null)
+                out.flush ();
+        }
+        catch (InterruptedException ie) {
+            failure = new InterruptedIOException ("interrupted while writing hits");
+        }
+        catch (IOException ioe) {
+            failure = ioe;
+        }
+    }
+
+    private void submit (Block block) {
+        try {
+            queue.put (block);
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+
+    /**
+     * <p>
+     * Gibt die Treffer eines Archivs, Moduls oder Verzeichnisses aus.
+     * </p>
+     *
+     * @param  archive  Der Name des Archivs.
+     * @param  pom      Die Maven Koordinaten des Archivs, oder: <q>null</q>.
+     * @param  module   Der Name des Moduls, oder: <q>null</q>.
+     * @param  entries  Die Namen der gefundenen Eintr&auml;ge.
+     * @param  versions Die Versionen der Eintr&auml;ge, oder: <q>null</q>.
+     * @param  details  Die gefundenen Verweise bzw. Annotationen der Eintr&auml;ge, oder: <q>null</q>.
+     */
+    public void archive (final String archive, final PomHelper pom, final String module, final String [] entries,
+                         final int [] versions, final String [] details) {
+        submit (new Block () {
+            @Override
+            void write (HitWriter writer) throws IOException {
+                int     i;
+                String  gav =   null;
+
+                if (writer.format == Format.TEXT) {
+                    writer.out.write (archive);
+                    if (pom != null)
+                        writer.out.write ("; Group: " + ((pom.getGroupId () != null) ? pom.getGroupId () : "[inherited]") +
+                                          ", Artifact: " + pom.getArtifactId () + ", Version: " + pom.getVersion () + ".");
+                    else if (module != null)
+                        writer.out.write ("; Module: " + module + ".");
+                    writer.out.write ('\n');
+                    for (i = 0; i < entries.length; i++) {
+                        writer.out.write ("\t[");
+                        writer.out.write (Integer.toString (i));
+                        writer.out.write ("]:\t\"");
+                        writer.out.write (entries [i]);
+                        writer.out.write ('"');
+                        writer.writeDetails ((versions != null) ? FindClass.formatVersion (versions [i]) : null,
+                                             (details != null) ? details [i] : null);
+                        writer.out.write ('\n');
+                    }
+                }
+                else {
+                    if (pom != null)
+                        gav = ((pom.getGroupId () != null) ? pom.getGroupId () : "") + ":" + pom.getArtifactId () + ":" +
+                              ((pom.getVersion () != null) ? pom.getVersion () : "");
+                    for (i = 0; i < entries.length; i++)
+                        writer.writeRecord (archive, entries [i], toClassName (entries [i]), gav,
+                                            (versions != null) ? FindClass.formatVersion (versions [i]) : null,
+                                            (details != null) ? details [i] : null, null);
+                }
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Gibt eine Klassendatei au&szlig;erhalb von Archiven und Verzeichnissen mit &uuml;bersetzten Klassen aus.
+     * Ihr Paket ist unbekannt, daher bleibt der Klassenname in den maschinenlesbaren Formaten leer.
+     * </p>
+     *
+     * @param  version  Die Version der Klassendatei, oder: <q>null</q>.
+     * @param  detail   Die gefundenen Verweise bzw. Annotationen, oder: <q>null</q>.
+     */
+    public void file (final String path, final String version, final String detail) {
+        submit (new Block () {
+            @Override
+            void write (HitWriter writer) throws IOException {
+                if (writer.format == Format.TEXT) {
+                    writer.out.write (path);
+                    writer.writeDetails (version, detail);
+                    writer.out.write ('\n');
+                }
+                else
+                    writer.writeRecord (null, path, null, null, version, detail, null);
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Gibt das Ergebnis einer Abfrage des {@linkplain ClassIndex Index} aus.
+     * </p>
+     *
+     * @param  kind     Die Art der Abfrage, z.B. <q>subtypes of</q> oder <q>service</q>.
+     * @param  argument Das Argument der Abfrage, z.B. <q>javax.sql.DataSource</q>.
+     * @param  results  Die gefundenen Klassen bzw. Methoden oder Felder mit den Namen ihrer Archive.
+     */
+    public void query (final String kind, final String argument, final Map <String, List <String>> results) {
+        submit (new Block () {
+            @Override
+            void write (HitWriter writer) throws IOException {
+                int     position;
+                String  query =     kind + " " + argument;
+                String  name;
+
+                if (writer.format == Format.TEXT)
+                    writer.out.write (query + ":\n");
+                for (Map.Entry <String, List <String>> result: results.entrySet ()) {
+                    // methods and fields are "type#name descriptor"
+                    position = result.getKey ().indexOf ('#');
+                    name = (position >= 0) ? result.getKey ().substring (0, position) : result.getKey ();
+                    for (String archive: result.getValue ())
+                        if (writer.format == Format.TEXT) {
+                            writer.out.write ('\t');
+                            writer.out.write (result.getKey ());
+                            writer.out.write ("\t(");
+                            writer.out.write (archive);
+                            writer.out.write (")\n");
+                        }
+                        else
+                            writer.writeRecord (archive, null, name, null, null, (position >= 0) ? result.getKey () : null, query);
+                }
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Gibt eine Meldung aus: im Textformat in der Reihenfolge der Treffer, sonst sofort auf die
+     * Standardfehlerausgabe.
+     * </p>
+     */
+    public void line (final String text) {
+        if (format != Format.TEXT)
+            System.err.println (text);
+        else
+            submit (new Block () {
+                @Override
+                void write (HitWriter writer) throws IOException {
+                    writer.out.write (text);
+                    writer.out.write ('\n');
+                }
+            });
+    }
+
+    /**
+     * <p>
+     * Wartet, bis alles geschrieben ist.
+     * Konnte die Ausgabe nicht geschrieben werden, ist das kein Fehler sondern ihr Ende (siehe
+     * {@linkplain #isBroken() isBroken}).
+     * </p>
+     *
+     * @throws IOException  Falls das Warten unterbrochen wurde.
+     */
+    @Override
+    public void close () throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        submit (END);
+        try {
+            thread.join ();
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread ().interrupt ();
+            throw new InterruptedIOException ("interrupted while writing hits");
+        }
+    }
+
+    private void writeDetails (String version, String detail) throws IOException {
+        if (version != null) {
+            out.write ("\t(");
+            out.write (version);
+            out.write (')');
+        }
+        if (detail != null) {
+            out.write ("\t(");
+            out.write (detail);
+            out.write (')');
+        }
+    }
+
+    /**
+     * <p>
+     * Liefert den voll qualifizierten Namen der Klasse eines Eintrags, z.B. <q>java.lang.String</q> f&uuml;r
+     * <q>BOOT-INF/classes/java/lang/String.class</q>.
+     * </p>
+     *
+     * @return Der Name, oder: <q>null</q> falls der Eintrag keine Klassendatei ist.
+     */
+    static String toClassName (String entry) {
+        int position;
+
+        if (!FindClass.isClassFilename (entry))
+            return (null);
+        entry = entry.substring (0, entry.length () - ".class".length ());
+        if (entry.startsWith (VERSIONS) && ((position = entry.indexOf ('/', VERSIONS.length ())) > 0))
+            entry = entry.substring (position + 1);
+        for (String prefix: PREFIXES)
+            if (entry.startsWith (prefix)) {
+                entry = entry.substring (prefix.length ());
+                break;
+            }
+        return (entry.replace ('/', '.').replace ('\\', '.'));
+    }
+
+    private void writeRecord (String archive, String entry, String className, String gav, String version, String detail,
+                              String query) throws IOException {
+        record.setLength (0);
+        if (format == Format.NDJSON) {
+            record.append ('{');
+            appendJson ("archive", archive, false);
+            appendJson ("entry", entry, true);
+            appendJson ("class", className, true);
+            appendJson ("gav", gav, true);
+            if (version != null)
+                appendJson ("version", version, true);
+            if (detail != null)
+                appendJson ("detail", detail, true);
+            if (query != null)
+                appendJson ("query", query, true);
+            record.append ("}\n");
+        }
+        else {
+            appendCsv (archive).append (',');
+            appendCsv (entry).append (',');
+            appendCsv (className).append (',');
+            appendCsv (gav).append (',');
+            appendCsv (version).append (',');
+            appendCsv (detail).append (',');
+            appendCsv (query).append ('\n');
+        }
+        out.append (record);
+    }
+
+    private void appendJson (String name, String value, boolean separator) {
+        int     i;
+        char    c;
+
+        if (separator)
+            record.append (',');
+        record.append ('"').append (name).append ("\":");
+        if (value == null) {
+            record.append ("null");
+            return;
+        }
+        record.append ('"');
+        for (i = 0; i < value.length (); i++)
+            switch (c = value.charAt (i)) {
+                case '"':
+                case '\\':
+                    record.append ('\\').append (c);
+                    break;
+                case '\n':
+                    record.append ("\\n");
+                    break;
+                case '\r':
+                    record.append ("\\r");
+                    break;
+                case '\t':
+                    record.append ("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        record.append (String.format ("\\u%04x", (int) c));
+                    else
+                        record.append (c);
+            }
+        record.append ('"');
+    }
+
+    private StringBuilder appendCsv (String value) {
+        int i;
+
+        if (value == null)
+            return (record);
+        for (i = 0; i < value.length (); i++)
+            if ("\",\r\n".indexOf (value.charAt (i)) >= 0)
+                return (record.append ('"').append (value.replace ("\"", "\"\"")).append ('"'));
+        return (record.append (value));
+    }
+}
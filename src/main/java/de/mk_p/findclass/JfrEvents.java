@@ -0,0 +1,107 @@
+package de.mk_p.findclass;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <p>
+ * Die Ereignistypen f&uuml;r den Java Flight Recorder.
+ * Die Klasse wird nur &uuml;ber {@linkplain FlightEvents} verwendet, die pr&uuml;ft ob <q>jdk.jfr</q> vorhanden ist.
+ * </p>
+ */
+
+final class JfrEvents {
+
+    @Category ("FindClass")
+    @StackTrace (false)
+    abstract static class FindClassEvent extends Event implements FlightEvents.Span {
+        @Label ("Path")
+        String      path;
+
+        @Label ("Entries")
+        long        entries;
+
+        @Label ("Bytes")
+        @DataAmount
+        long        bytes;
+
+        @Label ("Outcome")
+        String      outcome;
+
+        @Override
+        public void finish (long entries, long bytes, String outcome) {
+            if (shouldCommit ()) {
+                this.entries =  entries;
+                this.bytes =    bytes;
+                this.outcome =  outcome;
+                commit ();
+            }
+        }
+    }
+
+    @Name ("de.mk_p.findclass.DirectoryList")
+    @Label ("Directory Listing")
+    @Description ("Reading the file names of a directory; entries are the names read")
+    static class DirectoryList extends FindClassEvent {
+    }
+
+    @Name ("de.mk_p.findclass.ArchiveOpen")
+    @Label ("Archive Open")
+    @Description ("Opening an archive; entries are the entries of its central directory, bytes the archive size")
+    static class ArchiveOpen extends FindClassEvent {
+    }
+
+    @Name ("de.mk_p.findclass.CentralDirectoryScan")
+    @Label ("Central Directory Scan")
+    @Description ("Matching the entry names of an archive; entries are the names tested")
+    static class CentralDirectoryScan extends FindClassEvent {
+    }
+
+    @Name ("de.mk_p.findclass.PomResolution")
+    @Label ("POM Resolution")
+    @Description ("Resolving the Maven coordinates of an archive; the outcome is the strategy that succeeded")
+    static class PomResolution extends FindClassEvent {
+    }
+
+    @Name ("de.mk_p.findclass.IndexLookup")
+    @Label ("Index Lookup")
+    @Description ("A query answered by the class index; entries are the results")
+    static class IndexLookup extends FindClassEvent {
+    }
+
+    private JfrEvents () {
+    }
+
+    private static FlightEvents.Span begin (FindClassEvent event, String path) {
+        if (!event.isEnabled ())
+            return (FlightEvents.NONE);
+        event.path = path;
+        event.begin ();
+        return (event);
+    }
+
+    static FlightEvents.Span directoryList (String directory) {
+        return (begin (new DirectoryList (), directory));
+    }
+
+    static FlightEvents.Span archiveOpen (String archive) {
+        return (begin (new ArchiveOpen (), archive));
+    }
+
+    static FlightEvents.Span centralDirectoryScan (String archive) {
+        return (begin (new CentralDirectoryScan (), archive));
+    }
+
+    static FlightEvents.Span pomResolution (String archive) {
+        return (begin (new PomResolution (), archive));
+    }
+
+    static FlightEvents.Span indexLookup (String query) {
+        return (begin (new IndexLookup (), query));
+    }
+}
@@ -0,0 +1,349 @@
+package de.mk_p.findclass;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>
+ * Eine Klasse zur Suche in den Modulen eines JDK, entweder &uuml;ber das Dateisystem <q>jrt:/</q> des
+ * Laufzeitabbilds (<q>lib/modules</q>) oder &uuml;ber die <q>.jmod</q> Dateien im Verzeichnis <q>jmods</q>.
+ * </p>
+ * <p>
+ * Die Schnittstelle entspricht der von {@linkplain ZipHelper#getNames(String[], long) ZipHelper}: Jedes Modul wird
+ * wie ein Archiv behandelt, dessen Eintr&auml;ge relativ zum Modul benannt sind (z.B. <q>java/lang/String.class</q>).
+ * </p>
+ * <p>
+ * Die Pakete eines Moduls und die Namen seiner Eintr&auml;ge werden pro JDK zwischengespeichert und k&ouml;nnen mit
+ * {@linkplain #saveCache(String) saveCache} in einem Zip-Archiv abgelegt werden, so dass wiederholte Suchen das
+ * Abbild nicht erneut vollst&auml;ndig durchlaufen m&uuml;ssen.
+ * </p>
+ */
+
+public class JrtHelper implements Closeable {
+
+    /**
+     * <p>
+     * Der Anfang der Namen unter denen die Module des Laufzeitabbilds ausgegeben werden.
+     * </p>
+     */
+    public static final String  JRTPREFIX =     "jrt:/";
+
+    /**
+     * <p>
+     * Der Name des Eintrags unter dem die Zwischenspeicher im Zip-Archiv abgelegt werden.
+     * </p>
+     */
+    public static final String  CACHEENTRYNAME = "jrtcache";
+
+    private static final String MODULES =       "lib" + File.separator + "modules";
+    private static final String JMODS =         "jmods";
+    private static final String JMODSUFFIX =    ".jmod";
+    private static final String JMODCLASSES =   "classes/";
+    private static final int    JMODPOOLSIZE =  16;         // .jmod files kept open at the same time
+
+    /**
+     * <p>
+     * Die Pakete und Eintr&auml;ge der Module eines JDK.
+     * Die Eintr&auml;ge eines Moduls werden erst bei der ersten Suche in diesem Modul ermittelt.
+     * </p>
+     */
+    private static class Listing implements Serializable {
+        private static final long serialVersionUID = 1l;
+
+        private long                        modified;
+        private Map <String, String []>     packages =  new TreeMap <> ();
+        private Map <String, String []>     names =     new ConcurrentHashMap <> ();
+    }
+
+    private static Map <String, Listing>    listings =      new HashMap <> ();
+    private static boolean                  cacheModified;
+
+    private String      javaHome;
+    private File        image;
+    private boolean     jmods;
+    private FileSystem  fileSystem;
+    private ZipHelper.SessionPool jmodFiles =   new ZipHelper.SessionPool (JMODPOOLSIZE);
+
+    /**
+     * @param  javaHome Das Installationsverzeichnis des JDK, oder: <q>null</q> f&uuml;r das laufende JDK.
+     * @throws FileNotFoundException    Falls das Verzeichnis weder ein Laufzeitabbild noch <q>.jmod</q> Dateien
+     *                                  enth&auml;lt.
+     * @throws IOException              Falls das Verzeichnis nicht ermittelt werden kann.
+     */
+    public JrtHelper (String javaHome) throws FileNotFoundException, IOException {
+        this.javaHome = new File ((javaHome != null) ? javaHome : System.getProperty ("java.home")).getCanonicalPath ();
+        if ((image = new File (this.javaHome, MODULES)).isFile ())
+            jmods = false;
+        else if ((image = new File (this.javaHome, JMODS)).isDirectory ())
+            jmods = true;
+        else
+            throw new FileNotFoundException ("neither " + MODULES + " nor " + JMODS + " in: " + this.javaHome);
+    }
+
+    public String getJavaHome () {
+        return (javaHome);
+    }
+
+    /**
+     * <p>
+     * L&auml;dt die Zwischenspeicher aller JDKs aus einem Zip-Archiv.
+     * Ein fehlendes Archiv oder ein unlesbarer Eintrag werden ignoriert.
+     * </p>
+     *
+     * @param  zipName  Der Name des Zip-Archivs.
+     */
+    @SuppressWarnings ("unchecked")
+    public static synchronized void loadCache (String zipName) {
+        Map <String, Listing>   cached =    null;
+
+        if (!new File (zipName).isFile ())
+            return;
+        try {
+            cached = new ZipHelper (zipName).getObject (CACHEENTRYNAME, cached);
+            if (cached != null)
+                listings.putAll (cached);
+        }
+        catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // the cache is rebuilt
+        }
+    }
+
+    /**
+     * <p>
+     * Speichert die Zwischenspeicher aller JDKs in einem Zip-Archiv, falls sie sich ge&auml;ndert haben.
+     * Andere Eintr&auml;ge des Archivs bleiben erhalten.
+     * </p>
+     *
+     * @param  zipName  Der Name des Zip-Archivs.
+     * @throws IOException  Falls das Archiv nicht geschrieben werden kann.
+     */
+    public static synchronized void saveCache (String zipName) throws IOException {
+        if (cacheModified) {
+            new ZipHelper (zipName).appendObject (CACHEENTRYNAME, new HashMap <> (listings));
+            cacheModified = false;
+        }
+    }
+
+    private static synchronized void modified () {
+        cacheModified = true;
+    }
+
+    private synchronized FileSystem getFileSystem () throws IOException {
+        if (fileSystem == null) {
+            try {
+                if (javaHome.equals (new File (System.getProperty ("java.home")).getCanonicalPath ()))
+                    fileSystem = FileSystems.getFileSystem (URI.create (JRTPREFIX));
+                else
+                    fileSystem = FileSystems.newFileSystem (URI.create (JRTPREFIX), Collections.singletonMap ("java.home", javaHome));
+            }
+            catch (ProviderNotFoundException | FileSystemNotFoundException e) {
+                throw new IOException ("no " + JRTPREFIX + " file system for: " + javaHome, e);
+            }
+        }
+        return (fileSystem);
+    }
+
+    private File getJmod (String module) {
+        return (new File (image, module + JMODSUFFIX));
+    }
+
+    /**
+     * <p>
+     * Liefert die Auflistung des JDK, die bei ver&auml;ndertem Abbild neu aufgebaut wird.
+     * Dabei werden nur die Pakete der Module ermittelt, nicht deren Eintr&auml;ge.
+     * </p>
+     */
+    private Listing getListing () throws IOException {
+        Listing                     listing;
+        Map <String, List <String>> packages =  new TreeMap <> ();
+        List <String>               modulePackages;
+
+        synchronized (JrtHelper.class) {
+            listing = listings.get (javaHome);
+            if ((listing != null) && (listing.modified == image.lastModified ()))
+                return (listing);
+        }
+        listing = new Listing ();
+        listing.modified = image.lastModified ();
+        if (jmods) {
+            for (File jmod: image.listFiles ())
+                if (jmod.getName ().endsWith (JMODSUFFIX))
+                    listing.names.put (jmod.getName ().substring (0, jmod.getName ().length () - JMODSUFFIX.length ()),
+                                       listJmod (jmod, packages));
+        }
+        else {
+            // "/packages/<package>/<module>" lists the modules of every package without walking the classes
+            try (DirectoryStream <Path> packageDirectories = Files.newDirectoryStream (getFileSystem ().getPath ("/packages"))) {
+                for (Path packageDirectory: packageDirectories)
+                    try (DirectoryStream <Path> modules = Files.newDirectoryStream (packageDirectory)) {
+                        for (Path module: modules) {
+                            if ((modulePackages = packages.get (module.getFileName ().toString ())) == null)
+                                packages.put (module.getFileName ().toString (), modulePackages = new ArrayList <> ());
+                            modulePackages.add (packageDirectory.getFileName ().toString ());
+                        }
+                    }
+            }
+        }
+        for (Map.Entry <String, List <String>> modulePackage: packages.entrySet ())
+            listing.packages.put (modulePackage.getKey (), modulePackage.getValue ().toArray (new String [modulePackage.getValue ().size ()]));
+        synchronized (JrtHelper.class) {
+            listings.put (javaHome, listing);
+        }
+        modified ();
+        return (listing);
+    }
+
+    private static String [] listJmod (File jmod, Map <String, List <String>> packages) throws IOException {
+        int                                 position;
+        String                              name;
+        ZipEntry                            entry;
+        List <String>                       names =             new ArrayList <> ();
+        TreeSet <String>                    modulePackages =    new TreeSet <> ();
+        Enumeration <? extends ZipEntry>    entries;
+
+        try (ZipFile zipFile = new ZipFile (jmod)) {
+            entries = zipFile.entries ();
+            while (entries.hasMoreElements ()) {
+                entry = entries.nextElement ();
+                if (!entry.isDirectory () && entry.getName ().startsWith (JMODCLASSES)) {
+                    names.add (name = entry.getName ().substring (JMODCLASSES.length ()));
+                    if ((position = name.lastIndexOf ('/')) > 0)
+                        modulePackages.add (name.substring (0, position).replace ('/', '.'));
+                }
+            }
+        }
+        packages.put (jmod.getName ().substring (0, jmod.getName ().length () - JMODSUFFIX.length ()),
+                      new ArrayList <> (modulePackages));
+        return (names.toArray (new String [names.size ()]));
+    }
+
+    /**
+     * <p>
+     * Liefert die Namen aller Module des JDK.
+     * </p>
+     */
+    public String [] getModules () throws IOException {
+        Listing listing = getListing ();
+
+        return (listing.packages.keySet ().toArray (new String [listing.packages.size ()]));
+    }
+
+    /**
+     * <p>
+     * Liefert den Namen unter dem ein Modul wie ein Archiv ausgegeben wird, also <q>jrt:/&lt;Modul&gt;</q> bzw.
+     * den Namen der <q>.jmod</q> Datei.
+     * </p>
+     */
+    public String getArchiveName (String module) {
+        return ((jmods) ? getJmod (module).getPath () : JRTPREFIX + module);
+    }
+
+    /**
+     * <p>
+     * Liefert die Namen der Eintr&auml;ge eines Moduls, die einem der Filter entsprechen.
+     * Die Eintr&auml;ge eines Moduls werden beim ersten Aufruf ermittelt, indem nur die Verzeichnisse seiner Pakete
+     * gelesen werden, und anschlie&szlig;end zwischengespeichert.
+     * Verzeichnisse werden nie geliefert.
+     * </p>
+     *
+     * @param  module   Der Name des Moduls (z.B. <q>java.base</q>).
+     * @param  filters  Die regul&auml;ren Ausdr&uuml;cke wie bei {@linkplain ZipHelper#getNames(String[], long) ZipHelper}.
+     * @param  options  Die Optionen wie bei {@linkplain ZipHelper#getNames(String[], long) ZipHelper}.
+     * @throws IOException  Falls das Abbild nicht gelesen werden kann.
+     */
+    public String [] getNames (String module, String [] filters, long options) throws IOException {
+        Listing         listing =           getListing ();
+        String []       names =             listing.names.get (module);
+        List <String>   retVal =            new ArrayList <> ();
+        Pattern []      filterPatterns =    ZipHelper.compileFilters (filters, options);
+
+        if (names == null) {
+            listing.names.put (module, names = listModule (module, listing.packages.get (module)));
+            modified ();
+        }
+        for (String name: names)
+            if (ZipHelper.matches (filterPatterns, name))
+                retVal.add (name);
+        return (retVal.toArray (new String [retVal.size ()]));
+    }
+
+    private String [] listModule (String module, String [] packages) throws IOException {
+        List <String>   retVal =    new ArrayList <> ();
+        Path            root =      getFileSystem ().getPath ("/modules", module);
+
+        listFiles (root, "", retVal);           // e.g. module-info.class
+        if (packages != null)
+            for (String modulePackage: packages)
+                listFiles (root.resolve (modulePackage.replace ('.', '/')), modulePackage.replace ('.', '/') + "/", retVal);
+        return (retVal.toArray (new String [retVal.size ()]));
+    }
+
+    private static void listFiles (Path directory, String prefix, List <String> names) throws IOException {
+        try (DirectoryStream <Path> files = Files.newDirectoryStream (directory)) {
+            for (Path file: files)
+                if (!Files.isDirectory (file))
+                    names.add (prefix + file.getFileName ().toString ());
+        }
+    }
+
+    /**
+     * <p>
+     * Liefert den Inhalt eines Eintrags eines Moduls.
+     * Die <q>.jmod</q> Dateien werden in einem {@linkplain ZipHelper.SessionPool Pool} begrenzter Gr&ouml;&szlig;e
+     * ge&ouml;ffnet gehalten; der gelieferte Datenstrom muss geschlossen werden.
+     * </p>
+     *
+     * @param  module   Der Name des Moduls.
+     * @param  name     Der Name des Eintrags (z.B. <q>java/lang/String.class</q>).
+     * @throws IOException  Falls der Eintrag nicht existiert oder nicht gelesen werden kann.
+     */
+    public InputStream getInputStream (String module, String name) throws IOException {
+        if (!jmods)
+            return (Files.newInputStream (getFileSystem ().getPath ("/modules", module, name)));
+        try {
+            return (jmodFiles.get (getJmod (module).getPath (), JMODCLASSES + name));
+        }
+        catch (FileNotFoundException fnfe) {
+            throw new FileNotFoundException (getArchiveName (module) + ": " + name);
+        }
+    }
+
+    /**
+     * <p>
+     * Schlie&szlig;t die f&uuml;r {@linkplain #getInputStream(String, String) getInputStream} ge&ouml;ffneten
+     * <q>.jmod</q> Dateien.
+     * Das Dateisystem <q>jrt:/</q> des laufenden JDK bleibt ge&ouml;ffnet.
+     * </p>
+     */
+    @Override
+    public void close () throws IOException {
+        jmodFiles.close ();
+        if ((fileSystem != null) && (fileSystem != FileSystems.getFileSystem (URI.create (JRTPREFIX))))
+            fileSystem.close ();
+        fileSystem = null;
+    }
+}
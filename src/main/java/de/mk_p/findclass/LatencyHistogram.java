@@ -0,0 +1,104 @@
+package de.mk_p.findclass;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Ein Histogramm von Dauern in Nanosekunden nach dem Vorbild von <q>HdrHistogram</q>: jede Zweierpotenz wird in
+ * {@value #SUBBUCKETS} gleich breite Bereiche geteilt, so dass jeder Wert mit einem relativen Fehler von unter
+ * einem Prozent gez&auml;hlt wird, und das bei fester Gr&ouml;&szlig;e von wenigen tausend Z&auml;hlern.
+ * </p>
+ * <p>
+ * {@linkplain #record(long) record} kommt ohne Sperren aus und kann von beliebig vielen Threads gleichzeitig
+ * aufgerufen werden.  Die Auswertung w&auml;hrend der Aufzeichnung liefert eine N&auml;herung, da die Z&auml;hler
+ * nicht gemeinsam gelesen werden.
+ * </p>
+ */
+
+public class LatencyHistogram {
+    private static final int        SUBBUCKETBITS = 7;
+    private static final int        SUBBUCKETS =    1 << SUBBUCKETBITS;
+    private static final int        BUCKETCOUNT =   (64 - SUBBUCKETBITS) * SUBBUCKETS;
+
+    private final AtomicLongArray   buckets =       new AtomicLongArray (BUCKETCOUNT);
+    private final LongAdder         count =         new LongAdder ();
+    private final LongAdder         sum =           new LongAdder ();
+    private final AtomicLong        max =           new AtomicLong ();
+
+    /**
+     * <p>
+     * Z&auml;hlt eine Dauer.  Negative Werte werden als <q>0</q> gez&auml;hlt.
+     * </p>
+     */
+    public void record (long nanos) {
+        long current;
+
+        if (nanos < 0l)
+            nanos = 0l;
+        buckets.incrementAndGet (indexOf (nanos));
+        count.increment ();
+        sum.add (nanos);
+        while (nanos > (current = max.get ()))
+            if (max.compareAndSet (current, nanos))
+                break;
+    }
+
+    private static int indexOf (long value) {
+        int shift;
+
+        if (value < (SUBBUCKETS << 1))
+            return ((int) value);
+        shift = 63 - Long.numberOfLeadingZeros (value) - SUBBUCKETBITS;
+        return ((shift << SUBBUCKETBITS) + (int) (value >>> shift));
+    }
+
+    /**
+     * @return Der gr&ouml;&szlig;te Wert, der im selben Bereich wie <q>index</q> gez&auml;hlt wird.
+     */
+    private static long highestValueOf (int index) {
+        int     shift;
+        long    subBucket;
+
+        if (index < (SUBBUCKETS << 1))
+            return (index);
+        shift = (index >>> SUBBUCKETBITS) - 1;
+        subBucket = (index & (SUBBUCKETS - 1)) + SUBBUCKETS;
+        return (((subBucket + 1l) << shift) - 1l);
+    }
+
+    public long getCount () {
+        return (count.sum ());
+    }
+
+    public long getSum () {
+        return (sum.sum ());
+    }
+
+    public long getMax () {
+        return (max.get ());
+    }
+
+    /**
+     * @param  percentile   Das Perzentil zwischen <q>0</q> und <q>100</q>, z.B. <q>99.9</q>.
+     * @return Der Wert, den der Anteil <q>percentile</q> aller gez&auml;hlten Werte nicht &uuml;berschreitet,
+     *         oder: <q>0</q> falls noch nichts gez&auml;hlt wurde.
+     */
+    public long getValueAtPercentile (double percentile) {
+        int     i;
+        long    total =     0l;
+        long    target;
+        long    seen =      0l;
+
+        for (i = 0; i < BUCKETCOUNT; i++)
+            total += buckets.get (i);
+        if (total <= 0l)
+            return (0l);
+        target = Math.max (1l, (long) Math.ceil (Math.min (100.0, Math.max (0.0, percentile)) * total / 100.0));
+        for (i = 0; i < BUCKETCOUNT; i++)
+            if ((seen += buckets.get (i)) >= target)
+                return (Math.min (highestValueOf (i), getMax ()));
+        return (getMax ());
+    }
+}
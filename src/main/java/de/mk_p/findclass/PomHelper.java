@@ -6,16 +6,65 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.*;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
+/**
+ * <p>
+ * Die Maven Koordinaten eines Archivs bzw. einer POM Datei.
+ * </p>
+ * <p>
+ * POM Dateien werden mit einem {@linkplain javax.xml.stream.XMLStreamReader Pull-Parser} gelesen, der abbricht, sobald
+ * die Koordinaten und der <q>parent</q> bekannt sind.
+ * Die Klassen von <q>maven-model</q> werden erst geladen, wenn mit {@linkplain FullModel#read(String) FullModel.read} ein
+ * vollst&auml;ndiges Modell ben&ouml;tigt wird.
+ * Die Ergebnisse werden prozessweit nach Name und &Auml;nderungszeitpunkt des Archivs bzw. der POM Datei
+ * zwischengespeichert.
+ * </p>
+ */
 public class PomHelper {
     private String id;
     private String groupId;
     private String artifactId;
     private String version;
+    private String packaging;
+    private String parentGroupId;
+    private String parentArtifactId;
+    private String parentVersion;
+    private String parentRelativePath;
+    private String source;                          // the POM file, null for the embedded pom.xml
+    private PomHelper parent;                       // the parent POM, if it had to be read
+    private Map <String, String> properties;        // read on demand
+
+    private static final int MAXPARENTDEPTH = 16;
+    private static final String PROJECTPREFIX = "project.";
+    private static final Pattern PLACEHOLDER = Pattern.compile ("\\$\\{([^}]+)\\}");
+    private static final PomHelper NONE = new PomHelper (null, null, null, null);    // cached negative result
+    private static final String SELF = "";                                          // cache key of the embedded pom.xml
+    private static final Set <String> AFTERCOORDINATES = new HashSet <> (Arrays.asList (
+            "properties", "dependencyManagement", "dependencies", "build", "reporting", "profiles",
+            "repositories", "pluginRepositories", "modules"));
+    private static final XMLInputFactory XMLINPUTFACTORY = XMLInputFactory.newInstance ();
+    private static final Map <String, PomHelper> ARCHIVES = new ConcurrentHashMap <> ();
+    private static final Map <String, PomHelper> POMS = new ConcurrentHashMap <> ();
+    private static final Map <String, PomHelper> PARENTS = new ConcurrentHashMap <> ();
+
+    static {
+        XMLINPUTFACTORY.setProperty (XMLInputFactory.SUPPORT_DTD, false);
+        XMLINPUTFACTORY.setProperty (XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    }
 
     private static Pattern groupIdPattern = Pattern.compile ("\\bgroupId *= *([^\\p{Space}=]+)(?:[\\p{Space}=]?|$)",
             Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.UNIX_LINES);
@@ -62,19 +111,15 @@ public class PomHelper {
 
     public PomHelper (ZipHelper zipHelper, String archiveName) {
         PomHelper copy;
-        StringBuilder [] pomContent;
 
-        try {
-            pomContent = zipHelper.getEntriesAsString ("META-INF/maven/.*/pom.properties");
+        try (ZipHelper.Session session = zipHelper.openSession ()) {
+            copy = fromProperties (session);
         }
-        catch (IOException e) {
-            pomContent = null;
+        catch (IOException ioe) {
+            copy = null;
         }
-        if (pomContent instanceof StringBuilder [] && pomContent.length > 0) {
-            copy = parse (pomContent[0]);
-        }
-        else if ((copy = PomHelper.getInfo (filepathWoExtension (archiveName) + ".pom")) == null)
-            copy = PomHelper.getInfo (Paths.get (archiveName).getParent ().toString () + "pom.xml");
+        if (copy == null)
+            copy = fromPomFile (archiveName);
         if (copy != null) {
             this.id = copy.getId ();
             this.groupId = copy.getGroupId ();
@@ -89,9 +134,83 @@ public class PomHelper {
         }
     }
 
+    /**
+     * <p>
+     * Liest die Koordinaten aus der Datei <q>META-INF/maven/.../pom.properties</q> eines Archivs.
+     * </p>
+     *
+     * @return Die Koordinaten, oder: <q>null</q> falls das Archiv keine solche Datei enth&auml;lt.
+     */
+    static PomHelper fromProperties (ZipHelper.Session session) {
+        String key = cacheKey (session.getName ());
+        PomHelper retVal = ARCHIVES.get (key);
+        StringBuilder [] pomContent;
+
+        ScanMetrics.cache (ScanMetrics.Cache.POM, retVal != null);
+        if (retVal == null) {
+            try {
+                pomContent = session.getEntriesAsString ("META-INF/maven/.*/pom.properties");
+            }
+            catch (IOException e) {
+                pomContent = null;
+            }
+            retVal = ((pomContent != null) && (pomContent.length > 0)) ? parse (pomContent [0]) : NONE;
+            ARCHIVES.put (key, retVal);
+        }
+        return ((retVal != NONE) ? retVal : null);
+    }
+
+    private static String cacheKey (String fileName) {
+        return (fileName + "@" + new File (fileName).lastModified ());
+    }
+
+    /**
+     * <p>
+     * Verwirft alle zwischengespeicherten Koordinaten, so dass Archive und POM Dateien erneut gelesen werden.
+     * </p>
+     */
+    public static void clearCaches () {
+        ARCHIVES.clear ();
+        POMS.clear ();
+        PARENTS.clear ();
+    }
+
+    /**
+     * <p>
+     * Liest die Koordinaten aus der <q>.pom</q> Datei neben einem Archiv bzw. der <q>pom.xml</q> in dessen
+     * Verzeichnis.
+     * </p>
+     */
+    static PomHelper fromPomFile (String archiveName) {
+        PomHelper retVal;
+
+        if ((retVal = PomHelper.getInfo (filepathWoExtension (archiveName) + ".pom")) == null)
+            retVal = PomHelper.getInfo (Paths.get (archiveName).getParent ().toString () + "pom.xml");
+        return (retVal);
+    }
+
     public String getId () {
         return (id);
     }
+
+    public String getParentGroupId () {
+        return (parentGroupId);
+    }
+
+    public String getParentArtifactId () {
+        return (parentArtifactId);
+    }
+
+    public String getParentVersion () {
+        return (parentVersion);
+    }
+
+    /**
+     * @return Der Wert von <q>parent/relativePath</q>, oder: <q>null</q> falls dieser nicht angegeben ist.
+     */
+    public String getParentRelativePath () {
+        return (parentRelativePath);
+    }
     public static String filepathWoExtension (String filename) {
         if (filename == null) {
             return null;
@@ -118,29 +237,327 @@ public class PomHelper {
         return (version);
     }
 
+    /**
+     * <p>
+     * Liest die Koordinaten und den <q>parent</q> aus einer POM Datei.
+     * Ist die Datei nicht lesbar, werden die Koordinaten aus der im Archiv dieser Anwendung enthaltenen
+     * <q>pom.xml</q> geliefert.
+     * </p>
+     *
+     * @param  pomName  Der Name der POM Datei.
+     * @return Die Koordinaten, oder: <q>null</q> falls die Datei nicht gelesen werden kann.
+     */
     public static PomHelper getInfo (String pomName) {
-        MavenXpp3Reader reader = new MavenXpp3Reader ();
-        Model model;
-        try {
-            if ((new File (pomName)).canRead ())
-                model = reader.read (new FileReader (pomName));
-            else
-                model = reader.read
-                        (new InputStreamReader
-                                (Objects.requireNonNull (PomHelper.class.getResourceAsStream
-                                        ("/META-INF/maven/" + PomHelper.class.getPackage ().getName () + "/" +
-                                                PomHelper.class.getPackage ().getName () +
-                                                "/pom.xml"
-                                        ))
-                                )
-                        );
-            return (new PomHelper (model.getId (), model.getGroupId (), model.getArtifactId (), model.getVersion ()));
-        }
-        catch (XmlPullParserException | IOException | NullPointerException e) {
+        PomHelper retVal;
+
+        if ((new File (pomName)).canRead ())
+            return (readPom (pomName, 0));
+        if ((retVal = POMS.get (SELF)) == null) {
+            try (InputStream in = getSelfPom ()) {
+                retVal = read (in).inherit (0);
+            }
+            catch (XMLStreamException | IOException | NullPointerException e) {
+                retVal = NONE;
+            }
+            POMS.put (SELF, retVal);
+        }
+        return ((retVal != NONE) ? retVal : null);
+    }
+
+    private static PomHelper readPom (String pomName, int depth) {
+        String key = cacheKey (pomName);
+        PomHelper retVal = POMS.get (key);
+
+        ScanMetrics.cache (ScanMetrics.Cache.POM, retVal != null);
+        if (retVal == null) {
+            try (InputStream in = new FileInputStream (pomName)) {
+                retVal = read (in);
+                retVal.source = pomName;
+                retVal.inherit (depth);
+            }
+            catch (XMLStreamException | IOException e) {
+                retVal = NONE;
+            }
+            POMS.put (key, retVal);
+        }
+        return ((retVal != NONE) ? retVal : null);
+    }
+
+    /**
+     * <p>
+     * &Uuml;bernimmt fehlende <q>groupId</q> und <q>version</q> aus dem <q>parent</q> und ersetzt Platzhalter
+     * (<q>${...}</q>) in diesen Werten.
+     * Die POM Datei des <q>parent</q> wird nur gelesen, wenn die Angaben im Element <q>parent</q> dazu nicht
+     * ausreichen, also wenn dort Koordinaten fehlen oder Platzhalter verwendet werden.
+     * Sie wird &uuml;ber <q>relativePath</q> bzw. im lokalen Maven Repository gesucht; die Kette der
+     * <q>parent</q> POMs wird h&ouml;chstens bis zur Tiefe {@value #MAXPARENTDEPTH} verfolgt.
+     * </p>
+     */
+    private PomHelper inherit (int depth) {
+        if ((((groupId == null) && (parentGroupId == null)) || ((version == null) && (parentVersion == null)) ||
+             hasPlaceholder (groupId) || hasPlaceholder (version) ||
+             hasPlaceholder (parentGroupId) || hasPlaceholder (parentVersion)) &&
+            (depth < MAXPARENTDEPTH) && ((parent = findParent (depth + 1)) != null)) {
+            if (parentGroupId == null)
+                parentGroupId = parent.groupId;
+            if (parentArtifactId == null)
+                parentArtifactId = parent.artifactId;
+            if (parentVersion == null)
+                parentVersion = parent.version;
+        }
+        parentGroupId = expand (parentGroupId);
+        parentVersion = expand (parentVersion);
+        groupId = (groupId != null) ? expand (groupId) : parentGroupId;
+        version = (version != null) ? expand (version) : parentVersion;
+        return (complete ());
+    }
+
+    private PomHelper findParent (int depth) {
+        String relativePath = (parentRelativePath != null) ? parentRelativePath : "../pom.xml";
+        String key;
+        File candidate;
+        PomHelper retVal;
+
+        if ((source != null) && !relativePath.isEmpty ()) {
+            candidate = new File (new File (source).getAbsoluteFile ().getParentFile (), relativePath);
+            if (candidate.isDirectory ())
+                candidate = new File (candidate, "pom.xml");
+            if (candidate.isFile () && ((retVal = readPom (candidate.getPath (), depth)) != null) &&
+                ((parentArtifactId == null) || parentArtifactId.equals (retVal.artifactId)))
+                return (retVal);
+        }
+        if ((parentGroupId == null) || (parentArtifactId == null) || (parentVersion == null) ||
+            hasPlaceholder (parentGroupId) || hasPlaceholder (parentVersion))
             return (null);
+        key = parentGroupId + ":" + parentArtifactId + ":" + parentVersion;
+        retVal = PARENTS.get (key);
+        ScanMetrics.cache (ScanMetrics.Cache.PARENT_POM, retVal != null);
+        if (retVal == null) {
+            candidate = new File (getRepository (),
+                                  parentGroupId.replace ('.', '/') + "/" + parentArtifactId + "/" + parentVersion + "/" +
+                                  parentArtifactId + "-" + parentVersion + ".pom");
+            if (!candidate.isFile () || ((retVal = readPom (candidate.getPath (), depth)) == null))
+                retVal = NONE;
+            PARENTS.put (key, retVal);
         }
+        return ((retVal != NONE) ? retVal : null);
+    }
+
+    /**
+     * @return Das lokale Maven Repository, in dem die POM Datei liegt, bzw. <q>~/.m2/repository</q>.
+     */
+    private File getRepository () {
+        File directory;
+
+        for (directory = (source != null) ? new File (source).getAbsoluteFile ().getParentFile () : null;
+             directory != null;
+             directory = directory.getParentFile ())
+            if ("repository".equals (directory.getName ()))
+                return (directory);
+        return (new File (System.getProperty ("maven.repo.local",
+                                              System.getProperty ("user.home") + "/.m2/repository")));
     }
-    public static void main (String[] args) throws IOException, XmlPullParserException {
+
+    private static boolean hasPlaceholder (String value) {
+        return ((value != null) && value.contains ("${"));
+    }
+
+    private String expand (String value) {
+        int i;
+        String property;
+        StringBuffer expanded;
+        Matcher matcher;
+
+        for (i = 0; (i < MAXPARENTDEPTH) && hasPlaceholder (value); i++) {
+            matcher = PLACEHOLDER.matcher (value);
+            expanded = new StringBuffer ();
+            while (matcher.find ()) {
+                property = getProperty (matcher.group (1));
+                matcher.appendReplacement (expanded, Matcher.quoteReplacement ((property != null) ?
+                                                                               property : matcher.group ()));
+            }
+            matcher.appendTail (expanded);
+            if (value.equals (expanded.toString ()))
+                break;
+            value = expanded.toString ();
+        }
+        return (value);
+    }
+
+    /**
+     * <p>
+     * Liefert den Wert einer Eigenschaft aus <q>properties</q> dieser bzw. der <q>parent</q> POM Dateien oder
+     * einer der Koordinaten (<q>project.groupId</q>, <q>project.parent.version</q>, ...).
+     * </p>
+     */
+    private String getProperty (String name) {
+        String retVal;
+
+        if (name.startsWith (PROJECTPREFIX + "parent.") || name.startsWith ("parent.")) {
+            name = name.substring (name.indexOf ("parent.") + "parent.".length ());
+            if ("groupId".equals (name))
+                return (hasPlaceholder (parentGroupId) ? null : parentGroupId);
+            if ("version".equals (name))
+                return (hasPlaceholder (parentVersion) ? null : parentVersion);
+            return (null);
+        }
+        if (name.startsWith (PROJECTPREFIX) || name.startsWith ("pom.")) {
+            name = name.substring (name.indexOf ('.') + 1);
+            if ("groupId".equals (name))
+                return (hasPlaceholder (groupId) ? null : groupId);
+            if ("artifactId".equals (name))
+                return (artifactId);
+            if ("version".equals (name))
+                return (hasPlaceholder (version) ? null : version);
+            return (null);
+        }
+        if ((retVal = getProperties ().get (name)) != null)
+            return (retVal);
+        return ((parent != null) ? parent.getProperty (name) : null);
+    }
+
+    private synchronized Map <String, String> getProperties () {
+        int depth = 0;
+        boolean inProperties = false;
+        String name;
+        XMLStreamReader reader;
+
+        if (properties != null)
+            return (properties);
+        properties = new HashMap <> ();
+        try (InputStream in = (source != null) ? new FileInputStream (source) : getSelfPom ()) {
+            reader = XMLINPUTFACTORY.createXMLStreamReader (in);
+            try {
+                while (reader.hasNext ())
+                    switch (reader.next ()) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            name = reader.getLocalName ();
+                            if (++depth == 2)
+                                inProperties = "properties".equals (name);
+                            else if ((depth == 3) && inProperties) {
+                                properties.put (name, reader.getElementText ().trim ());
+                                depth--;
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            if (depth-- == 2)
+                                inProperties = false;
+                            break;
+                    }
+            }
+            finally {
+                reader.close ();
+            }
+        }
+        catch (XMLStreamException | IOException | NullPointerException e) {
+            // keep the properties read so far
+        }
+        return (properties);
+    }
+
+    private static InputStream getSelfPom () {
+        return (Objects.requireNonNull (PomHelper.class.getResourceAsStream
+                ("/META-INF/maven/" + PomHelper.class.getPackage ().getName () + "/" +
+                        PomHelper.class.getPackage ().getName () +
+                        "/pom.xml"
+                )));
+    }
+
+    /**
+     * <p>
+     * Liest die Koordinaten und den <q>parent</q> einer POM Datei.
+     * Das Lesen endet, sobald <q>groupId</q>, <q>artifactId</q>, <q>version</q> und <q>packaging</q> des Projekts
+     * bekannt sind, bzw.
+     * sp&auml;testens beim ersten Abschnitt, der in einer POM Datei &uuml;blicherweise auf die Koordinaten folgt
+     * (z.B. <q>dependencies</q> oder <q>build</q>).
+     * </p>
+     */
+    private static PomHelper read (InputStream in) throws XMLStreamException {
+        int depth = 0;
+        boolean inParent = false;
+        String name;
+        PomHelper retVal = new PomHelper ("", null, null, null);
+        XMLStreamReader reader = XMLINPUTFACTORY.createXMLStreamReader (in);
+
+        try {
+            while (reader.hasNext () &&
+                   ((retVal.groupId == null) || (retVal.artifactId == null) || (retVal.version == null) ||
+                    (retVal.packaging == null))) {
+                switch (reader.next ()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        name = reader.getLocalName ();
+                        if (++depth == 2) {
+                            if (AFTERCOORDINATES.contains (name))
+                                return (retVal.complete ());
+                            inParent = "parent".equals (name);
+                            if ("groupId".equals (name))
+                                retVal.groupId = reader.getElementText ().trim ();
+                            else if ("artifactId".equals (name))
+                                retVal.artifactId = reader.getElementText ().trim ();
+                            else if ("version".equals (name))
+                                retVal.version = reader.getElementText ().trim ();
+                            else if ("packaging".equals (name))
+                                retVal.packaging = reader.getElementText ().trim ();
+                            else
+                                break;
+                            depth--;        // getElementText () consumed the end element
+                        }
+                        else if ((depth == 3) && inParent) {
+                            if ("groupId".equals (name))
+                                retVal.parentGroupId = reader.getElementText ().trim ();
+                            else if ("artifactId".equals (name))
+                                retVal.parentArtifactId = reader.getElementText ().trim ();
+                            else if ("version".equals (name))
+                                retVal.parentVersion = reader.getElementText ().trim ();
+                            else if ("relativePath".equals (name))
+                                retVal.parentRelativePath = reader.getElementText ().trim ();
+                            else
+                                break;
+                            depth--;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth-- == 2)
+                            inParent = false;
+                        break;
+                }
+            }
+        }
+        finally {
+            reader.close ();
+        }
+        return (retVal.complete ());
+    }
+
+    private PomHelper complete () {
+        id = ((groupId != null) ? groupId : "[inherited]") + ":" + artifactId + ":" +
+             ((packaging != null) ? packaging : "jar") + ":" + ((version != null) ? version : "[inherited]");
+        return (this);
+    }
+
+    /**
+     * <p>
+     * Liest das vollst&auml;ndige Maven {@linkplain org.apache.maven.model.Model Modell} einer POM Datei.
+     * Die Klassen von <q>maven-model</q> werden erst geladen, wenn diese Klasse verwendet wird.
+     * </p>
+     */
+    public static class FullModel {
+        /**
+         * @param  pomName  Der Name der POM Datei.
+         * @return Das Modell.
+         * @throws IOException  Falls die Datei nicht gelesen oder nicht analysiert werden kann.
+         */
+        public static Model read (String pomName) throws IOException {
+            try (Reader in = new FileReader (pomName)) {
+                return (new MavenXpp3Reader ().read (in));
+            }
+            catch (XmlPullParserException xppe) {
+                throw new IOException (pomName + ": " + xppe.getMessage (), xppe);
+            }
+        }
+    }
+
+    public static void main (String[] args) throws IOException {
         PomHelper pomHelper = PomHelper.getInfo ((args.length > 0) ? args [0] : "pom.xml");
         System.out.println("Id: \"" + pomHelper.getId() + "\"");
         System.out.println("GrouptId: \"" + pomHelper.getGroupId() + "\"");
@@ -3,18 +3,35 @@ package de.mk_p.findclass;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 /**
  * Konvertiert einen  {@linkplain java.io.Reader Reader} in einen {@linkplain java.io.InputStream InputStream}.
- * &Uuml;bernommen aus {@linkplain org.apache.tools.ant.util.ReaderInputStream ReaderInputStream}.
+ * Urspr&uuml;nglich &uuml;bernommen aus {@linkplain org.apache.tools.ant.util.ReaderInputStream ReaderInputStream}.
+ * Die Zeichen werden mit einem {@linkplain java.nio.charset.CharsetEncoder CharsetEncoder} &uuml;ber ein
+ * wiederverwendetes Paar aus {@linkplain java.nio.CharBuffer CharBuffer} und {@linkplain java.nio.ByteBuffer ByteBuffer}
+ * kodiert, so dass beim Lesen keine Objekte erzeugt werden.  Ein Surrogatpaar, das auf zwei Lesevorg&auml;nge der
+ * Quelle verteilt ist, bleibt im {@linkplain java.nio.CharBuffer CharBuffer} stehen, bis das zweite Zeichen gelesen wurde.
+ * Wie andere {@linkplain java.io.InputStream InputStreams} ist die Klasse nicht f&uuml;r die gleichzeitige Verwendung
+ * durch mehrere Threads gedacht.
  *
  */
 public class ReaderInputStream extends InputStream {
 
-    private Reader  in;
-    private String  encoding = System.getProperty ("file.encoding");
-    private byte [] slack;
-    private int     begin;
+    private static final int    DEFAULT_BUFFERSIZE =    0x2000;
+
+    private Reader              in;
+    private final CharsetEncoder encoder;
+    private final CharBuffer    chars;
+    private final ByteBuffer    bytes;
+    private boolean             endOfInput;
+    private boolean             finished;
 
     /**
      * <p>
@@ -25,7 +42,7 @@ public class ReaderInputStream extends InputStream {
      *                  gelesen werden soll.
      */
     public ReaderInputStream (Reader reader) {
-        in = reader;
+        this (reader, Charset.defaultCharset ());
     }
 
     /**
@@ -38,44 +55,89 @@ public class ReaderInputStream extends InputStream {
      * @param encoding  Eine {@linkplain java.lang.String Zeichenkette} die das zu verwendende Enkoding definiert.
      */
     public ReaderInputStream (Reader reader, String encoding) {
-        this (reader);
+        this (reader, forName (encoding));
+    }
 
+    /**
+     * <p>
+     * Der Konstruktor erzeugt eine Instanz mit einem speziellen {@linkplain java.nio.charset.Charset Zeichensatz}.
+     * Nicht darstellbare Zeichen werden wie bei {@linkplain java.lang.String#getBytes(String) String.getBytes}
+     * durch das Ersatzzeichen des Zeichensatzes ersetzt.
+     * </p>
+     *
+     * @param reader    Der {@linkplain java.io.Reader Reader} der als {@linkplain java.io.InputStream InputStream}
+     *                  gelesen werden soll.
+     * @param charset   Der zu verwendende {@linkplain java.nio.charset.Charset Zeichensatz}.
+     */
+    public ReaderInputStream (Reader reader, Charset charset) {
+        if (charset == null)
+            throw new IllegalArgumentException ("encoding may not be null");
+        in =        reader;
+        encoder =   charset.newEncoder ()
+                           .onMalformedInput (CodingErrorAction.REPLACE)
+                           .onUnmappableCharacter (CodingErrorAction.REPLACE);
+        chars =     CharBuffer.allocate (DEFAULT_BUFFERSIZE);
+        bytes =     ByteBuffer.allocate (Math.max (DEFAULT_BUFFERSIZE, (int) Math.ceil (encoder.maxBytesPerChar ())));
+        ((Buffer) bytes).flip ();
+    }
+
+    private static Charset forName (String encoding) {
         if (encoding == null)
             throw new IllegalArgumentException ("encoding may not be null");
-        else
-            this.encoding = encoding;
+        return (Charset.forName (encoding));
     }
 
     /**
      * <p>
-     * Die Methode {@linkplain java.io.Reader#read() liest} ein Zeichen aus der Quelle und gibt es zu&uuml;ck.
+     * F&uuml;llt den leeren {@linkplain java.nio.ByteBuffer ByteBuffer} mit den kodierten Zeichen der Quelle.
+     * Zeichen, die nicht vollst&auml;ndig kodiert werden konnten, bleiben f&uuml;r den n&auml;chsten Aufruf im
+     * {@linkplain java.nio.CharBuffer CharBuffer}.
      * </p>
      *
-     * @return      Das {@linkplain java.io.Reader#read() n&auml;chste} Zeichen.
+     * @return  Die Anzahl der verf&uuml;gbaren Bytes, <q>0</q> falls das Ende der Quelle erreicht wurde.
+     */
+    private int fill () throws IOException {
+        int             count;
+        CoderResult     result;
+
+        ((Buffer) bytes).clear ();
+        while ((bytes.position () == 0) && !finished) {
+            if (!endOfInput) {
+                count = in.read (chars.array (), chars.arrayOffset () + chars.position (), chars.remaining ());
+                if (count < 0)
+                    endOfInput = true;
+                else
+                    ((Buffer) chars).position (chars.position () + count);
+            }
+            ((Buffer) chars).flip ();
+            result = encoder.encode (chars, bytes, endOfInput);
+            chars.compact ();
+            if (result.isError ())
+                result.throwException ();
+            if (endOfInput && result.isUnderflow ())
+                finished = encoder.flush (bytes).isUnderflow ();
+        }
+        ((Buffer) bytes).flip ();
+        return (bytes.remaining ());
+    }
+
+    /**
+     * <p>
+     * Die Methode {@linkplain java.io.Reader#read() liest} ein Byte aus der Quelle und gibt es zu&uuml;ck.
+     * </p>
+     *
+     * @return      Das {@linkplain java.io.Reader#read() n&auml;chste} Byte, <q>-1</q> falls das Ende der Quelle
+     *              erreicht wurde.
      *
      * @throws      {@linkplain java.io.IOException IOException} falls beim Lesen aus der
      *              {@linkplain java.io.Reader Quelle} ein Problem auftritt.
      */
-    public synchronized int read () throws IOException {
-        byte    retval;
-        byte [] buffer;
-            
+    public int read () throws IOException {
         if (in == null)
             throw new IOException ("Stream Closed");
-        if ((slack != null) && (begin < slack.length)) {
-            retval = slack [begin];
-            if (++begin == slack.length)
-                slack = null;
-        }
-        else {
-            buffer = new byte [1];
-            if (read (buffer, 0, 1) <= 0)
-                retval = -1;
-            retval = buffer [0];
-        }
-        if (retval < -1)
-            retval += 0xFF;
-        return (retval);
+        if (!bytes.hasRemaining () && (fill () == 0))
+            return (-1);
+        return (bytes.get () & 0xFF);
     }
 
     /**
@@ -92,27 +154,16 @@ public class ReaderInputStream extends InputStream {
      *          {@linkplain java.io.Reader Quelle} ein Problem auftritt.
      */
 
-    public synchronized int read (byte [] buffer, int offset, int length) throws IOException {
-        int     i;
-        char [] buf;
-
+    public int read (byte [] buffer, int offset, int length) throws IOException {
         if (in == null)
             throw new IOException ("Stream Closed");
-        while (slack == null) {
-            buf = new char [length];    // might read too much
-            i = in.read (buf);
-            if (i == -1)
-                return (-1);
-            if (i > 0) {
-                slack = new String (buf, 0, i).getBytes (encoding);
-                begin = 0;
-            }
-        }
-        if (length > slack.length - begin)
-            length = slack.length - begin;
-        System.arraycopy (slack, begin, buffer, offset, length);
-        if ((begin += length) >= slack.length)
-            slack = null;
+        if (length == 0)
+            return (0);
+        if (!bytes.hasRemaining () && (fill () == 0))
+            return (-1);
+        if (length > bytes.remaining ())
+            length = bytes.remaining ();
+        bytes.get (buffer, offset, length);
         return (length);
     }
 
@@ -131,7 +182,7 @@ public class ReaderInputStream extends InputStream {
      *          {@linkplain java.io.Reader Quelle} ein Problem auftritt.
      */
 
-    public synchronized void mark (final int limit) {
+    public void mark (final int limit) {
         try {
             in.mark (limit);
         }
@@ -151,11 +202,11 @@ public class ReaderInputStream extends InputStream {
      * @throws  {@linkplain java.io.IOException IOException} falls bei der Abfrage ein Problem auftritt.
      */
 
-    public synchronized int available () throws IOException {
+    public int available () throws IOException {
         if (in == null)
             throw new IOException ("Stream Closed");
-        if (slack != null)
-            return (slack.length - begin);
+        if (bytes.hasRemaining ())
+            return (bytes.remaining ());
         else if (in.ready ())
             return (1);
         else
@@ -185,10 +236,15 @@ public class ReaderInputStream extends InputStream {
      * @throws  {@linkplain java.io.IOException IOException} falls beim Zur&uuml;cksetzen ein Problem auftritt.
      */
 
-    public synchronized void reset () throws IOException {
+    public void reset () throws IOException {
         if (in == null)
             throw new IOException ("Stream Closed");
-        slack = null;
+        ((Buffer) chars).clear ();
+        ((Buffer) bytes).clear ();
+        ((Buffer) bytes).flip ();
+        encoder.reset ();
+        endOfInput =    false;
+        finished =      false;
         in.reset ();
     }
 
@@ -201,10 +257,11 @@ public class ReaderInputStream extends InputStream {
      * @throws  {@linkplain java.io.IOException IOException} falls beim Schlie&szlig;en ein Problem auftritt.
      */
 
-    public synchronized void close () throws IOException {
+    public void close () throws IOException {
         if (in != null) {
             in.close ();
-            slack =  null;
+            ((Buffer) bytes).clear ();
+            ((Buffer) bytes).flip ();
             in =     null;
         }
     }
@@ -0,0 +1,110 @@
+package de.mk_p.findclass;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Merkt sich die Archive, in denen zuletzt Treffer gefunden wurden, damit eine Suche mit <q>-first</q> bzw.
+ * <q>-limit</q> sie vor den &uuml;brigen Archiven durchsucht.
+ * Die Liste enth&auml;lt h&ouml;chstens {@value #MAXSIZE} Archive, das zuletzt gefundene zuerst, und kann wie die
+ * anderen Zwischenspeicher mit {@linkplain #saveCache(String) saveCache} in einem Zip-Archiv (dem Index) abgelegt
+ * werden.
+ * </p>
+ */
+
+public class RecentMatches {
+
+    /**
+     * <p>
+     * Der Name des Eintrags unter dem die Liste im Zip-Archiv abgelegt wird.
+     * </p>
+     */
+    public static final String  CACHEENTRYNAME =    "recentmatches";
+
+    public static final int     MAXSIZE =           0x400;
+
+    private static List <String>            archives =      new ArrayList <> ();
+    private static Map <String, Integer>    ranks;
+    private static boolean                  cacheModified;
+
+    private RecentMatches () {
+    }
+
+    /**
+     * <p>
+     * L&auml;dt die Liste aus einem Zip-Archiv.
+     * Ein fehlendes Archiv oder ein unlesbarer Eintrag werden ignoriert.
+     * </p>
+     *
+     * @param  zipName  Der Name des Zip-Archivs.
+     */
+    public static synchronized void loadCache (String zipName) {
+        ArrayList <String>  cached =    null;
+
+        if (!new File (zipName).isFile ())
+            return;
+        try {
+            cached = new ZipHelper (zipName).getObject (CACHEENTRYNAME, cached);
+            if (cached != null) {
+                archives = cached;
+                ranks = null;
+            }
+        }
+        catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // the list is rebuilt
+        }
+    }
+
+    /**
+     * <p>
+     * Speichert die Liste in einem Zip-Archiv, falls sie sich ge&auml;ndert hat.
+     * Andere Eintr&auml;ge des Archivs bleiben erhalten.
+     * </p>
+     *
+     * @param  zipName  Der Name des Zip-Archivs.
+     * @throws IOException  Falls das Archiv nicht geschrieben werden kann.
+     */
+    public static synchronized void saveCache (String zipName) throws IOException {
+        if (cacheModified) {
+            new ZipHelper (zipName).appendObject (CACHEENTRYNAME, new ArrayList <> (archives));
+            cacheModified = false;
+        }
+    }
+
+    /**
+     * <p>
+     * Stellt ein Archiv mit Treffern an den Anfang der Liste.
+     * </p>
+     */
+    public static synchronized void add (String archive) {
+        if (!archives.isEmpty () && archives.get (0).equals (archive))
+            return;
+        archives.remove (archive);
+        archives.add (0, archive);
+        if (archives.size () > MAXSIZE)
+            archives.remove (archives.size () - 1);
+        ranks = null;
+        cacheModified = true;
+    }
+
+    /**
+     * @return Die Position des Archivs in der Liste (<q>0</q> f&uuml;r das zuletzt gefundene), oder:
+     *         {@value #MAXSIZE} falls es nicht enthalten ist.
+     */
+    public static synchronized int getRank (String archive) {
+        int     i;
+        Integer rank;
+
+        if (ranks == null) {
+            ranks = new HashMap <> (archives.size () * 2 + 16);
+            for (i = 0; i < archives.size (); i++)
+                ranks.put (archives.get (i), i);
+        }
+        return (((rank = ranks.get (archive)) != null) ? rank : MAXSIZE);
+    }
+}
@@ -0,0 +1,435 @@
+package de.mk_p.findclass;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * Stellt Messwerte einer laufenden Suche f&uuml;r die &Uuml;berwachung bereit (Schalter <q>-metrics</q>): als
+ * MBean &uuml;ber JMX und im Textformat von Prometheus, z.B. als Datei f&uuml;r den <q>textfile collector</q> des
+ * <q>node_exporter</q>.
+ * </p>
+ * <p>
+ * Als Abfragen gelten die Suche in einem Archiv (bzw. Modul oder Verzeichnis) und die Abfragen des
+ * {@linkplain ClassIndex Index}; ihre Dauern werden in je einem {@linkplain LatencyHistogram Histogramm} gez&auml;hlt.
+ * Dazu kommen die Gr&ouml;&szlig;e des Index, die Trefferquoten der Zwischenspeicher, die Anzahl der
+ * ge&ouml;ffneten Archive und die Anzahl der Archive, die noch auf ihre Suche warten.
+ * </p>
+ * <p>
+ * Wie bei {@linkplain ScanStatistics} liefern die statischen Messpunkte sofort zur&uuml;ck, solange keine Instanz
+ * {@linkplain #enable(String) aktiviert} ist.  Alle Z&auml;hler kommen ohne Sperren aus.
+ * </p>
+ */
+
+public class ScanMetrics implements ScanMetricsMBean {
+    public static final String  OBJECTNAME =    "de.mk_p.findclass:type=ScanMetrics";
+    public static final long    INTERVAL =      10l;    // seconds between two writes of the textfile
+
+    /**
+     * <p>
+     * Die Zwischenspeicher, deren Trefferquoten gemessen werden.
+     * </p>
+     */
+    public enum Cache {
+        INDEX               ("index"),
+        POM                 ("pom"),
+        PARENT_POM          ("parent_pom"),
+        CLASSES_DIRECTORY   ("classes_directory");
+
+        private final String label;
+
+        Cache (String label) {
+            this.label = label;
+        }
+
+        public String getLabel () {
+            return (label);
+        }
+    }
+
+    private static final double []          QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static volatile ScanMetrics     active;
+
+    private final LatencyHistogram  scans =         new LatencyHistogram ();
+    private final LatencyHistogram  lookups =       new LatencyHistogram ();
+    private final LongAdder []      hits =          new LongAdder [Cache.values ().length];
+    private final LongAdder []      misses =        new LongAdder [Cache.values ().length];
+    private final LongAdder         opened =        new LongAdder ();
+    private final LongAdder         closed =        new LongAdder ();
+    private final LongAdder         submitted =     new LongAdder ();
+    private final LongAdder         completed =     new LongAdder ();
+    private final long              started =       System.nanoTime ();
+    private volatile long           indexArchives;
+    private volatile long           indexSymbols;
+    private volatile long           indexBytes;
+    private String                  textfile;
+    private ScheduledExecutorService writer;
+
+    private ScanMetrics () {
+        int i;
+
+        for (i = 0; i < hits.length; i++) {
+            hits [i] =      new LongAdder ();
+            misses [i] =    new LongAdder ();
+        }
+    }
+
+    /**
+     * <p>
+     * Aktiviert eine neue Instanz, die ab jetzt alle Messungen sammelt, und registriert sie unter
+     * {@value #OBJECTNAME}.
+     * </p>
+     *
+     * @param  textfile     Die Datei, in die die Messwerte alle {@value #INTERVAL} Sekunden und beim
+     *                      {@linkplain #stop() Beenden} geschrieben werden, oder: <q>null</q>.
+     */
+    public static ScanMetrics enable (String textfile) {
+        final ScanMetrics   metrics =   new ScanMetrics ();
+        MBeanServer         server =    ManagementFactory.getPlatformMBeanServer ();
+        ObjectName          name;
+
+        try {
+            name = new ObjectName (OBJECTNAME);
+            if (server.isRegistered (name))
+                server.unregisterMBean (name);
+            server.registerMBean (metrics, name);
+        }
+        catch (JMException jme) {
+            // without JMX the metrics are still written to the textfile
+        }
+        metrics.textfile = textfile;
+        if (textfile != null) {
+            metrics.writer = Executors.newSingleThreadScheduledExecutor (new ThreadFactory () {
+                @Override
+                public Thread newThread (Runnable runnable) {
+                    Thread thread = new Thread (runnable, "metrics writer");
+
+                    thread.setDaemon (true);
+                    return (thread);
+                }
+            });
+            metrics.writer.scheduleAtFixedRate (new Runnable () {
+                @Override
+                public void run () {
+                    metrics.writeTextfile ();
+                }
+            }, INTERVAL, INTERVAL, TimeUnit.SECONDS);
+        }
+        return (active = metrics);
+    }
+
+    /**
+     * @return Die aktive Instanz, oder: <q>null</q> falls keine Messwerte gesammelt werden.
+     */
+    public static ScanMetrics active () {
+        return (active);
+    }
+
+    /**
+     * <p>
+     * Beendet das regelm&auml;&szlig;ige Schreiben und schreibt die Messwerte ein letztes Mal.
+     * Die MBean bleibt bis zum Ende der JVM registriert.
+     * </p>
+     */
+    public void stop () {
+        if (writer != null) {
+            writer.shutdownNow ();
+            writeTextfile ();
+        }
+    }
+
+    /**
+     * <p>
+     * Liefert eine Aufgabe, die die Suche <q>task</q> ausf&uuml;hrt und deren Dauer misst.  Bis die Aufgabe beendet
+     * ist, z&auml;hlt sie zu den wartenden Archiven.
+     * </p>
+     */
+    public static <T> Callable <T> measure (final Callable <T> task) {
+        final ScanMetrics metrics = active;
+
+        if (metrics == null)
+            return (task);
+        metrics.submitted.increment ();
+        return (new Callable <T> () {
+            @Override
+            public T call () throws Exception {
+                long started = System.nanoTime ();
+
+                try {
+                    return (task.call ());
+                }
+                finally {
+                    metrics.scans.record (System.nanoTime () - started);
+                    metrics.completed.increment ();
+                }
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Z&auml;hlt eine Abfrage des Index, die zum Zeitpunkt <q>started</q> ({@linkplain System#nanoTime()}) begann.
+     * </p>
+     */
+    public static void lookup (long started) {
+        ScanMetrics metrics = active;
+
+        if (metrics != null)
+            metrics.lookups.record (System.nanoTime () - started);
+    }
+
+    /**
+     * <p>
+     * Z&auml;hlt einen Treffer oder Fehlschlag eines Zwischenspeichers.
+     * </p>
+     */
+    public static void cache (Cache cache, boolean hit) {
+        ScanMetrics metrics = active;
+
+        if (metrics != null)
+            ((hit) ? metrics.hits : metrics.misses) [cache.ordinal ()].increment ();
+    }
+
+    public static void archiveOpened () {
+        ScanMetrics metrics = active;
+
+        if (metrics != null)
+            metrics.opened.increment ();
+    }
+
+    public static void archiveClosed () {
+        ScanMetrics metrics = active;
+
+        if (metrics != null)
+            metrics.closed.increment ();
+    }
+
+    /**
+     * <p>
+     * &Uuml;bernimmt die Gr&ouml;&szlig;e des Index.
+     * </p>
+     *
+     * @param  bytes    Die Gr&ouml;&szlig;e der Indexdatei, oder: <q>-1</q> falls sie unver&auml;ndert ist.
+     */
+    public static void indexSize (long archives, long symbols, long bytes) {
+        ScanMetrics metrics = active;
+
+        if (metrics != null) {
+            metrics.indexArchives = archives;
+            metrics.indexSymbols = symbols;
+            if (bytes >= 0l)
+                metrics.indexBytes = bytes;
+        }
+    }
+
+    private static double millis (long nanos) {
+        return (nanos / 1e6);
+    }
+
+    private double hitRate (Cache cache) {
+        long hit =      hits [cache.ordinal ()].sum ();
+        long total =    hit + misses [cache.ordinal ()].sum ();
+
+        return ((total > 0l) ? (double) hit / total : 0.0);
+    }
+
+    @Override
+    public double getUptimeSeconds () {
+        return ((System.nanoTime () - started) / 1e9);
+    }
+
+    @Override
+    public long getQueryCount () {
+        return (scans.getCount () + lookups.getCount ());
+    }
+
+    @Override
+    public double getQueryRate () {
+        double seconds = getUptimeSeconds ();
+
+        return ((seconds > 0.0) ? getQueryCount () / seconds : 0.0);
+    }
+
+    @Override
+    public long getScanCount () {
+        return (scans.getCount ());
+    }
+
+    @Override
+    public double getScanLatencyMedianMillis () {
+        return (millis (scans.getValueAtPercentile (50.0)));
+    }
+
+    @Override
+    public double getScanLatency99thPercentileMillis () {
+        return (millis (scans.getValueAtPercentile (99.0)));
+    }
+
+    @Override
+    public double getScanLatencyMaxMillis () {
+        return (millis (scans.getMax ()));
+    }
+
+    @Override
+    public long getLookupCount () {
+        return (lookups.getCount ());
+    }
+
+    @Override
+    public double getLookupLatencyMedianMillis () {
+        return (millis (lookups.getValueAtPercentile (50.0)));
+    }
+
+    @Override
+    public double getLookupLatency99thPercentileMillis () {
+        return (millis (lookups.getValueAtPercentile (99.0)));
+    }
+
+    @Override
+    public double getLookupLatencyMaxMillis () {
+        return (millis (lookups.getMax ()));
+    }
+
+    @Override
+    public long getIndexArchives () {
+        return (indexArchives);
+    }
+
+    @Override
+    public long getIndexSymbols () {
+        return (indexSymbols);
+    }
+
+    @Override
+    public long getIndexBytes () {
+        return (indexBytes);
+    }
+
+    @Override
+    public double getIndexHitRate () {
+        return (hitRate (Cache.INDEX));
+    }
+
+    @Override
+    public double getPomCacheHitRate () {
+        return (hitRate (Cache.POM));
+    }
+
+    @Override
+    public double getParentPomCacheHitRate () {
+        return (hitRate (Cache.PARENT_POM));
+    }
+
+    @Override
+    public double getClassesDirectoryCacheHitRate () {
+        return (hitRate (Cache.CLASSES_DIRECTORY));
+    }
+
+    @Override
+    public long getOpenArchives () {
+        return (opened.sum () - closed.sum ());
+    }
+
+    @Override
+    public long getScanBacklog () {
+        return (submitted.sum () - completed.sum ());
+    }
+
+    private static void metric (StringBuilder text, String name, String type, String help) {
+        text.append ("# HELP ").append (name).append (' ').append (help).append ('\n');
+        text.append ("# TYPE ").append (name).append (' ').append (type).append ('\n');
+    }
+
+    private static void sample (StringBuilder text, String name, String labels, double value) {
+        text.append (name);
+        if (labels != null)
+            text.append ('{').append (labels).append ('}');
+        text.append (' ');
+        if (value == Math.rint (value))
+            text.append ((long) value);
+        else
+            text.append (value);
+        text.append ('\n');
+    }
+
+    private static void summary (StringBuilder text, String name, String help, LatencyHistogram histogram) {
+        metric (text, name, "summary", help);
+        for (double quantile: QUANTILES)
+            sample (text, name, "quantile=\"" + quantile + "\"", histogram.getValueAtPercentile (quantile * 100.0) / 1e9);
+        sample (text, name + "_sum", null, histogram.getSum () / 1e9);
+        sample (text, name + "_count", null, histogram.getCount ());
+    }
+
+    @Override
+    public String getPrometheusText () {
+        StringBuilder   text = new StringBuilder ();
+
+        metric (text, "findclass_uptime_seconds", "gauge", "Seconds since the metrics were enabled.");
+        sample (text, "findclass_uptime_seconds", null, getUptimeSeconds ());
+        metric (text, "findclass_queries_total", "counter", "Archive scans and index lookups.");
+        sample (text, "findclass_queries_total", null, getQueryCount ());
+        metric (text, "findclass_query_rate", "gauge", "Archive scans and index lookups per second since the metrics were enabled.");
+        sample (text, "findclass_query_rate", null, getQueryRate ());
+        summary (text, "findclass_scan_duration_seconds", "Duration of searching one archive, module or classes directory.", scans);
+        summary (text, "findclass_lookup_duration_seconds", "Duration of one query of the class index.", lookups);
+        metric (text, "findclass_index_archives", "gauge", "Archives in the class index.");
+        sample (text, "findclass_index_archives", null, indexArchives);
+        metric (text, "findclass_index_symbols", "gauge", "Symbols in the class index.");
+        sample (text, "findclass_index_symbols", null, indexSymbols);
+        metric (text, "findclass_index_bytes", "gauge", "Size of the index file.");
+        sample (text, "findclass_index_bytes", null, indexBytes);
+        metric (text, "findclass_cache_hits_total", "counter", "Lookups answered by a cache.");
+        for (Cache cache: Cache.values ())
+            sample (text, "findclass_cache_hits_total", "cache=\"" + cache.getLabel () + "\"", hits [cache.ordinal ()].sum ());
+        metric (text, "findclass_cache_misses_total", "counter", "Lookups a cache could not answer.");
+        for (Cache cache: Cache.values ())
+            sample (text, "findclass_cache_misses_total", "cache=\"" + cache.getLabel () + "\"", misses [cache.ordinal ()].sum ());
+        metric (text, "findclass_open_archives", "gauge", "Archives currently open.");
+        sample (text, "findclass_open_archives", null, getOpenArchives ());
+        metric (text, "findclass_archives_opened_total", "counter", "Archives opened.");
+        sample (text, "findclass_archives_opened_total", null, opened.sum ());
+        metric (text, "findclass_scan_backlog", "gauge", "Archives, modules and classes directories waiting for or being searched.");
+        sample (text, "findclass_scan_backlog", null, getScanBacklog ());
+        return (text.toString ());
+    }
+
+    /**
+     * <p>
+     * Schreibt die Messwerte in die Datei.  Sie wird zuerst unter einem tempor&auml;ren Namen geschrieben und dann
+     * umbenannt, so dass ein Leser nie eine halb geschriebene Datei sieht.
+     * </p>
+     */
+    private void writeTextfile () {
+        Path    target =    Paths.get (textfile);
+        Path    temp =      Paths.get (textfile + ".tmp");
+
+        try {
+            Files.write (temp, getPrometheusText ().getBytes (StandardCharsets.UTF_8));
+            try {
+                Files.move (temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException amnse) {
+                Files.move (temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException ioe) {
+            System.err.println ("Error writing metrics to \"" + textfile + "\": " + ioe.getMessage ());
+        }
+    }
+}
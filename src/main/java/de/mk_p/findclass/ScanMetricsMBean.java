@@ -0,0 +1,56 @@
+package de.mk_p.findclass;
+
+/**
+ * <p>
+ * Die Schnittstelle von {@linkplain ScanMetrics} f&uuml;r JMX (z.B. <q>jconsole</q>), registriert unter dem Namen
+ * {@value ScanMetrics#OBJECTNAME}.  Dauern werden in Millisekunden geliefert, Trefferquoten zwischen <q>0</q> und
+ * <q>1</q>.
+ * </p>
+ */
+
+public interface ScanMetricsMBean {
+    double getUptimeSeconds ();
+
+    long getQueryCount ();
+
+    double getQueryRate ();
+
+    long getScanCount ();
+
+    double getScanLatencyMedianMillis ();
+
+    double getScanLatency99thPercentileMillis ();
+
+    double getScanLatencyMaxMillis ();
+
+    long getLookupCount ();
+
+    double getLookupLatencyMedianMillis ();
+
+    double getLookupLatency99thPercentileMillis ();
+
+    double getLookupLatencyMaxMillis ();
+
+    long getIndexArchives ();
+
+    long getIndexSymbols ();
+
+    long getIndexBytes ();
+
+    double getIndexHitRate ();
+
+    double getPomCacheHitRate ();
+
+    double getParentPomCacheHitRate ();
+
+    double getClassesDirectoryCacheHitRate ();
+
+    long getOpenArchives ();
+
+    long getScanBacklog ();
+
+    /**
+     * @return Alle Werte im Textformat von Prometheus.
+     */
+    String getPrometheusText ();
+}
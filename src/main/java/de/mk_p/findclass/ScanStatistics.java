@@ -0,0 +1,274 @@
+package de.mk_p.findclass;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Sammelt Zeiten und Z&auml;hler einer Suche f&uuml;r den Schalter <q>-stats</q>.
+ * </p>
+ * <p>
+ * Solange keine Instanz {@linkplain #enable() aktiviert} ist, liefern {@linkplain #start(Phase) start} und
+ * {@linkplain #count(Counter, long) count} sofort zur&uuml;ck, so dass die Messpunkte im Code bleiben k&ouml;nnen.
+ * Die Z&auml;hler sind {@linkplain java.util.concurrent.atomic.LongAdder LongAdder}, da sie von allen Threads der
+ * Suche gleichzeitig erh&ouml;ht werden.
+ * </p>
+ */
+
+public class ScanStatistics {
+
+    /**
+     * <p>
+     * Die Abschnitte einer Suche.  Die Zeiten der Abschnitte, die in den Threads der Suche laufen, werden &uuml;ber
+     * alle Threads summiert.
+     * </p>
+     */
+    public enum Phase {
+        TRAVERSAL   ("traversal",   false),
+        INDEX       ("index",       false),
+        SCAN        ("scan",        false),
+        OPEN        ("open",        true),
+        MATCH       ("match",       true),
+        POM         ("pom",         true),
+        OUTPUT      ("output",      false);
+
+        private final String    label;
+        private final boolean   parallel;
+
+        Phase (String label, boolean parallel) {
+            this.label =    label;
+            this.parallel = parallel;
+        }
+
+        public String getLabel () {
+            return (label);
+        }
+
+        public boolean isParallel () {
+            return (parallel);
+        }
+    }
+
+    /**
+     * <p>
+     * Die Z&auml;hler einer Suche.
+     * </p>
+     */
+    public enum Counter {
+        DIRECTORIES         ("directories visited",     "directoriesVisited"),
+        FILES               ("files visited",           "filesVisited"),
+        ARCHIVES_OPENED     ("archives opened",         "archivesOpened"),
+        ARCHIVES_SKIPPED    ("archives skipped",        "archivesSkipped"),
+        ARCHIVES_FAILED     ("archives failed",         "archivesFailed"),
+        ENTRIES_TESTED      ("entries tested",          "entriesTested"),
+        ARCHIVE_BYTES       ("archive bytes",           "archiveBytes"),
+        ENTRY_BYTES         ("entry bytes read",        "entryBytesRead"),
+        ARCHIVES_MATCHED    ("archives with hits",      "archivesMatched"),
+        HITS                ("hits",                    "hits");
+
+        private final String    label;
+        private final String    key;
+
+        Counter (String label, String key) {
+            this.label =    label;
+            this.key =      key;
+        }
+
+        public String getLabel () {
+            return (label);
+        }
+
+        public String getKey () {
+            return (key);
+        }
+    }
+
+    /**
+     * <p>
+     * Misst die Dauer und die Prozessorzeit eines Abschnitts im aktuellen Thread.
+     * </p>
+     */
+    public static class Timer {
+        private final ScanStatistics    statistics;
+        private final Phase             phase;
+        private final long              wall;
+        private final long              cpu;
+
+        private Timer (ScanStatistics statistics, Phase phase) {
+            this.statistics =   statistics;
+            this.phase =        phase;
+            this.wall =         System.nanoTime ();
+            this.cpu =          (statistics != null) ? statistics.threadCpuTime () : 0l;
+        }
+
+        /**
+         * <p>
+         * Beendet die Messung und addiert sie zum Abschnitt.  Mehrfache Aufrufe addieren mehrfach.
+         * </p>
+         */
+        public void stop () {
+            if (statistics != null) {
+                statistics.wallNanos [phase.ordinal ()].add (System.nanoTime () - wall);
+                statistics.cpuNanos [phase.ordinal ()].add (statistics.threadCpuTime () - cpu);
+            }
+        }
+    }
+
+    private static final Timer              NONE =      new Timer (null, Phase.SCAN);
+
+    private static volatile ScanStatistics  active;
+
+    private final LongAdder []  wallNanos = new LongAdder [Phase.values ().length];
+    private final LongAdder []  cpuNanos =  new LongAdder [Phase.values ().length];
+    private final LongAdder []  counters =  new LongAdder [Counter.values ().length];
+    private final ThreadMXBean  threads =   ManagementFactory.getThreadMXBean ();
+    private final boolean       cpuTime;
+    private final long          started =   System.nanoTime ();
+    private final long          startedCpu;
+
+    private ScanStatistics () {
+        int i;
+
+        for (i = 0; i < wallNanos.length; i++) {
+            wallNanos [i] = new LongAdder ();
+            cpuNanos [i] =  new LongAdder ();
+        }
+        for (i = 0; i < counters.length; i++)
+            counters [i] = new LongAdder ();
+        cpuTime =       threads.isCurrentThreadCpuTimeSupported ();
+        startedCpu =    processCpuTime ();
+    }
+
+    /**
+     * <p>
+     * Aktiviert eine neue Instanz, die ab jetzt alle Messungen sammelt.
+     * </p>
+     */
+    public static ScanStatistics enable () {
+        return (active = new ScanStatistics ());
+    }
+
+    /**
+     * @return Die aktive Instanz, oder: <q>null</q> falls keine Statistik gesammelt wird.
+     */
+    public static ScanStatistics active () {
+        return (active);
+    }
+
+    /**
+     * <p>
+     * Beginnt die Messung eines Abschnitts im aktuellen Thread.
+     * </p>
+     *
+     * @return Die Messung, die mit {@linkplain Timer#stop() stop} beendet wird.  Ohne aktive Instanz eine Messung,
+     *         die nichts tut.
+     */
+    public static Timer start (Phase phase) {
+        ScanStatistics statistics = active;
+
+        return ((statistics != null) ? new Timer (statistics, phase) : NONE);
+    }
+
+    /**
+     * <p>
+     * Erh&ouml;ht einen Z&auml;hler der aktiven Instanz.
+     * </p>
+     */
+    public static void count (Counter counter, long value) {
+        ScanStatistics statistics = active;
+
+        if (statistics != null)
+            statistics.counters [counter.ordinal ()].add (value);
+    }
+
+    public long get (Counter counter) {
+        return (counters [counter.ordinal ()].sum ());
+    }
+
+    public long getWallNanos (Phase phase) {
+        return (wallNanos [phase.ordinal ()].sum ());
+    }
+
+    public long getCpuNanos (Phase phase) {
+        return (cpuNanos [phase.ordinal ()].sum ());
+    }
+
+    private long threadCpuTime () {
+        return ((cpuTime) ? threads.getCurrentThreadCpuTime () : 0l);
+    }
+
+    private static long processCpuTime () {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean ();
+
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return (((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime ());
+        return (-1l);
+    }
+
+    /**
+     * @return Die Anzahl der gelesenen Archive je Sekunde der Suche.
+     */
+    public double getArchivesPerSecond () {
+        long nanos = getWallNanos (Phase.SCAN);
+
+        return ((nanos > 0l) ? (get (Counter.ARCHIVES_OPENED) + get (Counter.ARCHIVES_FAILED)) * 1e9 / nanos : 0.0);
+    }
+
+    private static String millis (long nanos) {
+        return (String.format (Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+
+    /**
+     * <p>
+     * Gibt die Statistik lesbar aus.
+     * </p>
+     */
+    public void print (PrintStream out) {
+        long        cpu =   processCpuTime ();
+        String      name;
+
+        out.println ("statistics:");
+        out.println (String.format (Locale.ROOT, "\t%-12s%14s%14s", "phase", "wall ms", "cpu ms"));
+        for (Phase phase: Phase.values ()) {
+            name = phase.getLabel () + (phase.isParallel () ? "*" : "");
+            out.println (String.format (Locale.ROOT, "\t%-12s%14s%14s", name, millis (getWallNanos (phase)),
+                                        millis (getCpuNanos (phase))));
+        }
+        out.println (String.format (Locale.ROOT, "\t%-12s%14s%14s", "total", millis (System.nanoTime () - started),
+                                    (cpu >= 0l) ? millis (cpu - startedCpu) : "-"));
+        out.println ("\t(* summed over all threads; scan includes writing the hits)");
+        for (Counter counter: Counter.values ())
+            out.println ("\t" + counter.getLabel () + ":\t" + get (counter));
+        out.println (String.format (Locale.ROOT, "\tthroughput:\t%.1f archives/s", getArchivesPerSecond ()));
+    }
+
+    /**
+     * <p>
+     * Gibt die Statistik als ein JSON Objekt in einer Zeile aus.
+     * </p>
+     */
+    public void printJson (PrintStream out) {
+        long            cpu =       processCpuTime ();
+        StringBuilder   json =      new StringBuilder ("{\"phases\":{");
+        String          separator = "";
+
+        for (Phase phase: Phase.values ()) {
+            json.append (separator).append ('"').append (phase.getLabel ()).append ("\":{\"wallMillis\":")
+                .append (millis (getWallNanos (phase))).append (",\"cpuMillis\":").append (millis (getCpuNanos (phase)))
+                .append (",\"parallel\":").append (phase.isParallel ()).append ('}');
+            separator = ",";
+        }
+        json.append ("},\"totalWallMillis\":").append (millis (System.nanoTime () - started));
+        if (cpu >= 0l)
+            json.append (",\"totalCpuMillis\":").append (millis (cpu - startedCpu));
+        for (Counter counter: Counter.values ())
+            json.append (",\"").append (counter.getKey ()).append ("\":").append (get (counter));
+        json.append (",\"archivesPerSecond\":").append (String.format (Locale.ROOT, "%.1f", getArchivesPerSecond ()))
+            .append ('}');
+        out.println (json);
+    }
+}
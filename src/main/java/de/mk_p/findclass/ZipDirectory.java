@@ -0,0 +1,423 @@
+package de.mk_p.findclass;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * <p>
+ * Eine Klasse die das zentrale Verzeichnis eines Zip-Archivs direkt liest.
+ * </p>
+ * <p>
+ * Im Gegensatz zu {@linkplain java.util.zip.ZipFile ZipFile} gibt die Klasse die Positionen der lokalen
+ * Eintr&auml;ge und die Kompressionsart preis, so dass einzelne Bytes eines Eintrags gelesen werden k&ouml;nnen,
+ * ohne den gesamten Eintrag zu dekomprimieren.
+ * </p>
+ */
+
+public class ZipDirectory implements Closeable {
+
+    /**
+     * <p>
+     * Ein Eintrag aus dem zentralen Verzeichnis eines Zip-Archivs.
+     * </p>
+     */
+    public static class Entry {
+        private String  name;
+        private int     flags;
+        private int     method;
+        private long    crc;
+        private long    compressedSize;
+        private long    size;
+        private long    localHeaderOffset;
+        private int     centralOffset;
+        private int     centralLength;
+
+        public String getName () {
+            return (name);
+        }
+
+        public int getFlags () {
+            return (flags);
+        }
+
+        public int getMethod () {
+            return (method);
+        }
+
+        public long getCrc () {
+            return (crc);
+        }
+
+        public long getCompressedSize () {
+            return (compressedSize);
+        }
+
+        public long getSize () {
+            return (size);
+        }
+
+        public long getLocalHeaderOffset () {
+            return (localHeaderOffset);
+        }
+
+        public boolean isDirectory () {
+            return (name.endsWith (ZipHelper.seperator));
+        }
+    }
+
+    static final int            LOCSIG =            0x04034b50;
+    static final int            CENSIG =            0x02014b50;
+    static final int            ENDSIG =            0x06054b50;
+    static final int            ZIP64_ENDSIG =      0x06064b50;
+    static final int            ZIP64_LOCSIG =      0x07064b50;
+    static final int            EXTSIG =            0x08074b50;
+    static final int            LOCHDR =            30;
+    static final int            CENHDR =            46;
+    static final int            ENDHDR =            22;
+    static final int            ZIP64_LOCHDR =      20;
+    static final int            ZIP64_ENDHDR =      56;
+    static final int            ZIP64_EXTRA =       0x0001;
+    static final long           ZIP64_MAGICVAL =    0xFFFFFFFFl;
+    static final Charset        UTF8 =              Charset.forName ("UTF-8");
+
+    private static final ThreadLocal <Inflater> INFLATERS = new ThreadLocal <Inflater> () {
+        @Override
+        protected Inflater initialValue () {
+            return (new Inflater (true));
+        }
+    };
+
+    private static final int                    EXTRACT_CHUNKSIZE = 0x10000;
+
+    private static final ThreadLocal <byte []>  EXTRACT_CHUNKS =    new ThreadLocal <byte []> () {
+        @Override
+        protected byte [] initialValue () {
+            return (new byte [2 * EXTRACT_CHUNKSIZE]);     // compressed and inflated
+        }
+    };
+
+    private String                  archiveName;
+    private FileChannel             channel;
+    private long                    baseOffset;
+    private long                    centralDirectoryOffset;
+    private byte []                 centralDirectory;
+    private Entry []                entries;
+    private Map <String, Entry>     entryMap;
+
+    public ZipDirectory (String archiveName) throws FileNotFoundException, IOException {
+        Path path = Paths.get (archiveName);
+
+        if (!Files.isRegularFile (path))
+            throw new FileNotFoundException (archiveName);
+        this.archiveName = archiveName;
+        this.channel = FileChannel.open (path, StandardOpenOption.READ);
+        try {
+            readCentralDirectory ();
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close ();
+            throw e;
+        }
+    }
+
+    private static ByteBuffer littleEndian (byte [] buffer, int offset, int length) {
+        return (ByteBuffer.wrap (buffer, offset, length).slice ().order (ByteOrder.LITTLE_ENDIAN));
+    }
+
+    private void readFully (ByteBuffer buffer, long position) throws IOException {
+        int len;
+
+        while (buffer.hasRemaining ()) {
+            if ((len = channel.read (buffer, position)) < 0)
+                throw new EOFException (archiveName);
+            position += len;
+        }
+    }
+
+    private void readCentralDirectory () throws IOException {
+        int         i;
+        int         pos;
+        int         count;
+        long        fileSize =  channel.size ();
+        long        endPos =    -1;
+        long        cdSize;
+        long        cdOffset;
+        long        totalEntries;
+        int         tailLength = (int) Math.min (fileSize, ENDHDR + 0xFFFF + ZIP64_LOCHDR);
+        byte []     tail =       new byte [tailLength];
+        ByteBuffer  end;
+
+        readFully (ByteBuffer.wrap (tail), fileSize - tailLength);
+        for (i = tailLength - ENDHDR; i >= 0; i--)
+            if (littleEndian (tail, i, 4).getInt (0) == ENDSIG) {
+                endPos = fileSize - tailLength + i;
+                break;
+            }
+        if (endPos < 0)
+            throw new ZipException ("end of central directory not found: " + archiveName);
+        end = littleEndian (tail, i, ENDHDR);
+        totalEntries = end.getShort (10) & 0xFFFF;
+        cdSize = end.getInt (12) & ZIP64_MAGICVAL;
+        cdOffset = end.getInt (16) & ZIP64_MAGICVAL;
+        if ((i >= ZIP64_LOCHDR) && (littleEndian (tail, i - ZIP64_LOCHDR, 4).getInt (0) == ZIP64_LOCSIG)) {
+            ByteBuffer zip64End = ByteBuffer.allocate (ZIP64_ENDHDR).order (ByteOrder.LITTLE_ENDIAN);
+
+            readFully (zip64End, littleEndian (tail, i - ZIP64_LOCHDR, ZIP64_LOCHDR).getLong (8));
+            if (zip64End.getInt (0) == ZIP64_ENDSIG) {
+                totalEntries = zip64End.getLong (32);
+                cdSize = zip64End.getLong (40);
+                cdOffset = zip64End.getLong (48);
+                endPos = littleEndian (tail, i - ZIP64_LOCHDR, ZIP64_LOCHDR).getLong (8);
+            }
+        }
+        if ((cdSize > Integer.MAX_VALUE) || (cdSize > endPos))
+            throw new ZipException ("invalid central directory size: " + archiveName);
+        // Archives with prepended data (e.g. self-extracting or "executable" jars) have relative offsets.
+        baseOffset = endPos - cdSize - cdOffset;
+        centralDirectoryOffset = endPos - cdSize;
+        centralDirectory = new byte [(int) cdSize];
+        readFully (ByteBuffer.wrap (centralDirectory), centralDirectoryOffset);
+        entries = new Entry [(int) Math.min (totalEntries, cdSize / CENHDR)];
+        entryMap = new HashMap <> (entries.length * 4 / 3 + 1);
+        for (pos = 0, count = 0; (count < entries.length) && (pos + CENHDR <= centralDirectory.length); count++)
+            pos = readEntry (count, pos);
+    }
+
+    private int readEntry (int index, int pos) throws ZipException {
+        int         nameLength;
+        int         extraLength;
+        int         commentLength;
+        int         extraPos;
+        int         extraEnd;
+        int         id;
+        int         length;
+        int         valuePos;
+        Entry       entry =     new Entry ();
+        ByteBuffer  header =    littleEndian (centralDirectory, pos, CENHDR);
+
+        if (header.getInt (0) != CENSIG)
+            throw new ZipException ("invalid central directory header: " + archiveName);
+        nameLength = header.getShort (28) & 0xFFFF;
+        extraLength = header.getShort (30) & 0xFFFF;
+        commentLength = header.getShort (32) & 0xFFFF;
+        if (pos + CENHDR + nameLength + extraLength + commentLength > centralDirectory.length)
+            throw new ZipException ("truncated central directory: " + archiveName);
+        entry.flags = header.getShort (8) & 0xFFFF;
+        entry.method = header.getShort (10) & 0xFFFF;
+        entry.crc = header.getInt (16) & ZIP64_MAGICVAL;
+        entry.compressedSize = header.getInt (20) & ZIP64_MAGICVAL;
+        entry.size = header.getInt (24) & ZIP64_MAGICVAL;
+        entry.localHeaderOffset = header.getInt (42) & ZIP64_MAGICVAL;
+        entry.name = new String (centralDirectory, pos + CENHDR, nameLength, UTF8);
+        extraPos = pos + CENHDR + nameLength;
+        extraEnd = extraPos + extraLength;
+        while (extraPos + 4 <= extraEnd) {
+            ByteBuffer extra = littleEndian (centralDirectory, extraPos, extraEnd - extraPos);
+
+            id = extra.getShort (0) & 0xFFFF;
+            length = extra.getShort (2) & 0xFFFF;
+            if (id == ZIP64_EXTRA) {
+                valuePos = 4;
+                if ((entry.size == ZIP64_MAGICVAL) && (valuePos + 8 <= 4 + length)) {
+                    entry.size = extra.getLong (valuePos);
+                    valuePos += 8;
+                }
+                if ((entry.compressedSize == ZIP64_MAGICVAL) && (valuePos + 8 <= 4 + length)) {
+                    entry.compressedSize = extra.getLong (valuePos);
+                    valuePos += 8;
+                }
+                if ((entry.localHeaderOffset == ZIP64_MAGICVAL) && (valuePos + 8 <= 4 + length))
+                    entry.localHeaderOffset = extra.getLong (valuePos);
+                break;
+            }
+            extraPos += 4 + length;
+        }
+        entry.centralOffset = pos;
+        entry.centralLength = CENHDR + nameLength + extraLength + commentLength;
+        entries [index] = entry;
+        if (!entryMap.containsKey (entry.name))
+            entryMap.put (entry.name, entry);
+        return (pos + entry.centralLength);
+    }
+
+    public String getName () {
+        return (archiveName);
+    }
+
+    public Entry [] getEntries () {
+        return (entries);
+    }
+
+    public Entry getEntry (String name) {
+        return (entryMap.get (name));
+    }
+
+    /**
+     * <p>
+     * Liefert die L&auml;nge der Daten, die dem Archiv vorangestellt sind (z.B. bei selbstentpackenden Archiven).
+     * Die Positionen im zentralen Verzeichnis sind relativ zum Ende dieser Daten.
+     * </p>
+     */
+    public long getBaseOffset () {
+        return (baseOffset);
+    }
+
+    /**
+     * <p>
+     * Liefert die Position des zentralen Verzeichnisses innerhalb der Datei.
+     * </p>
+     *
+     * @return Die absolute Position des ersten Eintrags im zentralen Verzeichnis.
+     */
+    public long getCentralDirectoryOffset () {
+        return (centralDirectoryOffset);
+    }
+
+    /**
+     * <p>
+     * Liefert die absolute Position der Nutzdaten eines Eintrags.
+     * Dazu wird der lokale Kopf des Eintrags gelesen, da dessen Zusatzfeld vom zentralen Verzeichnis abweichen kann.
+     * </p>
+     *
+     * @param  entry        Der Eintrag dessen Nutzdaten gesucht werden.
+     * @return Die absolute Position des ersten (komprimierten) Bytes des Eintrags.
+     * @throws IOException  Falls der lokale Kopf nicht gelesen werden kann oder ung&uuml;ltig ist.
+     */
+    public long getDataOffset (Entry entry) throws IOException {
+        long        position =  baseOffset + entry.localHeaderOffset;
+        ByteBuffer  header =    ByteBuffer.allocate (LOCHDR).order (ByteOrder.LITTLE_ENDIAN);
+
+        readFully (header, position);
+        if (header.getInt (0) != LOCSIG)
+            throw new ZipException ("invalid local header: " + entry.name);
+        return (position + LOCHDR + (header.getShort (26) & 0xFFFF) + (header.getShort (28) & 0xFFFF));
+    }
+
+    /**
+     * <p>
+     * Liefert eine Kopie des Eintrags im zentralen Verzeichnis (Kopf, Name, Zusatzfeld und Kommentar).
+     * </p>
+     */
+    byte [] getCentralHeader (Entry entry) {
+        return (Arrays.copyOfRange (centralDirectory, entry.centralOffset, entry.centralOffset + entry.centralLength));
+    }
+
+    /**
+     * <p>
+     * Kopiert einen Eintrag unver&auml;ndert, d.h. lokalen Kopf, komprimierte Nutzdaten und ggf. den
+     * <q>Data Descriptor</q>, mit {@linkplain java.nio.channels.FileChannel#transferTo(long, long,
+     * WritableByteChannel) transferTo} in <q>target</q>.
+     * Die Nutzdaten werden dabei weder dekomprimiert noch komprimiert.
+     * </p>
+     *
+     * @return Die Anzahl der kopierten Bytes.
+     */
+    long transferEntry (Entry entry, WritableByteChannel target) throws IOException {
+        long        start =     baseOffset + entry.localHeaderOffset;
+        long        end =       getDataOffset (entry) + entry.compressedSize;
+        long        position;
+        long        len;
+        ByteBuffer  signature;
+
+        if ((entry.flags & 0x8) != 0) {    // followed by a data descriptor
+            signature = ByteBuffer.allocate (4).order (ByteOrder.LITTLE_ENDIAN);
+            readFully (signature, end);
+            if (signature.getInt (0) == EXTSIG)
+                end += 4;
+            end += ((entry.compressedSize >= ZIP64_MAGICVAL) || (entry.size >= ZIP64_MAGICVAL)) ? 20 : 12;
+        }
+        for (position = start; position < end; position += len)
+            if ((len = channel.transferTo (position, end - position, target)) <= 0)
+                throw new EOFException (archiveName + ": " + entry.name);
+        return (end - start);
+    }
+
+    /**
+     * <p>
+     * Schreibt den Inhalt eines Eintrags ab der aktuellen Position in <q>target</q>.
+     * </p>
+     * <p>
+     * Unkomprimierte (<q>STORED</q>) Eintr&auml;ge werden mit {@linkplain java.nio.channels.FileChannel#transferTo(long,
+     * long, WritableByteChannel) transferTo} ohne Umweg &uuml;ber einen Puffer kopiert.
+     * Komprimierte (<q>DEFLATED</q>) Eintr&auml;ge werden mit dem {@linkplain java.util.zip.Inflater Inflater} und
+     * den Puffern des aktuellen {@linkplain java.lang.Thread Threads} dekomprimiert.
+     * Da nur positionsbezogen gelesen wird, k&ouml;nnen mehrere Threads gleichzeitig Eintr&auml;ge schreiben.
+     * </p>
+     *
+     * @return Die Anzahl der geschriebenen Bytes.
+     * @throws IOException  Falls der Eintrag nicht gelesen werden kann oder eine unbekannte Kompressionsart verwendet.
+     */
+    public long extract (Entry entry, WritableByteChannel target) throws IOException {
+        int         len;
+        long        transferred;
+        long        written =   0;
+        long        position =  getDataOffset (entry);
+        long        remaining = entry.compressedSize;
+        byte []     chunks;
+        Inflater    inflater;
+        ByteBuffer  output;
+
+        if (entry.method == ZipEntry.STORED) {
+            for (; written < entry.compressedSize; written += transferred)
+                if ((transferred = channel.transferTo (position + written, entry.compressedSize - written, target)) <= 0)
+                    throw new EOFException (archiveName + ": " + entry.name);
+            return (written);
+        }
+        else if (entry.method != ZipEntry.DEFLATED)
+            throw new ZipException ("unsupported compression method " + entry.method + ": " + entry.name);
+        chunks = EXTRACT_CHUNKS.get ();
+        inflater = INFLATERS.get ();
+        inflater.reset ();
+        try {
+            while (!inflater.finished ()) {
+                if (inflater.needsInput ()) {
+                    if (remaining <= 0)
+                        throw new EOFException (archiveName + ": " + entry.name);
+                    len = (int) Math.min (EXTRACT_CHUNKSIZE, remaining);
+                    readFully (ByteBuffer.wrap (chunks, 0, len), position);
+                    position += len;
+                    remaining -= len;
+                    inflater.setInput (chunks, 0, len);
+                }
+                if ((len = inflater.inflate (chunks, EXTRACT_CHUNKSIZE, EXTRACT_CHUNKSIZE)) > 0) {
+                    output = ByteBuffer.wrap (chunks, EXTRACT_CHUNKSIZE, len);
+                    while (output.hasRemaining ())
+                        target.write (output);
+                    written += len;
+                }
+                else if (inflater.needsDictionary ())
+                    throw new ZipException ("preset dictionary not supported: " + entry.name);
+            }
+        }
+        catch (DataFormatException dfe) {
+            throw new ZipException ("invalid compressed data in " + entry.name + ": " + dfe.getMessage ());
+        }
+        finally {
+            inflater.reset ();
+        }
+        return (written);
+    }
+
+    @Override
+    public void close () throws IOException {
+        channel.close ();
+    }
+}
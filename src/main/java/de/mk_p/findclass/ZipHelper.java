@@ -1,31 +1,53 @@
 package de.mk_p.findclass;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Serializable;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Formatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 /**
  * <p>
@@ -107,21 +129,322 @@ public class ZipHelper {
     private static final int   GET =   2;
     private static final int   PRINT = 3;
 
+    /**
+     * <p>
+     * Die Endung der Datei, in der {@linkplain #setInPlace(boolean) beim Anh&auml;ngen ohne Neuschreiben} das
+     * bisherige zentrale Verzeichnis gesichert wird, bis das Archiv wieder vollst&auml;ndig ist.
+     * </p>
+     */
+    public static final String FOOTER_SUFFIX =              ".footer";
+
+    private static final long  PRESIZE_MINIMUM =            0x100000l;
+    private static final int   PRINT_BUFFERSIZE =           0x10000;
+
     private String             archiveName;
+    private boolean            inPlace;
+    private int                level =                      Deflater.DEFAULT_COMPRESSION;
+    private boolean            storeIncompressible =        true;
+    private int                threads =                    Runtime.getRuntime ().availableProcessors ();
 
     private ZipFile openZipFile (String archiveName) throws FileNotFoundException, IOException {
-        File zipFile = new File (archiveName);
+        File                zipFile =   new File (archiveName);
+        FlightEvents.Span   event =     FlightEvents.archiveOpen (archiveName);
+        ZipFile             retVal;
 
-        if (zipFile.exists ())
-            return (new ZipFile (archiveName));
-        else
+        if (zipFile.exists ()) {
+            try {
+                retVal = new CountedZipFile (archiveName);
+            }
+            catch (ZipException ze) {
+                event.finish (0l, zipFile.length (), "not a zip archive");
+                throw ze;
+            }
+            catch (IOException ioe) {
+                event.finish (0l, zipFile.length (), "unreadable");
+                throw ioe;
+            }
+            event.finish (retVal.size (), zipFile.length (), "opened");
+            return (retVal);
+        }
+        else {
+            event.finish (0l, 0l, "not found");
             throw new FileNotFoundException (archiveName);
+        }
     }
 
     public ZipHelper (String archiveName) {
         this.archiveName = archiveName;
     }
 
+    /**
+     * <p>
+     * Ein {@linkplain java.util.zip.ZipFile ZipFile}, das die ge&ouml;ffneten Archive f&uuml;r
+     * {@linkplain ScanMetrics} z&auml;hlt.
+     * </p>
+     */
+    private static class CountedZipFile extends ZipFile {
+        private final AtomicBoolean open = new AtomicBoolean (true);
+
+        CountedZipFile (String name) throws IOException {
+            super (name);
+            ScanMetrics.archiveOpened ();
+        }
+
+        @Override
+        public void close () throws IOException {
+            if (open.compareAndSet (true, false))
+                ScanMetrics.archiveClosed ();
+            super.close ();
+        }
+    }
+
+    /**
+     * <p>
+     * Eine Sitzung, in der das Archiv nur einmal ge&ouml;ffnet wird.
+     * Namenssuchen, das Lesen von Eintr&auml;gen und die Suche nach den Maven Koordinaten verwenden dasselbe
+     * {@linkplain java.util.zip.ZipFile ZipFile}, so dass das zentrale Verzeichnis nur einmal gelesen wird.
+     * Das Archiv wird erst bei der ersten Verwendung ge&ouml;ffnet und mit {@linkplain #close() close} geschlossen.
+     * </p>
+     * <p>
+     * Eine Sitzung kann von mehreren {@linkplain java.lang.Thread Threads} gleichzeitig verwendet werden.
+     * </p>
+     */
+    public class Session implements Closeable {
+        private ZipFile     archive;
+        private long        modified;
+        private SessionPool pool;
+        private int         users;          // guarded by pool
+        private boolean     retired;        // guarded by pool
+
+        private Session (SessionPool pool) {
+            this.pool = pool;
+        }
+
+        public String getName () {
+            return (archiveName);
+        }
+
+        public synchronized ZipFile getZipFile () throws FileNotFoundException, IOException {
+            if (archive == null) {
+                modified = new File (archiveName).lastModified ();
+                archive = openZipFile (archiveName);
+            }
+            return (archive);
+        }
+
+        public String [] getNames (String [] filters, long options) throws ZipException, IOException {
+            return (ZipHelper.getNames (getZipFile (), filters, options));
+        }
+
+        public InputStream get (String entryName) throws FileNotFoundException, IOException {
+            return (ZipHelper.this.get (getZipFile (), entryName));
+        }
+
+        public StringBuilder getString (String entryName) throws FileNotFoundException, IOException {
+            try (InputStream in = get (entryName)) {
+                return (readString (in));
+            }
+        }
+
+        public StringBuilder [] getEntriesAsString (String namePatternString)
+                                                    throws ZipException, FileNotFoundException, IOException {
+            String []               entryNames =    getNames (new String [] {namePatternString}, WITH_DIRECTORIES);
+            List <StringBuilder>    retVal =        new ArrayList <> ();
+
+            for (String entryName: entryNames)
+                retVal.add (getString (entryName));
+            return (retVal.toArray (new StringBuilder [retVal.size ()]));
+        }
+
+        /**
+         * <p>
+         * Schreibt alle Eintr&auml;ge, deren Namen <q>namePatternString</q> entsprechen, nacheinander nach
+         * <q>out</q>, jeden gefolgt von einem Zeilenwechsel.
+         * Der Inhalt wird st&uuml;ckweise &uuml;ber einen wiederverwendeten Puffer kopiert, so dass der
+         * Speicherbedarf nicht von der Gr&ouml;&szlig;e der Eintr&auml;ge abh&auml;ngt.
+         * </p>
+         *
+         * @param  charset  Der Zeichensatz der Eintr&auml;ge, die in den Standardzeichensatz umgewandelt werden,
+         *                  oder: <q>null</q> falls die Bytes unver&auml;ndert kopiert werden.
+         * @return Die Anzahl der geschriebenen Eintr&auml;ge.
+         */
+        public int print (String namePatternString, OutputStream out, Charset charset)
+                          throws ZipException, FileNotFoundException, IOException {
+            int             len;
+            int             retVal =    0;
+            byte []         bytes =     (charset == null) ? new byte [PRINT_BUFFERSIZE] : null;
+            char []         chars =     (charset != null) ? new char [PRINT_BUFFERSIZE] : null;
+            Writer          writer =    (charset != null) ? new OutputStreamWriter (out) : null;
+            Reader          reader;
+
+            for (String entryName: getNames (new String [] {namePatternString}, WITHOUT_DIRECTORIES)) {
+                try (InputStream in = get (entryName)) {
+                    if (writer == null) {
+                        while ((len = in.read (bytes)) > 0)
+                            out.write (bytes, 0, len);
+                        out.write ('\n');
+                    }
+                    else {
+                        reader = new InputStreamReader (in, charset);
+                        while ((len = reader.read (chars)) > 0)
+                            writer.write (chars, 0, len);
+                        writer.write ('\n');
+                        writer.flush ();
+                    }
+                }
+                retVal++;
+            }
+            out.flush ();
+            return (retVal);
+        }
+
+        @SuppressWarnings ("unchecked")
+        public <T> T getObject (String entryName, T object)
+                                throws FileNotFoundException, IOException, ClassNotFoundException {
+            try (ObjectInputStream in = new ObjectInputStream (get (entryName))) {
+                return (object = (T) in.readObject ());
+            }
+        }
+
+        /**
+         * <p>
+         * Beendet die Sitzung.
+         * Geh&ouml;rt die Sitzung zu einem {@linkplain SessionPool SessionPool}, bleibt das Archiv f&uuml;r weitere
+         * Sitzungen ge&ouml;ffnet, bis es aus dem Pool verdr&auml;ngt wird.
+         * </p>
+         */
+        @Override
+        public void close () throws IOException {
+            if (pool != null)
+                pool.release (this);
+            else
+                closeArchive ();
+        }
+
+        private synchronized boolean isStale () {
+            return ((archive != null) && (modified != new File (archiveName).lastModified ()));
+        }
+
+        private synchronized void closeArchive () throws IOException {
+            if (archive != null)
+                archive.close ();
+            archive = null;
+        }
+    }
+
+    /**
+     * <p>
+     * Ein Pool ge&ouml;ffneter Archive mit begrenzter Gr&ouml;&szlig;e.
+     * Wird ein Archiv ben&ouml;tigt, das nicht im Pool enthalten ist, und ist der Pool voll, wird das am
+     * l&auml;ngsten nicht verwendete Archiv geschlossen, sobald dessen letzte Sitzung beendet ist.
+     * Archive, die seit dem &Ouml;ffnen ge&auml;ndert wurden, werden neu ge&ouml;ffnet.
+     * </p>
+     */
+    public static class SessionPool implements Closeable {
+        private final int                   capacity;
+        private final Map <String, Session> sessions;
+
+        public SessionPool (int capacity) {
+            this.capacity = capacity;
+            this.sessions = new LinkedHashMap <String, Session> (16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry (Map.Entry <String, Session> eldest) {
+                    if (size () <= SessionPool.this.capacity)
+                        return (false);
+                    retire (eldest.getValue ());
+                    return (true);
+                }
+            };
+        }
+
+        /**
+         * <p>
+         * Liefert eine Sitzung f&uuml;r das Archiv <q>archiveName</q>, die mit {@linkplain Session#close() close}
+         * beendet werden muss.
+         * </p>
+         */
+        public synchronized Session getSession (String archiveName) {
+            Session session = sessions.get (archiveName);
+
+            if ((session != null) && session.isStale ()) {
+                sessions.remove (archiveName);
+                retire (session);
+                session = null;
+            }
+            if (session == null)
+                sessions.put (archiveName, session = new ZipHelper (archiveName).new Session (this));
+            session.users++;
+            return (session);
+        }
+
+        /**
+         * <p>
+         * Liefert einen Eintrag eines Archivs aus dem Pool.
+         * Das Archiv bleibt ge&ouml;ffnet, bis der gelieferte Datenstrom geschlossen wurde.
+         * </p>
+         */
+        public InputStream get (String archiveName, String entryName) throws FileNotFoundException, IOException {
+            final Session   session =   getSession (archiveName);
+            InputStream     in =        null;
+
+            try {
+                return (in = new FilterInputStream (session.get (entryName)) {
+                    @Override
+                    public void close () throws IOException {
+                        try {
+                            super.close ();
+                        }
+                        finally {
+                            session.close ();
+                        }
+                    }
+                });
+            }
+            finally {
+                if (in == null)
+                    session.close ();
+            }
+        }
+
+        private synchronized void release (Session session) throws IOException {
+            if ((--session.users == 0) && session.retired)
+                session.closeArchive ();
+        }
+
+        private void retire (Session session) {
+            session.retired = true;
+            if (session.users == 0)
+                try {
+                    session.closeArchive ();
+                }
+                catch (IOException ioe) {
+                    // nothing left to do with this archive
+                }
+        }
+
+        /**
+         * <p>
+         * Schlie&szlig;t alle Archive, deren Sitzungen beendet sind; die &uuml;brigen werden mit ihrer letzten
+         * Sitzung geschlossen.
+         * </p>
+         */
+        @Override
+        public synchronized void close () {
+            for (Session session: sessions.values ())
+                retire (session);
+            sessions.clear ();
+        }
+    }
+
+    /**
+     * <p>
+     * Er&ouml;ffnet eine {@linkplain Session Sitzung} f&uuml;r das Archiv.
+     * </p>
+     */
+    public Session openSession () {
+        return (new Session (null));
+    }
+
     public String normaliseEntryname (String entryName) {
         return (entryName.replace ('\\', seperatorChar));
     }
@@ -130,6 +453,173 @@ public class ZipHelper {
         return (archiveName);
     }
 
+    /**
+     * <p>
+     * Legt fest, ob {@linkplain #append(String, InputStream) append} und
+     * {@linkplain #appendObject(String, Serializable) appendObject} das Archiv neu schreiben (Voreinstellung) oder
+     * die neuen Eintr&auml;ge an Ort und Stelle anh&auml;ngen.
+     * </p>
+     * <p>
+     * Beim Anh&auml;ngen an Ort und Stelle werden die neuen Eintr&auml;ge ab der Position des zentralen
+     * Verzeichnisses geschrieben, gefolgt von einem neuen zentralen Verzeichnis, in dem ersetzte Eintr&auml;ge fehlen.
+     * Die Kosten h&auml;ngen damit nur von der Gr&ouml;&szlig;e der neuen Eintr&auml;ge und des zentralen
+     * Verzeichnisses ab, nicht von der Gr&ouml;&szlig;e des Archivs.
+     * Die Daten ersetzter Eintr&auml;ge bleiben als ungenutzte Bytes im Archiv; machen diese mehr als die
+     * H&auml;lfte des Archivs aus, wird das Archiv stattdessen neu geschrieben.
+     * </p>
+     * <p>
+     * Vor dem ersten schreibenden Zugriff wird das bisherige zentrale Verzeichnis in der Datei
+     * <q>archiveName</q>{@value #FOOTER_SUFFIX} gesichert, die erst nach dem vollst&auml;ndigen Schreiben gel&ouml;scht
+     * wird.
+     * Wird das Anh&auml;ngen unterbrochen, stellt {@linkplain #recover() recover} den vorherigen Zustand wieder her.
+     * </p>
+     */
+    public void setInPlace (boolean inPlace) {
+        this.inPlace = inPlace;
+    }
+
+    public boolean isInPlace () {
+        return (inPlace);
+    }
+
+    /**
+     * <p>
+     * Die Kompressionsstufe neuer Eintr&auml;ge (0-9, oder: {@linkplain java.util.zip.Deflater#DEFAULT_COMPRESSION
+     * DEFAULT_COMPRESSION}).
+     * </p>
+     */
+    public void setLevel (int level) {
+        this.level = level;
+    }
+
+    /**
+     * <p>
+     * Legt fest, ob Dateien, die durch Komprimieren nicht kleiner werden, unkomprimiert (<q>STORED</q>) abgelegt
+     * werden (Voreinstellung: <q>true</q>).
+     * </p>
+     */
+    public void setStoreIncompressible (boolean storeIncompressible) {
+        this.storeIncompressible = storeIncompressible;
+    }
+
+    /**
+     * <p>
+     * Die Anzahl der Threads, mit denen {@linkplain #wrap(String[]) wrap} und {@linkplain #addFiles(String[])
+     * addFiles} Dateien gleichzeitig komprimieren (Voreinstellung: die Anzahl der Prozessoren).
+     * </p>
+     */
+    public void setThreads (int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * <p>
+     * Stellt ein Archiv wieder her, dessen {@linkplain #setInPlace(boolean) Anh&auml;ngen an Ort und Stelle}
+     * unterbrochen wurde: das gesicherte zentrale Verzeichnis wird an seine alte Position zur&uuml;ckgeschrieben und
+     * das Archiv auf seine alte L&auml;nge gek&uuml;rzt.
+     * </p>
+     *
+     * @return <q>true</q> falls das Archiv wiederhergestellt wurde.
+     */
+    public boolean recover () throws IOException {
+        long            offset;
+        long            length;
+        File            footer =    new File (archiveName + FOOTER_SUFFIX);
+        byte []         content;
+        ByteBuffer      buffer;
+
+        if (!footer.isFile ())
+            return (false);
+        content = Files.readAllBytes (footer.toPath ());
+        buffer = ByteBuffer.wrap (content);
+        if ((content.length >= 16) &&
+            ((offset = buffer.getLong (0)) >= 0) && ((length = buffer.getLong (8)) == offset + content.length - 16))
+            try (FileChannel channel = FileChannel.open (Paths.get (archiveName), StandardOpenOption.WRITE)) {
+                buffer.position (16);
+                while (buffer.hasRemaining ())
+                    offset += channel.write (buffer, offset);
+                channel.truncate (length);
+                channel.force (true);
+            }
+        footer.delete ();
+        return (true);
+    }
+
+    /**
+     * <p>
+     * Sichert alles ab <q>offset</q> (zentrales Verzeichnis und dessen Abschluss) f&uuml;r
+     * {@linkplain #recover() recover}.
+     * Die Sicherung wird zuerst vollst&auml;ndig in eine tempor&auml;re Datei geschrieben und dann umbenannt, so
+     * dass eine vorhandene Sicherung immer vollst&auml;ndig ist.
+     * </p>
+     */
+    private void saveFooter (FileChannel channel, long offset) throws IOException {
+        long            length =    channel.size ();
+        Path            footer =    Paths.get (archiveName + FOOTER_SUFFIX);
+        Path            tempFile =  Paths.get (archiveName + FOOTER_SUFFIX + ".tmp");
+        ByteBuffer      header =    ByteBuffer.allocate (16);
+
+        header.putLong (offset).putLong (length);
+        ((Buffer) header).flip ();
+        try (FileChannel out = FileChannel.open (tempFile, StandardOpenOption.CREATE,
+                                                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining ())
+                out.write (header);
+            while (offset < length)
+                offset += channel.transferTo (offset, length - offset, out);
+            out.force (true);
+        }
+        Files.move (tempFile, footer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * <p>
+     * H&auml;ngt neue Eintr&auml;ge an Ort und Stelle an (siehe {@linkplain #setInPlace(boolean) setInPlace}).
+     * </p>
+     *
+     * @return Die Anzahl der &uuml;bernommenen Eintr&auml;ge, oder: <q>-1</q> falls das Archiv neu geschrieben
+     *         werden muss.
+     */
+    private int appendInPlace (String [] names, String [] files, EntryContent [] contents, Set <String> replaced)
+                               throws IOException {
+        int                 retVal =    0;
+        long                live =      0;
+        long                offset;
+        boolean             done =      false;
+        ZipWriter           writer;
+
+        try (ZipDirectory oldArchive = new ZipDirectory (archiveName);
+             FileChannel channel = FileChannel.open (Paths.get (archiveName), StandardOpenOption.READ,
+                                                     StandardOpenOption.WRITE)) {
+            if (oldArchive.getBaseOffset () != 0)
+                return (-1);
+            offset = oldArchive.getCentralDirectoryOffset ();
+            for (ZipDirectory.Entry entry: oldArchive.getEntries ())
+                if (!replaced.contains (entry.getName ()))
+                    live += ZipDirectory.LOCHDR + entry.getName ().length () + entry.getCompressedSize ();
+            if (2 * (offset - live) > offset)
+                return (-1);    // mostly superseded data, compact it
+            writer = configure (new ZipWriter (channel));
+            for (ZipDirectory.Entry entry: oldArchive.getEntries ())
+                if (!replaced.contains (entry.getName ())) {
+                    writer.keep (oldArchive, entry);
+                    retVal++;
+                }
+            saveFooter (channel, offset);
+            channel.position (offset);
+            writeEntries (writer, names, files, contents);
+            writer.finish ();
+            channel.force (true);
+            done = true;
+        }
+        finally {
+            if (!done)
+                recover ();     // the channel is closed already
+        }
+        new File (archiveName + FOOTER_SUFFIX).delete ();
+        return (retVal);
+    }
+
     public static void zip (String filename, String archivename) throws FileNotFoundException, IOException {
         ZipHelper zipHelper = new ZipHelper (archivename);
         
@@ -144,275 +634,296 @@ public class ZipHelper {
         return (archive.getInputStream (entry));
     }
 
+    /**
+     * <p>
+     * Liefert alle Eintr&auml;ge deren Namen <q>entryNamePattern</q> entsprechen.
+     * Das Archiv wird einmal ge&ouml;ffnet und geschlossen, sobald alle gelieferten Datenstr&ouml;me geschlossen
+     * wurden.
+     * </p>
+     */
     public InputStream [] getMulti (String entryNamePattern) throws FileNotFoundException, IOException {
-        ZipEntry                            entry;
-        String []                           entryNames = findEntries (entryNamePattern);
-        ZipFile                             archive =    openZipFile (archiveName);
-        List <InputStream>                  retVals = new ArrayList <> ();
+        int                                 i;
+        final ZipFile                       archive =   openZipFile (archiveName);
+        final AtomicInteger                 open;
+        String []                           entryNames;
+        InputStream []                      retVals;
 
+        try {
+            entryNames = getNames (archive, new String [] {entryNamePattern}, WITH_DIRECTORIES);
+            retVals = new InputStream [entryNames.length];
+            open = new AtomicInteger (entryNames.length);
+            for (i = 0; i < entryNames.length; i++)
+                retVals [i] = new FilterInputStream (get (archive, entryNames [i])) {
+                    private boolean closed = false;
 
-        for (String entryName: entryNames) {
-            entry = archive.getEntry (normaliseEntryname (entryName));
-            InputStream is = get (entryName);
-            if (entry == null)
-                throw new FileNotFoundException (entryName);
-            retVals.add (get (entryName));
+                    @Override
+                    public void close () throws IOException {
+                        super.close ();
+                        if (!closed && (open.decrementAndGet () == 0))
+                            archive.close ();
+                        closed = true;
+                    }
+                };
+        }
+        catch (IOException ioe) {
+            archive.close ();
+            throw ioe;
         }
-        return (retVals.toArray (new InputStream [retVals.size ()]));
+        if (entryNames.length == 0)
+            archive.close ();
+        return (retVals);
     }
 
+    /**
+     * <p>
+     * Liefert einen Eintrag des Archivs.
+     * Das Archiv wird geschlossen, sobald der gelieferte Datenstrom geschlossen wurde.
+     * </p>
+     */
     public InputStream get (String entryName) throws FileNotFoundException, IOException {
-        return (get (openZipFile (archiveName), entryName));
+        final ZipFile   archive =   openZipFile (archiveName);
+
+        try {
+            return (new FilterInputStream (get (archive, entryName)) {
+                @Override
+                public void close () throws IOException {
+                    try {
+                        super.close ();
+                    }
+                    finally {
+                        archive.close ();
+                    }
+                }
+            });
+        }
+        catch (IOException ioe) {
+            archive.close ();
+            throw ioe;
+        }
     }
 
-    public StringBuilder getString (String entryName) throws FileNotFoundException, IOException {
+    private static StringBuilder readString (InputStream in) throws IOException {
         int             len;
         char []         buffer =    new char [DEFAULT_BUFERSIZE];
         StringBuilder   retVal =    new StringBuilder ();
-        Reader          entryIn =   new InputStreamReader (get (entryName));
+        Reader          entryIn =   new InputStreamReader (in);
 
         while ((len = entryIn.read (buffer, 0, buffer.length)) > 0)
             retVal.append (buffer, 0, len);
         return (retVal);
     }
 
-    @SuppressWarnings ("unchecked")
+    public StringBuilder getString (String entryName) throws FileNotFoundException, IOException {
+        try (Session session = openSession ()) {
+            return (session.getString (entryName));
+        }
+    }
+
     public <T> T getObject (String entryName, T object)
                             throws FileNotFoundException, IOException, ClassNotFoundException {
-        return (object = (T) new ObjectInputStream (get (entryName)).readObject ());
+        recover ();
+        try (Session session = openSession ()) {
+            return (session.getObject (entryName, object));
+        }
     }
 
-    public String [] addFiles (String [] files) throws IOException {
-        int             i;
-        int             len;
-        String          name;
-        File            tempFile =      File.createTempFile (archiveName, null);
-        byte []         buffer =        new byte [DEFAULT_BUFERSIZE];
-        List <String>   errorFiles =    new ArrayList <String> ();
-        List <String>   successFiles =  new ArrayList <String> ();
-        File            zipFile =       new File (archiveName);
-        ZipEntry        entry;
-        ZipInputStream  zipOldStream;
-        ZipOutputStream zipOutStream;
-        FileInputStream entryIn =       null;
-
-        tempFile.delete ();  // delete it, otherwise you cannot rename your existing zip to it.
-        if (!zipFile.renameTo (tempFile))
-            throw new IOException ("could not rename the file " + zipFile.getAbsolutePath () + " to " + tempFile.getAbsolutePath ());
-        zipOldStream = new ZipInputStream (new FileInputStream (tempFile));
-        zipOutStream = new ZipOutputStream (new FileOutputStream (zipFile));
+    /**
+     * <p>
+     * Der Inhalt eines neuen Eintrags f&uuml;r {@linkplain #rewrite(String[], EntryContent[], boolean) rewrite}.
+     * </p>
+     */
+    private interface EntryContent {
+        void writeTo (OutputStream out) throws IOException;
+    }
+
+    /**
+     * <p>
+     * Schreibt das Archiv mit neuen Eintr&auml;gen neu.
+     * Die bisherigen Eintr&auml;ge werden, sofern sie nicht durch einen neuen Eintrag gleichen Namens ersetzt werden,
+     * unver&auml;ndert (d.h. ohne sie zu dekomprimieren und wieder zu komprimieren) &uuml;bernommen; nur die neuen
+     * Eintr&auml;ge werden komprimiert.
+     * Das neue Archiv wird in eine tempor&auml;re Datei im selben Verzeichnis geschrieben, die erst zum Schluss das
+     * bisherige Archiv ersetzt.
+     * Eine vorhandene Datei, die kein Zip-Archiv ist, wird ersetzt.
+     * Ist {@linkplain #setInPlace(boolean) setInPlace} gesetzt, werden neue Eintr&auml;ge, die hinter den bisherigen
+     * stehen, nach M&ouml;glichkeit an Ort und Stelle angeh&auml;ngt.
+     * </p>
+     *
+     * @param  names        Die Namen der neuen Eintr&auml;ge.
+     * @param  contents     Die Inhalte der neuen Eintr&auml;ge, oder: <q>null</q> falls <q>names</q> die Namen
+     *                      von Dateien sind, die parallel komprimiert werden.
+     * @param  newFirst     <q>true</q>: die neuen Eintr&auml;ge stehen vor den bisherigen.
+     * @return Die Anzahl der &uuml;bernommenen Eintr&auml;ge.
+     */
+    private int rewrite (String [] names, EntryContent [] contents, boolean newFirst) throws IOException {
+        int                 i;
+        int                 retVal =        0;
+        boolean             done =          false;
+        File                zipFile =       new File (archiveName).getAbsoluteFile ();
+        File                tempFile;
+        Set <String>        replaced =      new HashSet <> ();
+        ZipDirectory        oldArchive =    null;
+        String []           files =         names.clone ();
+
+        for (i = 0; i < names.length; i++)
+            replaced.add (names [i] = normaliseEntryname (names [i]));
+        recover ();
+        if (inPlace && !newFirst && zipFile.exists ())
+            try {
+                if ((retVal = appendInPlace (names, files, contents, replaced)) >= 0)
+                    return (retVal);
+                retVal = 0;
+            }
+            catch (ZipException ze) {
+                // no (supported) ZIP archive, rewrite it
+            }
+        tempFile = File.createTempFile (zipFile.getName (), null, zipFile.getParentFile ());
         try {
-            for (i = 0; i < files.length; i++) {
+            if (zipFile.exists ())
                 try {
-                    entryIn = new FileInputStream (files [i]);
-                    successFiles.add (files [i]);
-                    zipOutStream.putNextEntry (new ZipEntry (normaliseEntryname (files [i])));
-                    while ((len = entryIn.read (buffer)) > 0)
-                        zipOutStream.write (buffer, 0, len);
-                    zipOutStream.closeEntry ();
-                }
-                catch (IOException ioe) {
-                    // File does not exist or is not readable
-                    errorFiles.add (files [i]);
-                    continue;
-                }
-                finally {
-                    try {
-                        if (entryIn != null)
-                            entryIn.close ();
-                    }
-                    catch (Exception e) {
-                        e.printStackTrace ();
-                    }
+                    oldArchive = new ZipDirectory (zipFile.getPath ());
                 }
-            }
-            Arrays.sort (files = successFiles.toArray (new String [] {}));
-            for (entry = zipOldStream.getNextEntry (); entry != null; entry = zipOldStream.getNextEntry ()) {
-                name = entry.getName ();
-                if (Arrays.binarySearch (files, name) < 0) {
-                    zipOutStream.putNextEntry (new ZipEntry (name));
-                    while ((len = zipOldStream.read (buffer)) > 0)
-                        zipOutStream.write (buffer, 0, len);
+                catch (ZipException ze) {
+                    // Kein ZIP-Archiv, ignoriere Datei.
                 }
-            
+            try (ZipWriter writer = configure (new ZipWriter (tempFile))) {
+                if (newFirst)
+                    writeEntries (writer, names, files, contents);
+                if (oldArchive != null)
+                    for (ZipDirectory.Entry entry: oldArchive.getEntries ())
+                        if (!replaced.contains (entry.getName ())) {
+                            writer.copy (oldArchive, entry);
+                            retVal++;
+                        }
+                if (!newFirst)
+                    writeEntries (writer, names, files, contents);
+                writer.finish ();
             }
+            if (oldArchive != null)
+                oldArchive.close ();
+            oldArchive = null;
+            Files.move (tempFile.toPath (), zipFile.toPath (), StandardCopyOption.REPLACE_EXISTING);
+            done = true;
         }
         finally {
-            try {
-                zipOldStream.close ();
-                zipOutStream.close ();
+            if (oldArchive != null)
+                oldArchive.close ();
+            if (!done)
                 tempFile.delete ();
-            }
-            catch (Exception e) {
-                e.printStackTrace ();
-            }
         }
-        if (errorFiles.size () > 0)
-            return (errorFiles.toArray (new String [] {}));
+        return (retVal);
+    }
+
+    private ZipWriter configure (ZipWriter writer) {
+        writer.setLevel (level);
+        writer.setStoreIncompressible (storeIncompressible);
+        writer.setThreads (threads);
+        return (writer);
+    }
+
+    private static void writeEntries (ZipWriter writer, String [] names, String [] files, EntryContent [] contents)
+                                      throws IOException {
+        int i;
+
+        if (contents == null)
+            writer.putFiles (names, files);
         else
-            return (null);
+            for (i = 0; i < names.length; i++)
+                try (OutputStream entryOut = writer.putEntry (names [i])) {
+                    contents [i].writeTo (entryOut);
+                }
     }
 
-    public int append (String name, InputStream entryIn) throws IOException {
-        boolean         doCopy;
-        int             retVal =        0;
+    private static void copy (InputStream in, OutputStream out) throws IOException {
         int             len;
-        String          entryName;
-        File            tempFile;
         byte []         buffer =        new byte [DEFAULT_BUFERSIZE];
-        File            zipFile =       new File (archiveName);
-        ZipEntry        entry;
-        ZipInputStream  zipOldStream =  null;
-        ZipOutputStream zipOutStream;
 
+        while ((len = in.read (buffer)) > 0)
+            out.write (buffer, 0, len);
+    }
+
+    /**
+     * <p>
+     * F&uuml;gt Dateien als Eintr&auml;ge vor den bisherigen Eintr&auml;gen ein bzw. ersetzt gleichnamige
+     * Eintr&auml;ge.
+     * </p>
+     *
+     * @return Die Dateien die nicht gelesen werden konnten, oder: <q>null</q> falls alle Dateien eingef&uuml;gt
+     *         wurden.
+     */
+    public String [] addFiles (String [] files) throws IOException {
+        List <String>           errorFiles =    new ArrayList <String> ();
+        List <String>           successFiles =  new ArrayList <String> ();
+
+        for (String file: files)
+            if (Files.isRegularFile (Paths.get (file)) && Files.isReadable (Paths.get (file)))
+                successFiles.add (file);
+            else
+                errorFiles.add (file);      // File does not exist or is not readable
+        rewrite (successFiles.toArray (new String [] {}), null, true);
+        if (errorFiles.size () > 0)
+            return (errorFiles.toArray (new String [] {}));
+        else
+            return (null);
+    }
+
+    public int append (String name, final InputStream entryIn) throws IOException {
         try {
-            tempFile = File.createTempFile (archiveName, null);
-        }
-        catch (IOException ioe) {
-            String tempname = new File (archiveName).getName ();
-            tempFile = File.createTempFile (tempname, null);
-        }
-        if (doCopy = zipFile.exists ()) {
-            tempFile.delete ();  // delete it, otherwise you cannot rename your existing zip to it.
-            if (!zipFile.renameTo (tempFile))
-                throw new IOException ("could not rename the file " + zipFile.getAbsolutePath () +
-                                       " to " + tempFile.getAbsolutePath ());
-            try {
-                zipOldStream = new ZipInputStream (new FileInputStream (tempFile));
-            }
-            catch (Exception ze) {
-                ze.printStackTrace ();
-                doCopy = false; // Kein ZIP-Archiv, ignoriere Datei.
-            }
-        }
-        zipOutStream = new ZipOutputStream (new FileOutputStream (zipFile));
-        try {
-            if (doCopy)
-                for (entry = zipOldStream.getNextEntry (); entry != null; entry = zipOldStream.getNextEntry ()) {
-                    entryName = entry.getName ();
-                    if (!entryName.equals (name)) {
-                        zipOutStream.putNextEntry (new ZipEntry (entryName));
-                        while ((len = zipOldStream.read (buffer)) > 0)
-                            zipOutStream.write (buffer, 0, len);
-                        retVal++;
-                    }
-            
+            return (rewrite (new String [] {name}, new EntryContent [] {new EntryContent () {
+                @Override
+                public void writeTo (OutputStream out) throws IOException {
+                    copy (entryIn, out);
                 }
-            try {
-                zipOutStream.putNextEntry (new ZipEntry (normaliseEntryname (name)));
-                while ((len = entryIn.read (buffer)) > 0)
-                    zipOutStream.write (buffer, 0, len);
-            }
-            finally {
-                try {
-                    zipOutStream.closeEntry ();
-                    entryIn.close ();
-                }
-                catch (Exception e) {
-                    e.printStackTrace ();
-                }
-            }
+            }}, false));
         }
         finally {
-            try {
-                if (zipOldStream != null)
-                    zipOldStream.close ();
-                zipOutStream.close ();
-                tempFile.delete ();
-            }
-            catch (Exception e) {
-                e.printStackTrace ();
-            }
+            entryIn.close ();
         }
-        return (retVal);
     }
 
     public int append (String name, Reader entryIn) throws IOException {
         return (append (name, new ReaderInputStream (entryIn)));
     }
 
-    public int appendObject (String name, Serializable object) throws IOException {
-        int                 retVal =        0;
-        int                 len;
-        String              entryName;
-        File                tempFile =      File.createTempFile (archiveName, null);
-        byte []             buffer =        new byte [DEFAULT_BUFERSIZE];
-        File                zipFile =       new File (archiveName);
-        ZipEntry            entry;
-        ZipInputStream      zipOldStream;
-        ZipOutputStream     zipOutStream;
-	ObjectOutputStream  objectOutput;
-
-        tempFile.delete ();  // delete it, otherwise you cannot rename your existing zip to it.
-        if (!zipFile.renameTo (tempFile))
-            throw new IOException ("could not rename the file " + zipFile.getAbsolutePath () + " to " + tempFile.getAbsolutePath ());
-        zipOldStream = new ZipInputStream (new FileInputStream (tempFile));
-        zipOutStream = new ZipOutputStream (new FileOutputStream (zipFile));
-        try {
-            for (entry = zipOldStream.getNextEntry (); entry != null; entry = zipOldStream.getNextEntry ()) {
-                entryName = entry.getName ();
-                if (!entryName.equals (name)) {
-                    zipOutStream.putNextEntry (new ZipEntry (name));
-                    while ((len = zipOldStream.read (buffer)) > 0)
-                        zipOutStream.write (buffer, 0, len);
-                    retVal++;
-                }
-            
-            }
-            try {
-                zipOutStream.putNextEntry (new ZipEntry (normaliseEntryname (name)));
-                objectOutput = new ObjectOutputStream (zipOutStream);
+    public int appendObject (String name, final Serializable object) throws IOException {
+        return (rewrite (new String [] {name}, new EntryContent [] {new EntryContent () {
+            @Override
+            public void writeTo (OutputStream out) throws IOException {
+                ObjectOutputStream objectOutput = new ObjectOutputStream (out);
+
                 objectOutput.writeObject (object);
+                objectOutput.flush ();
             }
-            finally {
-                try {
-                    zipOutStream.closeEntry ();
-                }
-                catch (Exception e) {
-                    e.printStackTrace ();
-                }
-            }
-        }
-        finally {
-            try {
-                zipOldStream.close ();
-                zipOutStream.close ();
-                tempFile.delete ();
-            }
-            catch (Exception e) {
-                e.printStackTrace ();
-            }
-        }
-        return (retVal);
+        }}, false));
     }
 
+    /**
+     * <p>
+     * Schreibt ein neues Archiv aus den Dateien <q>files</q>, die dazu {@linkplain #setThreads(int) parallel}
+     * komprimiert werden.
+     * </p>
+     *
+     * @return Die Dateien die nicht gelesen werden konnten, oder: <q>null</q> falls alle Dateien eingef&uuml;gt
+     *         wurden.
+     */
     public String [] wrap (String [] files) throws FileNotFoundException, IOException, ZipException {
         int             i;
-        int             len;
-        FileInputStream entryIn;
-        ZipOutputStream zipOut =        new ZipOutputStream (new FileOutputStream (archiveName));
-        byte []         buffer =        new byte [DEFAULT_BUFERSIZE];
         List <String>   errorFiles =    new ArrayList <String> ();
+        List <String>   successFiles =  new ArrayList <String> ();
+        String []       names;
 
-        try {
-            for (i = 0; i < files.length; i++) {
-                try {
-                    entryIn = new FileInputStream (files [i]);
-                }
-                catch (IOException ioe) {
-                    // File does not exist or is not readable
-                    errorFiles.add (files [i]);
-                    continue;
-                }
-                zipOut.putNextEntry (new ZipEntry (files [i]));
-                while ((len = entryIn.read (buffer)) > 0)
-                    zipOut.write (buffer, 0, len);
-                zipOut.closeEntry ();
-                entryIn.close ();
-            }
-        }
-        finally {
-            zipOut.close ();
+        for (String file: files)
+            if (Files.isRegularFile (Paths.get (file)) && Files.isReadable (Paths.get (file)))
+                successFiles.add (file);
+            else
+                errorFiles.add (file);      // File does not exist or is not readable
+        files = successFiles.toArray (new String [] {});
+        names = new String [files.length];
+        for (i = 0; i < files.length; i++)
+            names [i] = normaliseEntryname (files [i]);
+        try (ZipWriter writer = configure (new ZipWriter (new File (archiveName)))) {
+            writer.putFiles (names, files);
+            writer.finish ();
         }
         if (errorFiles.size () > 0)
             return (errorFiles.toArray (new String [] {}));
@@ -420,58 +931,69 @@ public class ZipHelper {
             return (null);
     }
 
+    /**
+     * <p>
+     * Entpackt alle Eintr&auml;ge, deren Namen einem der regul&auml;ren Ausdr&uuml;cke <q>files</q> entsprechen,
+     * relativ zum aktuellen Verzeichnis.
+     * </p>
+     * <p>
+     * Das zentrale Verzeichnis wird nur einmal gelesen; alle ben&ouml;tigten Verzeichnisse werden vorab angelegt.
+     * Die Eintr&auml;ge werden von {@linkplain #setThreads(int) mehreren Threads} gleichzeitig geschrieben,
+     * unkomprimierte Eintr&auml;ge ohne Umweg &uuml;ber einen Puffer (siehe
+     * {@linkplain ZipDirectory#extract(ZipDirectory.Entry, java.nio.channels.WritableByteChannel) extract}).
+     * </p>
+     *
+     * @param  overwrite    <q>false</q>: vorhandene Dateien werden nicht &uuml;berschrieben.
+     * @return Die Eintr&auml;ge, die nicht entpackt werden konnten, oder: <q>null</q> falls alle Eintr&auml;ge
+     *         entpackt wurden.
+     */
     public String [] unwrap (String [] files, boolean overwrite) throws FileNotFoundException, IOException, ZipException {
-        int             i;
-        int             len;
-        ZipFile         archive =       openZipFile (archiveName);
-        File            unwraped;
-        OutputStream    output;
-        InputStream     entryIn;
-        List <String>   errorFiles =    new ArrayList <String> ();
-        byte []         buffer =        new byte [DEFAULT_BUFERSIZE];
-
-        try {
-            for (i = 0; i < files.length; i++)
-                try {
-                    for (String filename : findEntries (files[i])) {
-                        try {
-                            entryIn = get (archive, filename);
-                        }
-                        catch (FileNotFoundException fnfe) {
-                            try {
-                                entryIn = get (archive, new File (filename).getCanonicalPath ());
-                            }
-                            catch (IOException ioe) {
-                                entryIn = get (archive, new File (filename).getAbsolutePath ());
-                            }
-                        }
-                        unwraped = new File (filename);
-                        if (unwraped.exists () && !overwrite) {
-                            errorFiles.add (filename);
-                            continue;
-                        }
-                        File unwrapDir = Paths.get (unwraped.getAbsolutePath ()).getParent ().toFile ();
-                        if (!unwrapDir.exists ())
-                            unwrapDir.mkdirs ();
-                        output = new FileOutputStream (unwraped);
-                        while ((len = entryIn.read (buffer)) > 0)
-                            output.write (buffer, 0, len);
-                        output.close ();
-                        entryIn.close ();
+        int                             i;
+        final boolean                   overwriteFiles =    overwrite;
+        String                          failed;
+        File                            parent;
+        Pattern []                      patterns =          compileFilters (files, WITH_DIRECTORIES);
+        Set <File>                      directories =       new TreeSet <> ();
+        List <ZipDirectory.Entry>       selected =          new ArrayList <> ();
+        List <Future <String>>          results =           new ArrayList <> ();
+        List <String>                   errorFiles =        new ArrayList <String> ();
+        ExecutorService                 executor;
 
+        try (final ZipDirectory archive = new ZipDirectory (archiveName)) {
+            for (ZipDirectory.Entry entry: archive.getEntries ())
+                if (matches (patterns, entry.getName ()))
+                    if (entry.isDirectory ())
+                        directories.add (new File (entry.getName ()).getAbsoluteFile ());
+                    else if ((parent = new File (entry.getName ()).getAbsoluteFile ().getParentFile ()) != null) {
+                        directories.add (parent);
+                        selected.add (entry);
                     }
-                }
-                catch (FileNotFoundException fnfe) {
-                    errorFiles.add (files [i]);
-                    continue;
-                }
-        }
-        finally {
+            for (File directory: directories)
+                directory.mkdirs ();
+            executor = Executors.newFixedThreadPool (Math.max (1, Math.min (threads, selected.size ())));
             try {
-                archive.close ();
+                for (final ZipDirectory.Entry entry: selected)
+                    results.add (executor.submit (new Callable <String> () {
+                        @Override
+                        public String call () {
+                            return (extract (archive, entry, overwriteFiles) ? null : entry.getName ());
+                        }
+                    }));
+                for (i = 0; i < results.size (); i++)
+                    try {
+                        if ((failed = results.get (i).get ()) != null)
+                            errorFiles.add (failed);
+                    }
+                    catch (InterruptedException ie) {
+                        Thread.currentThread ().interrupt ();
+                        throw new InterruptedIOException (archiveName);
+                    }
+                    catch (ExecutionException ee) {
+                        errorFiles.add (selected.get (i).getName ());
+                    }
             }
-            catch (Exception e) {
-                e.printStackTrace ();
+            finally {
+                executor.shutdownNow ();
             }
         }
         if (errorFiles.size () > 0)
@@ -480,6 +1002,36 @@ public class ZipHelper {
             return (null);
     }
 
+    /**
+     * <p>
+     * Schreibt einen Eintrag in die gleichnamige Datei.
+     * Dateien ab {@value #PRESIZE_MINIMUM} Bytes werden vorab auf die Gr&ouml;&szlig;e des Eintrags gebracht; bei
+     * kleineren Dateien kostet das mehr als es bringt.
+     * </p>
+     *
+     * @return <q>false</q> falls die Datei existiert und nicht &uuml;berschrieben werden soll oder nicht geschrieben
+     *         werden kann.
+     */
+    private static boolean extract (ZipDirectory archive, ZipDirectory.Entry entry, boolean overwrite) {
+        long        written;
+        Path        target =    Paths.get (entry.getName ());
+
+        try (FileChannel out = (overwrite) ?
+                               FileChannel.open (target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                 StandardOpenOption.TRUNCATE_EXISTING) :
+                               FileChannel.open (target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            if (entry.getSize () >= PRESIZE_MINIMUM)
+                out.write (ByteBuffer.allocate (1), entry.getSize () - 1);     // pre-size the file
+            written = archive.extract (entry, out);
+            if (written != entry.getSize ())
+                out.truncate (written);
+            return (true);
+        }
+        catch (IOException ioe) {
+            return (false);
+        }
+    }
+
     public static void unzip (String filename, String archivename) throws FileNotFoundException, IOException {
         ZipHelper zipHelper = new ZipHelper (archivename);
 
@@ -487,18 +1039,8 @@ public class ZipHelper {
     }
 
     private String [] getNames (String [] filters, long options, boolean create) throws ZipException, FileNotFoundException, IOException {
-        int                                 i;
-        boolean                             ignoreCase =            ((options & MATCH_CASESENSITIVE) != 0l);
-        boolean                             withDirectories =       ((options & WITH_DIRECTORIES) != 0l);
-        String                              name;
         File                                newArchive;
-        ZipEntry                            entry;
-        List <String>                       names =                 new ArrayList <String> ();
         ZipFile                             archive;
-        Enumeration <? extends ZipEntry>    entries;
-        Matcher                             matcher;
-        List <Pattern>                      filterPatternsList;
-        Pattern []                          filterPatterns =        null;
 
         try {
             archive = openZipFile (archiveName);
@@ -516,42 +1058,73 @@ public class ZipHelper {
             }
             return (new String [] {});
         }
-        entries = archive.entries ();
-        if (filters != null) {
-            filterPatternsList = new ArrayList <Pattern> ();
-            for (i = 0; i < filters.length; i++) {
-                try {
-                    filterPatternsList.add (Pattern.compile (filters [i],
-                                                             ((ignoreCase) ? Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE : 0)));
-                }
-                catch (PatternSyntaxException pse) {
-                    // silently ignore this pattern...
-                }
-            }
-            if (filterPatternsList.size () > 0)
-                filterPatterns = filterPatternsList.toArray (new Pattern [] {});
+        try {
+            return (getNames (archive, filters, options));
+        }
+        finally {
+            archive.close ();
         }
+    }
+
+    private static String [] getNames (ZipFile archive, String [] filters, long options) {
+        boolean                             withDirectories =       ((options & WITH_DIRECTORIES) != 0l);
+        String                              name;
+        ZipEntry                            entry;
+        List <String>                       names =                 new ArrayList <String> ();
+        Enumeration <? extends ZipEntry>    entries =               archive.entries ();
+        Pattern []                          filterPatterns =        compileFilters (filters, options);
+        FlightEvents.Span                   event =                 FlightEvents.centralDirectoryScan (archive.getName ());
+        long                                tested =                0l;
+
         while (entries.hasMoreElements ()) {
             entry = entries.nextElement ();
-            if (withDirectories || !entry.isDirectory ()) {
-                name = entry.getName ();
-                if (filterPatterns != null) {
-                    for (i = 0; i < filterPatterns.length; i++) {
-                        matcher = filterPatterns [i].matcher (name);
-                        if (matcher.matches ()) {
-                            names.add (name);
-                            break;  // only one match required.
-                        }
-                    }
-                }
-                else
-                    names.add (name);
-            }
+            tested++;
+            if ((withDirectories || !entry.isDirectory ()) && matches (filterPatterns, name = entry.getName ()))
+                names.add (name);
         }
-        archive.close ();
+        event.finish (tested, 0l, names.size () + " matched");
         return (names.toArray (new String [] {}));
     }
 
+    /**
+     * <p>
+     * &Uuml;bersetzt die Filter f&uuml;r {@linkplain #getNames(String[], long) getNames} in regul&auml;re Ausdr&uuml;cke.
+     * Ung&uuml;ltige Ausdr&uuml;cke werden ignoriert.
+     * </p>
+     *
+     * @return Die regul&auml;ren Ausdr&uuml;cke, oder: <q>null</q> falls keine g&uuml;ltigen Filter angegeben wurden.
+     */
+    static Pattern [] compileFilters (String [] filters, long options) {
+        int             i;
+        boolean         ignoreCase =            ((options & MATCH_CASESENSITIVE) != 0l);
+        List <Pattern>  filterPatternsList;
+
+        if (filters == null)
+            return (null);
+        filterPatternsList = new ArrayList <Pattern> ();
+        for (i = 0; i < filters.length; i++) {
+            try {
+                filterPatternsList.add (Pattern.compile (filters [i],
+                                                         ((ignoreCase) ? Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE : 0)));
+            }
+            catch (PatternSyntaxException pse) {
+                // silently ignore this pattern...
+            }
+        }
+        return ((filterPatternsList.size () > 0) ? filterPatternsList.toArray (new Pattern [] {}) : null);
+    }
+
+    static boolean matches (Pattern [] filterPatterns, String name) {
+        int i;
+
+        if (filterPatterns == null)
+            return (true);
+        for (i = 0; i < filterPatterns.length; i++)
+            if (filterPatterns [i].matcher (name).matches ())
+                return (true);  // only one match required.
+        return (false);
+    }
+
     public String [] getNames (String [] filters, long options) throws ZipException, IOException {
         return (getNames (filters, options, false));
     }
@@ -586,28 +1159,35 @@ public class ZipHelper {
     }
 
     public String [] findEntries (String namePatternString) throws ZipException, FileNotFoundException, IOException {
-        ZipEntry                            entry;
-        List <String>                       names =       new ArrayList <String> ();
-        ZipFile                             archive =     openZipFile (archiveName);
-        Enumeration <? extends ZipEntry>    entries =     archive.entries ();
-        Pattern                             namePattern = Pattern.compile (namePatternString);
+        return (getNames (new String [] {namePatternString}, WITH_DIRECTORIES));
+    }
 
-        String [] entryFilter = new String []{namePatternString};
-        return (getNames (entryFilter, WITH_DIRECTORIES));
+    /**
+     * <p>
+     * Schreibt alle Eintr&auml;ge, deren Namen <q>namePatternString</q> entsprechen, nach <q>out</q> (siehe
+     * {@linkplain Session#print(String, OutputStream, Charset) Session.print}).
+     * </p>
+     */
+    public int print (String namePatternString, OutputStream out, Charset charset)
+                      throws ZipException, FileNotFoundException, IOException {
+        try (Session session = openSession ()) {
+            return (session.print (namePatternString, out, charset));
+        }
     }
 
     public StringBuilder [] getEntriesAsString (String namePatternString) throws ZipException, FileNotFoundException, IOException {
-        String [] entryNames = findEntries (namePatternString);
-        List <StringBuilder> retVal = new ArrayList <> ();
-
-        for (String entryName: entryNames)
-            retVal.add (getString (entryName));
-        return (retVal.toArray (new StringBuilder[retVal.size ()]));
+        try (Session session = openSession ()) {
+            return (session.getEntriesAsString (namePatternString));
+        }
     }
     public static void main (String args []) throws ZipException, IOException {
         int             i;
         boolean         usage =     false;
+        boolean         inPlace =   false;
         int             action =    LIST;
+        int             level =     Deflater.DEFAULT_COMPRESSION;
+        int             threads =   0;
+        Charset         charset =   null;
         String          archiveName =   null;
         List <String>   files =     new ArrayList <String> ();
         ZipHelper       zipper;
@@ -623,6 +1203,14 @@ public class ZipHelper {
                 action = PRINT;
             else if ("-list".startsWith (args [i].toLowerCase ()))
                 action = LIST;
+            else if ("-inplace".startsWith (args [i].toLowerCase ()))
+                inPlace = true;
+            else if ("-level".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                level = Integer.parseInt (args [++i]);
+            else if ("-threads".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                threads = Integer.parseInt (args [++i]);
+            else if ("-charset".startsWith (args [i].toLowerCase ()) && (i + 1 < args.length))
+                charset = Charset.forName (args [++i]);
             else if (archiveName == null)
                 archiveName = args [i];
             else
@@ -633,9 +1221,13 @@ public class ZipHelper {
         else if (files.size () <= 0)
             usage = (action != LIST);
         if (usage)
-            System.out.println ("usage: java ZipHelper (-list|-put|-get) archive file...");
+            System.out.println ("usage: java ZipHelper (-list|-put [-inplace] [-level n]|-get|-print [-charset name]) [-threads n] " +
+                                "archive file...");
         else {
             zipper = new ZipHelper (archiveName);
+            zipper.setLevel (level);
+            if (threads > 0)
+                zipper.setThreads (threads);
             switch (action) {
                 case LIST:
                     entries = zipper.list ();
@@ -643,7 +1235,12 @@ public class ZipHelper {
                         System.out.printf ("%s [%02d]:\t%s", archiveName, i, entries[i]);
                     break;
                 case PUT:
-                    if ((errorFiles = zipper.addFiles (files.toArray (new String[] {}))) != null) {
+                    if (inPlace) {
+                        zipper.setInPlace (true);
+                        for (String file: files)
+                            zipper.append (file, new FileInputStream (file));
+                    }
+                    else if ((errorFiles = zipper.addFiles (files.toArray (new String[] {}))) != null) {
                         System.out.println ("Error zipping:");
                         for (i = 0; i < errorFiles.length; i++)
                             System.out.println (errorFiles[i]);
@@ -658,27 +1255,18 @@ public class ZipHelper {
                     break;
                 case PRINT:
                     List <String> errorFilesList = new ArrayList <> ();
-                    StringBuilder content = new StringBuilder ();
-                    StringBuilder [] contents ;
-                    String filename = null;
-                    for (int j = 0; j < files.size (); j++) {
-                        filename = files.get (j);
+                    for (String filename: files)
                         try {
-                            contents = zipper.getEntriesAsString (filename);
-                            for (StringBuilder entryContent: contents)
-                                content.append (entryContent).append ('\n');
+                            zipper.print (filename, System.out, charset);
                         }
                         catch (IOException ioe) {
                             errorFilesList.add (filename);
                         }
-                    }
                     if (errorFilesList.size () > 0) {
                         System.out.println ("Error printing:");
                         for (String errorFile: errorFilesList)
                             System.out.println (errorFile);
                     }
-                    else
-                        System.out.println (content);
                     break;
             }
         }
@@ -0,0 +1,612 @@
+package de.mk_p.findclass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * <p>
+ * Eine Klasse die ein Zip-Archiv direkt &uuml;ber einen {@linkplain java.nio.channels.FileChannel FileChannel}
+ * schreibt.
+ * </p>
+ * <p>
+ * Im Gegensatz zu {@linkplain java.util.zip.ZipOutputStream ZipOutputStream} k&ouml;nnen Eintr&auml;ge eines
+ * anderen Archivs mit {@linkplain #copy(ZipDirectory, ZipDirectory.Entry) copy} unver&auml;ndert &uuml;bernommen
+ * werden: der lokale Kopf und die komprimierten Nutzdaten werden Byte f&uuml;r Byte kopiert, nur der Eintrag im
+ * zentralen Verzeichnis wird an die neue Position angepasst.
+ * Nur die mit {@linkplain #putEntry(String) putEntry} bzw. {@linkplain #putFiles(String[], String[]) putFiles}
+ * hinzugef&uuml;gten Eintr&auml;ge werden komprimiert; <q>putFiles</q> komprimiert dabei mehrere Dateien
+ * gleichzeitig.
+ * </p>
+ * <p>
+ * Archive mit mehr als 65535 Eintr&auml;gen oder mehr als 4 GB werden im ZIP64-Format geschrieben: Positionen und
+ * Gr&ouml;&szlig;en, die nicht in 32 Bit passen, stehen im ZIP64-Zusatzfeld des Eintrags, und vor dem Ende des
+ * zentralen Verzeichnisses folgen der ZIP64-Endeintrag und sein Verweis.
+ * Kleine Archive bleiben unver&auml;ndert im herk&ouml;mmlichen Format.
+ * </p>
+ */
+
+public class ZipWriter implements Closeable {
+
+    private static final int    VERSION =       20;         // 2.0: deflate
+    private static final int    ZIP64VERSION =  45;         // 4.5: ZIP64
+    private static final int    UTF8FLAG =      0x800;      // language encoding flag, names are UTF-8
+    private static final long   MAXCOUNT =      0xFFFFl;
+
+    private static final int    CHUNKSIZE =     0x10000;
+    private static final int    SPILLSIZE =     0x1000000;  // larger payloads go to a temporary file
+
+    private static final ThreadLocal <Deflater> DEFLATERS = new ThreadLocal <Deflater> () {
+        @Override
+        protected Deflater initialValue () {
+            return (new Deflater (Deflater.DEFAULT_COMPRESSION, true));
+        }
+    };
+
+    private static final ThreadLocal <byte []>  CHUNKS =    new ThreadLocal <byte []> () {
+        @Override
+        protected byte [] initialValue () {
+            return (new byte [2 * CHUNKSIZE]);     // input and output
+        }
+    };
+
+    /**
+     * <p>
+     * Der komprimierte Inhalt einer Datei, den ein Thread f&uuml;r
+     * {@linkplain ZipWriter#putFiles(String[], String[]) putFiles} vorbereitet hat.
+     * Bis zu {@value ZipWriter#SPILLSIZE} Bytes bleiben im Speicher, gr&ouml;&szlig;ere Inhalte werden in eine
+     * tempor&auml;re Datei geschrieben, die {@linkplain #discard() discard} wieder l&ouml;scht.
+     * </p>
+     */
+    private static class Payload extends OutputStream {
+        private int                     method;
+        private long                    crc;
+        private long                    size;
+        private long                    compressed;
+        private long                    modified;
+        private ByteArrayOutputStream   data =      new ByteArrayOutputStream (CHUNKSIZE);
+        private File                    spill;
+        private OutputStream            spillOut;
+
+        @Override
+        public void write (int b) throws IOException {
+            write (new byte [] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write (byte [] buffer, int offset, int length) throws IOException {
+            if ((spill == null) && (data.size () + length > SPILLSIZE)) {
+                spill = File.createTempFile ("zipwriter", ".deflated");
+                spillOut = new FileOutputStream (spill);
+                data.writeTo (spillOut);
+                data = null;
+            }
+            if (spillOut != null)
+                spillOut.write (buffer, offset, length);
+            else
+                data.write (buffer, offset, length);
+            compressed += length;
+        }
+
+        @Override
+        public void close () throws IOException {
+            if (spillOut != null)
+                spillOut.close ();
+        }
+
+        /**
+         * <p>
+         * Gibt den komprimierten Inhalt frei; f&uuml;r <q>STORED</q> wird die Datei selbst kopiert.
+         * </p>
+         */
+        private void discard () {
+            try {
+                close ();
+            }
+            catch (IOException ioe) {
+                // the file is deleted anyway
+            }
+            if (spill != null)
+                spill.delete ();
+            data = null;
+            spill = null;
+            spillOut = null;
+        }
+    }
+
+    private FileChannel             channel;
+    private boolean                 ownChannel;
+    private ByteArrayOutputStream   centralDirectory =  new ByteArrayOutputStream ();
+    private long                    count;
+    private boolean                 entryOpen;
+    private int                     level =             Deflater.DEFAULT_COMPRESSION;
+    private boolean                 storeIncompressible = true;
+    private int                     threads =           Runtime.getRuntime ().availableProcessors ();
+
+    /**
+     * @param  file         Das Archiv, das neu geschrieben wird.
+     * @throws IOException  Falls die Datei nicht ge&ouml;ffnet werden kann.
+     */
+    public ZipWriter (File file) throws IOException {
+        this (FileChannel.open (file.toPath (), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                StandardOpenOption.WRITE));
+        this.ownChannel = true;
+    }
+
+    /**
+     * <p>
+     * Schreibt ab der aktuellen Position von <q>channel</q>.
+     * Der Kanal wird von {@linkplain #close() close} nicht geschlossen.
+     * </p>
+     */
+    ZipWriter (FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @param  level    Die Kompressionsstufe (0-9, oder: {@linkplain java.util.zip.Deflater#DEFAULT_COMPRESSION
+     *                  DEFAULT_COMPRESSION}).
+     */
+    public void setLevel (int level) {
+        this.level = level;
+    }
+
+    /**
+     * @param  storeIncompressible  <q>true</q> (Voreinstellung): Dateien, die durch Komprimieren nicht kleiner
+     *                              werden, werden von {@linkplain #putFiles(String[], String[]) putFiles}
+     *                              unkomprimiert (<q>STORED</q>) abgelegt.
+     */
+    public void setStoreIncompressible (boolean storeIncompressible) {
+        this.storeIncompressible = storeIncompressible;
+    }
+
+    /**
+     * @param  threads  Die Anzahl der Threads, mit denen {@linkplain #putFiles(String[], String[]) putFiles}
+     *                  komprimiert; Voreinstellung: die Anzahl der Prozessoren.
+     */
+    public void setThreads (int threads) {
+        this.threads = Math.max (1, threads);
+    }
+
+    private static ByteBuffer littleEndian (int capacity) {
+        return (ByteBuffer.allocate (capacity).order (ByteOrder.LITTLE_ENDIAN));
+    }
+
+    private void write (ByteBuffer buffer) throws IOException {
+        ((Buffer) buffer).flip ();     // Buffer.flip (), runs on Java 8 as well
+        while (buffer.hasRemaining ())
+            channel.write (buffer);
+    }
+
+    private void write (ByteBuffer buffer, long position) throws IOException {
+        ((Buffer) buffer).flip ();     // Buffer.flip (), runs on Java 8 as well
+        while (buffer.hasRemaining ())
+            position += channel.write (buffer, position);
+    }
+
+    /**
+     * @return <q>value</q>, oder: <q>0xFFFFFFFF</q> falls der Wert im ZIP64-Zusatzfeld steht.
+     */
+    private static int toInt (long value) {
+        return ((int) Math.min (value, ZipDirectory.ZIP64_MAGICVAL));
+    }
+
+    /**
+     * <p>
+     * Liefert das ZIP64-Zusatzfeld eines Eintrags im zentralen Verzeichnis.
+     * Es enth&auml;lt, in dieser Reihenfolge, nur die Werte die nicht in 32 Bit passen.
+     * </p>
+     *
+     * @return Das Zusatzfeld, oder: ein leeres Feld falls alle Werte in 32 Bit passen.
+     */
+    private static byte [] zip64Extra (long size, long compressed, long offset) {
+        ByteBuffer  extra =     littleEndian (4 + 3 * 8);
+
+        extra.putShort ((short) ZipDirectory.ZIP64_EXTRA).putShort ((short) 0);
+        if (size >= ZipDirectory.ZIP64_MAGICVAL)
+            extra.putLong (size);
+        if (compressed >= ZipDirectory.ZIP64_MAGICVAL)
+            extra.putLong (compressed);
+        if (offset >= ZipDirectory.ZIP64_MAGICVAL)
+            extra.putLong (offset);
+        if (extra.position () == 4)
+            return (new byte [0]);
+        extra.putShort (2, (short) (extra.position () - 4));
+        return (Arrays.copyOf (extra.array (), extra.position ()));
+    }
+
+    /**
+     * <p>
+     * Passt einen Eintrag des zentralen Verzeichnisses an eine neue Position an, die nur &uuml;ber das
+     * ZIP64-Zusatzfeld beschrieben werden kann (oder bisher so beschrieben wurde).
+     * Ein vorhandenes ZIP64-Zusatzfeld wird ersetzt, alle anderen Zusatzfelder und der Kommentar bleiben erhalten.
+     * </p>
+     */
+    private static byte [] relocate (byte [] header, ZipDirectory.Entry entry, long offset) {
+        ByteBuffer  fields =        ByteBuffer.wrap (header).order (ByteOrder.LITTLE_ENDIAN);
+        int         nameLength =    fields.getShort (28) & 0xFFFF;
+        int         extraLength =   fields.getShort (30) & 0xFFFF;
+        int         extraPos =      ZipDirectory.CENHDR + nameLength;
+        int         extraEnd =      extraPos + extraLength;
+        int         length;
+        byte []     zip64 =         zip64Extra (entry.getSize (), entry.getCompressedSize (), offset);
+        ByteBuffer  retVal =        littleEndian (header.length + zip64.length);
+
+        retVal.put (header, 0, extraPos).put (zip64);
+        for (; extraPos + 4 <= extraEnd; extraPos += 4 + length) {
+            length = Math.min (fields.getShort (extraPos + 2) & 0xFFFF, extraEnd - extraPos - 4);
+            if ((fields.getShort (extraPos) & 0xFFFF) != ZipDirectory.ZIP64_EXTRA)
+                retVal.put (header, extraPos, 4 + length);
+        }
+        retVal.put (header, extraEnd, header.length - extraEnd);
+        retVal.putShort (30, (short) (retVal.position () - header.length + extraLength));
+        retVal.putInt (20, toInt (entry.getCompressedSize ())).putInt (24, toInt (entry.getSize ()))
+              .putInt (42, toInt (offset));
+        if (zip64.length > 0)
+            retVal.putShort (6, (short) Math.max (fields.getShort (6) & 0xFFFF, ZIP64VERSION));
+        return (Arrays.copyOf (retVal.array (), retVal.position ()));
+    }
+
+    static long dosTime (long time) {
+        Calendar calendar = Calendar.getInstance ();
+
+        calendar.setTimeInMillis (time);
+        if (calendar.get (Calendar.YEAR) < 1980)
+            return ((1 << 21) | (1 << 16));     // 1980-01-01
+        return (((long) (calendar.get (Calendar.YEAR) - 1980) << 25) |
+                ((calendar.get (Calendar.MONTH) + 1) << 21) |
+                (calendar.get (Calendar.DAY_OF_MONTH) << 16) |
+                (calendar.get (Calendar.HOUR_OF_DAY) << 11) |
+                (calendar.get (Calendar.MINUTE) << 5) |
+                (calendar.get (Calendar.SECOND) >> 1));
+    }
+
+    /**
+     * <p>
+     * &Uuml;bernimmt einen Eintrag aus <q>source</q> ohne ihn zu dekomprimieren.
+     * Steht die alte oder die neue Position des Eintrags im ZIP64-Zusatzfeld, wird das Zusatzfeld angepasst.
+     * </p>
+     */
+    public void copy (ZipDirectory source, ZipDirectory.Entry entry) throws IOException {
+        long        offset =    channel.position ();
+        byte []     header =    source.getCentralHeader (entry);
+        ByteBuffer  fields =    ByteBuffer.wrap (header).order (ByteOrder.LITTLE_ENDIAN);
+
+        if (entryOpen)
+            throw new IllegalStateException ("entry still open");
+        source.transferEntry (entry, channel);
+        if ((offset >= ZipDirectory.ZIP64_MAGICVAL) ||
+            ((fields.getInt (42) & ZipDirectory.ZIP64_MAGICVAL) == ZipDirectory.ZIP64_MAGICVAL))
+            header = relocate (header, entry, offset);
+        else
+            fields.putInt (42, (int) offset);
+        centralDirectory.write (header, 0, header.length);
+        count++;
+    }
+
+    /**
+     * <p>
+     * &Uuml;bernimmt einen Eintrag aus <q>source</q>, dessen Daten bereits an derselben Position der Datei stehen,
+     * in die geschrieben wird; nur der Eintrag im zentralen Verzeichnis wird (unver&auml;ndert, ggf. mit seinem
+     * ZIP64-Zusatzfeld) geschrieben.
+     * </p>
+     */
+    void keep (ZipDirectory source, ZipDirectory.Entry entry) {
+        byte []     header =    source.getCentralHeader (entry);
+
+        centralDirectory.write (header, 0, header.length);
+        count++;
+    }
+
+    /**
+     * <p>
+     * Beginnt einen neuen, komprimierten Eintrag.
+     * Der Eintrag ist vollst&auml;ndig, sobald der gelieferte Datenstrom geschlossen wurde; erst danach darf der
+     * n&auml;chste Eintrag begonnen werden.
+     * Da die Gr&ouml;&szlig;en erst am Ende bekannt sind, stehen sie bei mehr als 4 GB nur im zentralen
+     * Verzeichnis; der lokale Kopf enth&auml;lt dann <q>0xFFFFFFFF</q>.
+     * </p>
+     *
+     * @param  name     Der Name des Eintrags.
+     * @return Der Datenstrom f&uuml;r den Inhalt des Eintrags.
+     */
+    public OutputStream putEntry (final String name) throws IOException {
+        final byte []   nameBytes =         name.getBytes (ZipDirectory.UTF8);
+        final long      headerPosition =    channel.position ();
+        final int       time =              (int) dosTime (System.currentTimeMillis ());
+        final long      dataPosition;
+        final CRC32     crc =               new CRC32 ();
+        final Deflater  deflater =          new Deflater (level, true);
+        ByteBuffer      header =            littleEndian (ZipDirectory.LOCHDR + nameBytes.length);
+
+        if (entryOpen)
+            throw new IllegalStateException ("entry still open");
+        header.putInt (ZipDirectory.LOCSIG).putShort ((short) VERSION).putShort ((short) UTF8FLAG)
+              .putShort ((short) ZipEntry.DEFLATED).putInt (time)
+              .putInt (0).putInt (0).putInt (0)                 // crc and sizes, written when the entry is closed
+              .putShort ((short) nameBytes.length).putShort ((short) 0).put (nameBytes);
+        write (header);
+        dataPosition = channel.position ();
+        entryOpen = true;
+        return (new DeflaterOutputStream (Channels.newOutputStream (channel), deflater, ZipHelper.DEFAULT_BUFERSIZE) {
+            private boolean closed = false;
+
+            @Override
+            public void write (byte [] buffer, int offset, int length) throws IOException {
+                crc.update (buffer, offset, length);
+                super.write (buffer, offset, length);
+            }
+
+            @Override
+            public void close () throws IOException {
+                ByteBuffer  sizes =     littleEndian (12);
+                long        compressed;
+                long        size;
+
+                if (closed)
+                    return;
+                closed = true;
+                try {
+                    finish ();
+                    flush ();
+                    compressed = channel.position () - dataPosition;
+                    size = deflater.getBytesRead ();
+                }
+                finally {
+                    deflater.end ();
+                    entryOpen = false;
+                }
+                sizes.putInt ((int) crc.getValue ()).putInt (toInt (compressed)).putInt (toInt (size));
+                ZipWriter.this.write (sizes, headerPosition + 14);
+                addCentral (nameBytes, ZipEntry.DEFLATED, time, crc.getValue (), compressed, size, headerPosition);
+            }
+        });
+    }
+
+    private void addCentral (byte [] nameBytes, int method, int time, long crc, long compressed, long size,
+                             long offset) {
+        byte []     zip64 =     zip64Extra (size, compressed, offset);
+        short       version =   (short) ((zip64.length > 0) ? ZIP64VERSION : VERSION);
+        ByteBuffer  central =   littleEndian (ZipDirectory.CENHDR + nameBytes.length + zip64.length);
+
+        central.putInt (ZipDirectory.CENSIG).putShort (version).putShort (version)
+               .putShort ((short) UTF8FLAG).putShort ((short) method).putInt (time)
+               .putInt ((int) crc).putInt (toInt (compressed)).putInt (toInt (size))
+               .putShort ((short) nameBytes.length).putShort ((short) zip64.length).putShort ((short) 0)
+               .putShort ((short) 0).putShort ((short) 0).putInt (0)
+               .putInt (toInt (offset)).put (nameBytes).put (zip64);
+        centralDirectory.write (central.array (), 0, central.position ());
+        count++;
+    }
+
+    /**
+     * <p>
+     * Komprimiert eine Datei vollst&auml;ndig in den Speicher, bzw. gro&szlig;e Dateien in eine tempor&auml;re
+     * Datei.
+     * Jeder Thread verwendet dazu seinen eigenen {@linkplain java.util.zip.Deflater Deflater} und Puffer.
+     * </p>
+     */
+    private Payload compress (String file) throws IOException {
+        int             len;
+        byte []         chunks =    CHUNKS.get ();
+        Deflater        deflater =  DEFLATERS.get ();
+        CRC32           crc =       new CRC32 ();
+        Payload         retVal =    new Payload ();
+        boolean         done =      false;
+
+        retVal.modified = new File (file).lastModified ();
+        deflater.reset ();
+        deflater.setLevel (level);
+        try (InputStream in = new FileInputStream (file)) {
+            while ((len = in.read (chunks, 0, CHUNKSIZE)) > 0) {
+                crc.update (chunks, 0, len);
+                retVal.size += len;
+                deflater.setInput (chunks, 0, len);
+                while (!deflater.needsInput ())
+                    retVal.write (chunks, CHUNKSIZE, deflater.deflate (chunks, CHUNKSIZE, CHUNKSIZE));
+            }
+            deflater.finish ();
+            while (!deflater.finished ())
+                retVal.write (chunks, CHUNKSIZE, deflater.deflate (chunks, CHUNKSIZE, CHUNKSIZE));
+            retVal.close ();
+            done = true;
+        }
+        finally {
+            deflater.reset ();
+            if (!done)
+                retVal.discard ();
+        }
+        retVal.crc = crc.getValue ();
+        retVal.method = ZipEntry.DEFLATED;
+        if (storeIncompressible && (retVal.compressed >= retVal.size)) {
+            retVal.method = ZipEntry.STORED;
+            retVal.discard ();
+        }
+        return (retVal);
+    }
+
+    private void write (String name, String file, Payload payload) throws IOException {
+        byte []         nameBytes =     name.getBytes (ZipDirectory.UTF8);
+        long            offset =        channel.position ();
+        int             time =          (int) dosTime (payload.modified);
+        long            size =          payload.size;
+        long            compressed =    (payload.method == ZipEntry.STORED) ? size : payload.compressed;
+        boolean         zip64 =         (size >= ZipDirectory.ZIP64_MAGICVAL) ||
+                                        (compressed >= ZipDirectory.ZIP64_MAGICVAL);
+        ByteBuffer      header =        littleEndian (ZipDirectory.LOCHDR + nameBytes.length + (zip64 ? 20 : 0));
+
+        // a local ZIP64 extra field holds both sizes
+        header.putInt (ZipDirectory.LOCSIG).putShort ((short) (zip64 ? ZIP64VERSION : VERSION))
+              .putShort ((short) UTF8FLAG).putShort ((short) payload.method).putInt (time)
+              .putInt ((int) payload.crc).putInt (zip64 ? -1 : (int) compressed).putInt (zip64 ? -1 : (int) size)
+              .putShort ((short) nameBytes.length).putShort ((short) (zip64 ? 20 : 0)).put (nameBytes);
+        if (zip64)
+            header.putShort ((short) ZipDirectory.ZIP64_EXTRA).putShort ((short) 16).putLong (size).putLong (compressed);
+        try {
+            write (header);
+            if (payload.data != null)
+                payload.data.writeTo (Channels.newOutputStream (channel));
+            else
+                transfer ((payload.spill != null) ? payload.spill : new File (file), compressed);
+        }
+        finally {
+            payload.discard ();
+        }
+        addCentral (nameBytes, payload.method, time, payload.crc, compressed, size, offset);
+    }
+
+    private void transfer (File file, long size) throws IOException {
+        long    position;
+
+        try (FileChannel in = FileChannel.open (file.toPath (), StandardOpenOption.READ)) {
+            if (in.size () != size)
+                throw new IOException ("file changed while archiving: " + file);
+            for (position = 0; position < size; )
+                position += in.transferTo (position, size - position, channel);
+        }
+    }
+
+    /**
+     * <p>
+     * F&uuml;gt Dateien als Eintr&auml;ge hinzu.
+     * Die Dateien werden von {@linkplain #setThreads(int) mehreren Threads} gleichzeitig komprimiert und in der
+     * Reihenfolge von <q>files</q> geschrieben.
+     * Damit der Speicherbedarf begrenzt bleibt, sind h&ouml;chstens doppelt so viele Dateien gleichzeitig in
+     * Bearbeitung wie Threads verwendet werden, und komprimierte Inhalte &uuml;ber {@value #SPILLSIZE} Bytes
+     * werden bis zum Schreiben in tempor&auml;ren Dateien abgelegt.
+     * </p>
+     *
+     * @param  names    Die Namen der Eintr&auml;ge.
+     * @param  files    Die Namen der Dateien.
+     */
+    public void putFiles (String [] names, final String [] files) throws IOException {
+        int                             next;
+        int                             i;
+        ExecutorService                 executor;
+        Deque <Future <Payload>>        pending =   new ArrayDeque <> ();
+
+        if (entryOpen)
+            throw new IllegalStateException ("entry still open");
+        if ((threads <= 1) || (files.length <= 1)) {
+            for (i = 0; i < files.length; i++)
+                write (names [i], files [i], compress (files [i]));
+            return;
+        }
+        executor = Executors.newFixedThreadPool (Math.min (threads, files.length));
+        try {
+            for (i = next = 0; i < files.length; i++) {
+                for (; (next < files.length) && (pending.size () < 2 * threads); next++) {
+                    final String file = files [next];
+
+                    pending.add (executor.submit (new Callable <Payload> () {
+                        @Override
+                        public Payload call () throws IOException {
+                            return (compress (file));
+                        }
+                    }));
+                }
+                try {
+                    write (names [i], files [i], pending.remove ().get ());
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread ().interrupt ();
+                    throw new InterruptedIOException (files [i]);
+                }
+                catch (ExecutionException ee) {
+                    if (ee.getCause () instanceof IOException)
+                        throw (IOException) ee.getCause ();
+                    throw new IOException (files [i] + ": " + ee.getCause (), ee.getCause ());
+                }
+            }
+        }
+        finally {
+            for (Runnable task: executor.shutdownNow ())
+                ((Future <?>) task).cancel (false);
+            discard (pending);
+        }
+    }
+
+    /**
+     * <p>
+     * L&ouml;scht die tempor&auml;ren Dateien der Inhalte, die nach einem Fehler nicht mehr geschrieben werden.
+     * </p>
+     */
+    private static void discard (Deque <Future <Payload>> pending) {
+        for (Future <Payload> payload: pending)
+            try {
+                payload.get ().discard ();
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread ().interrupt ();
+                return;
+            }
+            catch (ExecutionException | CancellationException e) {
+                // nothing to delete
+            }
+    }
+
+    /**
+     * <p>
+     * Schreibt das zentrale Verzeichnis und beendet das Archiv.
+     * </p>
+     *
+     * @return Die Position des zentralen Verzeichnisses.
+     */
+    public long finish () throws IOException {
+        long        offset =    channel.position ();
+        long        size =      centralDirectory.size ();
+        ByteBuffer  directory = ByteBuffer.wrap (centralDirectory.toByteArray ());
+        ByteBuffer  zip64End =  littleEndian (ZipDirectory.ZIP64_ENDHDR + ZipDirectory.ZIP64_LOCHDR);
+        ByteBuffer  end =       littleEndian (ZipDirectory.ENDHDR);
+
+        if (entryOpen)
+            throw new IllegalStateException ("entry still open");
+        while (directory.hasRemaining ())
+            channel.write (directory);
+        if ((count >= MAXCOUNT) || (offset >= ZipDirectory.ZIP64_MAGICVAL) || (size >= ZipDirectory.ZIP64_MAGICVAL)) {
+            zip64End.putInt (ZipDirectory.ZIP64_ENDSIG).putLong (ZipDirectory.ZIP64_ENDHDR - 12)
+                    .putShort ((short) ZIP64VERSION).putShort ((short) ZIP64VERSION).putInt (0).putInt (0)
+                    .putLong (count).putLong (count).putLong (size).putLong (offset);
+            zip64End.putInt (ZipDirectory.ZIP64_LOCSIG).putInt (0).putLong (offset + size).putInt (1);
+            write (zip64End);
+        }
+        end.putInt (ZipDirectory.ENDSIG).putShort ((short) 0).putShort ((short) 0)
+           .putShort ((short) Math.min (count, MAXCOUNT)).putShort ((short) Math.min (count, MAXCOUNT))
+           .putInt (toInt (size)).putInt (toInt (offset)).putShort ((short) 0);
+        write (end);
+        channel.truncate (channel.position ());
+        return (offset);
+    }
+
+    @Override
+    public void close () throws IOException {
+        if (ownChannel)
+            channel.close ();
+    }
+}